@@ -0,0 +1,193 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal;
+
+import ai.applica.spring.boot.starter.temporal.client.AsyncWorkflowCalls;
+import ai.applica.spring.boot.starter.temporal.client.WorkflowQueries;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowOptions.Builder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link WorkflowFactory} for non blocking applications, e.g. WebFlux.
+ * Calls are made with the asynchronous gRPC stub when the returned {@link Mono} is subscribed, no
+ * thread waits for the answer. Cancelling subscription cancels the call.
+ */
+public class ReactiveWorkflowFactory {
+
+  private final WorkflowFactory workflowFactory;
+  private final AsyncWorkflowCalls calls;
+  private final WorkflowQueries queries;
+
+  public ReactiveWorkflowFactory(
+      TemporalProperties temporalProperties,
+      WorkflowFactory workflowFactory,
+      WorkflowClient workflowClient) {
+    this.workflowFactory = workflowFactory;
+    this.calls = new AsyncWorkflowCalls(workflowClient);
+    this.queries = new WorkflowQueries(workflowClient, temporalProperties.getQueries());
+  }
+
+  /**
+   * Starts workflow with options taken from properties based on annotation of implementation
+   * class.
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param workflowClass
+   * @param workflowId
+   * @param args
+   * @return
+   */
+  public <T> Mono<WorkflowExecution> start(
+      Class<T> workflowInterface,
+      Class<? extends T> workflowClass,
+      String workflowId,
+      Object... args) {
+    return defer(
+        () ->
+            calls.start(
+                WorkflowFactory.workflowType(workflowInterface),
+                options(workflowClass, workflowId),
+                args));
+  }
+  /**
+   * Starts workflow of given type with given options.
+   *
+   * @param workflowType
+   * @param optionsBuilder
+   * @param args
+   * @return
+   */
+  public Mono<WorkflowExecution> start(
+      String workflowType, Builder optionsBuilder, Object... args) {
+    return defer(() -> calls.start(workflowType, optionsBuilder.build(), args));
+  }
+  /**
+   * Sends signal to the current run of workflow.
+   *
+   * @param workflowId
+   * @param signalName name of the signal, method name unless set in <code>@SignalMethod</code>
+   * @param args
+   * @return
+   */
+  public Mono<Void> signal(String workflowId, String signalName, Object... args) {
+    return defer(() -> calls.signal(execution(workflowId), signalName, args));
+  }
+  /**
+   * Sends signal to workflow and starts it first when it is not running. Options are taken from
+   * properties based on annotation of implementation class.
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param workflowClass
+   * @param workflowId
+   * @param signalName
+   * @param signalArgs
+   * @param startArgs
+   * @return
+   */
+  public <T> Mono<WorkflowExecution> signalWithStart(
+      Class<T> workflowInterface,
+      Class<? extends T> workflowClass,
+      String workflowId,
+      String signalName,
+      Object[] signalArgs,
+      Object... startArgs) {
+    return defer(
+        () ->
+            calls.signalWithStart(
+                WorkflowFactory.workflowType(workflowInterface),
+                options(workflowClass, workflowId),
+                signalName,
+                signalArgs,
+                startArgs));
+  }
+  /**
+   * Queries workflow with deadline and hedging configured in <code>spring.temporal.queries</code>.
+   *
+   * @param <R>
+   * @param workflowId
+   * @param queryType
+   * @param resultClass
+   * @param args
+   * @return
+   */
+  public <R> Mono<R> query(
+      String workflowId, String queryType, Class<R> resultClass, Object... args) {
+    return defer(
+        () -> queries.queryAsync(execution(workflowId), queryType, resultClass, null, args));
+  }
+  /**
+   * Waits for result of the current run of workflow.
+   *
+   * @param <R>
+   * @param workflowId
+   * @param resultClass
+   * @return
+   */
+  public <R> Mono<R> result(String workflowId, Class<R> resultClass) {
+    return result(execution(workflowId), resultClass);
+  }
+  /**
+   * Waits for result of given run of workflow, runs continued as new are followed. Workflows that
+   * do not complete end with <code>WorkflowClosedException</code>.
+   *
+   * @param <R>
+   * @param execution
+   * @param resultClass
+   * @return
+   */
+  public <R> Mono<R> result(WorkflowExecution execution, Class<R> resultClass) {
+    return defer(() -> calls.result(execution, resultClass));
+  }
+
+  /** Makes the call on subscription and cancels its future when the subscription is cancelled. */
+  private static <T> Mono<T> defer(Supplier<CompletableFuture<T>> call) {
+    return Mono.create(
+        sink -> {
+          CompletableFuture<T> future = call.get();
+          sink.onCancel(() -> future.cancel(true));
+          future.whenComplete(
+              (value, t) -> {
+                if (t == null) {
+                  sink.success(value);
+                } else {
+                  sink.error(
+                      t instanceof CompletionException && t.getCause() != null
+                          ? t.getCause()
+                          : t);
+                }
+              });
+        });
+  }
+
+  private WorkflowOptions options(Class<?> workflowClass, String workflowId) {
+    return workflowFactory.defaultOptionsBuilder(workflowClass).setWorkflowId(workflowId).build();
+  }
+
+  private static WorkflowExecution execution(String workflowId) {
+    return WorkflowExecution.newBuilder().setWorkflowId(workflowId).build();
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.worker.WorkerFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Holds clients, worker factories and workflow factories of the default client and of the named
+ * ones configured under <code>spring.temporal.clients</code>. Default client is registered under
+ * {@link #DEFAULT_CLIENT} name.
+ */
+public class TemporalClientRegistry implements DisposableBean {
+
+  /** Name of the client configured at the top level of properties. */
+  public static final String DEFAULT_CLIENT = "";
+
+  private final Map<String, WorkflowClient> clients = new LinkedHashMap<>();
+  private final Map<String, WorkerFactory> workerFactories = new LinkedHashMap<>();
+  private final Map<String, WorkflowFactory> workflowFactories = new LinkedHashMap<>();
+
+  public void register(
+      String name,
+      WorkflowClient workflowClient,
+      WorkerFactory workerFactory,
+      WorkflowFactory workflowFactory) {
+    clients.put(name, workflowClient);
+    workerFactories.put(name, workerFactory);
+    workflowFactories.put(name, workflowFactory);
+  }
+
+  public Set<String> getClientNames() {
+    return Collections.unmodifiableSet(clients.keySet());
+  }
+
+  public WorkflowClient getClient(String name) {
+    return get(clients, name);
+  }
+
+  public WorkerFactory getWorkerFactory(String name) {
+    return get(workerFactories, name);
+  }
+
+  public WorkflowFactory getWorkflowFactory(String name) {
+    return get(workflowFactories, name);
+  }
+
+  /** Starts worker factories of all clients. */
+  public void startWorkerFactories() {
+    workerFactories.values().forEach(WorkerFactory::start);
+  }
+
+  @Override
+  public void destroy() {
+    // default client and worker factory are beans on their own and are left to their owner,
+    // channels of all clients are shut down by TemporalBootstrapConfiguration after this
+    workerFactories.forEach(
+        (name, workerFactory) -> {
+          if (!DEFAULT_CLIENT.equals(name)) {
+            workerFactory.shutdown();
+            clients.get(name).getWorkflowServiceStubs().shutdown();
+          }
+        });
+  }
+
+  private static <T> T get(Map<String, T> map, String name) {
+    T value = map.get(name == null ? DEFAULT_CLIENT : name);
+    if (value == null) {
+      throw new IllegalArgumentException("No Temporal client configured with name: " + name);
+    }
+    return value;
+  }
+}
@@ -17,22 +17,55 @@
 
 package ai.applica.spring.boot.starter.temporal;
 
+import ai.applica.spring.boot.starter.temporal.annotations.ActivityStub;
 import ai.applica.spring.boot.starter.temporal.annotations.TemporalWorkflow;
+import ai.applica.spring.boot.starter.temporal.client.BatchOperation;
+import ai.applica.spring.boot.starter.temporal.client.BulkStartItem;
+import ai.applica.spring.boot.starter.temporal.client.BulkStartListener;
+import ai.applica.spring.boot.starter.temporal.client.BulkStartResult;
+import ai.applica.spring.boot.starter.temporal.client.BulkStarter;
+import ai.applica.spring.boot.starter.temporal.client.QueryFanOut;
+import ai.applica.spring.boot.starter.temporal.client.QueryFanOutResult;
+import ai.applica.spring.boot.starter.temporal.client.SignalCoalescer;
+import ai.applica.spring.boot.starter.temporal.client.StartLimiter;
+import ai.applica.spring.boot.starter.temporal.client.StartLimitingInterceptor;
+import ai.applica.spring.boot.starter.temporal.client.WorkflowExecutionListing;
+import ai.applica.spring.boot.starter.temporal.client.WorkflowHandleCache;
+import ai.applica.spring.boot.starter.temporal.client.WorkflowQueries;
 import ai.applica.spring.boot.starter.temporal.config.TemporalOptionsConfiguration;
 import ai.applica.spring.boot.starter.temporal.config.TemporalProperties;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.BatchOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.DelayedStartOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.QueryOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.SignalCoalescingOptions;
 import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.WorkflowOption;
+import ai.applica.spring.boot.starter.temporal.converter.ProtobufMessageTypes;
+import ai.applica.spring.boot.starter.temporal.outbox.DelayedStartScheduler;
+import ai.applica.spring.boot.starter.temporal.outbox.WorkflowStartOutbox;
 import ai.applica.spring.boot.starter.temporal.processors.ActivityStubInterceptor;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowOptions;
 import io.temporal.client.WorkflowOptions.Builder;
+import io.temporal.common.interceptors.WorkflowClientInterceptor;
+import io.temporal.common.metadata.POJOWorkflowInterfaceMetadata;
 import io.temporal.testing.TestWorkflowEnvironment;
 import io.temporal.worker.Worker;
+import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.Set;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import lombok.Getter;
+import lombok.Setter;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.dynamic.DynamicType.Loaded;
 import net.bytebuddy.dynamic.DynamicType.Unloaded;
@@ -40,18 +73,63 @@ import net.bytebuddy.implementation.MethodDelegation;
 import net.bytebuddy.matcher.ElementMatchers;
 import org.springframework.core.MethodIntrospector;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils;
 
 /**
  * Factory to instantiate workers based on bean versions of workflows. Plus conviniet methods to
  * build stubs for workflows based on configuration.
  */
-@RequiredArgsConstructor
 public class WorkflowFactory {
 
   private final TemporalProperties temporalProperties;
-  private final WorkflowClient workflowClient;
+  @Getter private final WorkflowClient workflowClient;
   private final TemporalOptionsConfiguration temporalOptionsConfiguration;
+  @Getter private final String clientName;
+  private final WorkflowQueries workflowQueries;
+  private final StartLimiter startLimiter;
+  private final WorkflowHandleCache handleCache;
+  /** Set when <code>spring.temporal.outbox.enabled</code> is on. */
+  @Setter private WorkflowStartOutbox outbox;
+  /** Set when <code>spring.temporal.dataConverter.protobufStubTypes</code> is on. */
+  @Setter private ProtobufMessageTypes protobufMessageTypes;
+
+  public WorkflowFactory(
+      TemporalProperties temporalProperties,
+      WorkflowClient workflowClient,
+      TemporalOptionsConfiguration temporalOptionsConfiguration) {
+    this(
+        temporalProperties,
+        workflowClient,
+        temporalOptionsConfiguration,
+        TemporalClientRegistry.DEFAULT_CLIENT);
+  }
+
+  public WorkflowFactory(
+      TemporalProperties temporalProperties,
+      WorkflowClient workflowClient,
+      TemporalOptionsConfiguration temporalOptionsConfiguration,
+      String clientName) {
+    this.temporalProperties = temporalProperties;
+    this.workflowClient = workflowClient;
+    this.temporalOptionsConfiguration = temporalOptionsConfiguration;
+    this.clientName = clientName;
+    this.workflowQueries = new WorkflowQueries(workflowClient, temporalProperties.getQueries());
+    this.startLimiter = findStartLimiter(workflowClient);
+    this.handleCache = new WorkflowHandleCache(workflowClient, temporalProperties.getHandleCache());
+  }
+
+  private static StartLimiter findStartLimiter(WorkflowClient workflowClient) {
+    WorkflowClientInterceptor[] interceptors = workflowClient.getOptions().getInterceptors();
+    if (interceptors != null) {
+      for (WorkflowClientInterceptor interceptor : interceptors) {
+        if (interceptor instanceof StartLimitingInterceptor) {
+          return ((StartLimitingInterceptor) interceptor).getStartLimiter();
+        }
+      }
+    }
+    return null;
+  }
 
   /**
    * Builds workflow stub similary to <code>WorkflowClient#newWorkflowStub</code> but with options
@@ -101,6 +179,14 @@ public class WorkflowFactory {
   public Builder defaultOptionsBuilder(Class<?> workflowClass) {
     TemporalWorkflow workflowAnnotation =
         AnnotationUtils.findAnnotation(workflowClass, TemporalWorkflow.class);
+    if (!clientName.equals(workflowAnnotation.client())) {
+      throw new IllegalArgumentException(
+          "Workflow "
+              + workflowClass.getSimpleName()
+              + " is bound to client '"
+              + workflowAnnotation.client()
+              + "', use its WorkflowFactory from TemporalClientRegistry");
+    }
 
     return defaultOptionsBuilder(workflowAnnotation.value());
   }
@@ -109,9 +195,13 @@ public class WorkflowFactory {
    *
    * @param workflowName
    * @return
+   * @throws IllegalArgumentException when the workflow has no properties
    */
   public Builder defaultOptionsBuilder(String workflowName) {
     WorkflowOption option = temporalProperties.getWorkflows().get(workflowName);
+    if (option == null) {
+      throw new IllegalArgumentException("No properties of workflow " + workflowName);
+    }
     Builder builder =
         WorkflowOptions.newBuilder()
             .setTaskQueue(option.getTaskQueue())
@@ -173,6 +263,391 @@ public class WorkflowFactory {
     T stub = lwc.newWorkflowStub(workflowInterface, optionsBuilder.build());
     return stub;
   }
+  /**
+   * Stub of the current run of a started workflow, for signals and queries. Stubs are cached, up to
+   * <code>spring.temporal.handleCache.maxSize</code> of them, and shared by callers.
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param workflowId
+   * @return
+   */
+  public <T> T getHandle(Class<T> workflowInterface, String workflowId) {
+    return handleCache.get(workflowInterface, workflowId, null);
+  }
+  /**
+   * Stub of given run of a started workflow, cached like <code>getHandle(workflowInterface,
+   * workflowId)</code>.
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param workflowId
+   * @param runId
+   * @return
+   */
+  public <T> T getHandle(Class<T> workflowInterface, String workflowId, String runId) {
+    return handleCache.get(workflowInterface, workflowId, runId);
+  }
+  /**
+   * Queries workflow with deadline and hedging configured in <code>spring.temporal.queries</code>.
+   *
+   * @param <R>
+   * @param workflowId
+   * @param queryType name of the query, method name unless set in <code>@QueryMethod</code>
+   * @param resultClass
+   * @param args
+   * @return
+   */
+  public <R> R query(String workflowId, String queryType, Class<R> resultClass, Object... args) {
+    return workflowQueries.query(
+        WorkflowExecution.newBuilder().setWorkflowId(workflowId).build(),
+        queryType,
+        resultClass,
+        null,
+        args);
+  }
+  /**
+   * Asynchronous version of <code>query</code>.
+   *
+   * @param <R>
+   * @param workflowId
+   * @param queryType
+   * @param resultClass
+   * @param args
+   * @return
+   */
+  public <R> CompletableFuture<R> queryAsync(
+      String workflowId, String queryType, Class<R> resultClass, Object... args) {
+    return workflowQueries.queryAsync(
+        WorkflowExecution.newBuilder().setWorkflowId(workflowId).build(),
+        queryType,
+        resultClass,
+        null,
+        args);
+  }
+  /**
+   * Asynchronous query of given run with deadline and hedge delay set per call.
+   *
+   * @param <R>
+   * @param execution
+   * @param queryType
+   * @param resultClass
+   * @param options
+   * @param args
+   * @return
+   */
+  public <R> CompletableFuture<R> queryAsync(
+      WorkflowExecution execution,
+      String queryType,
+      Class<R> resultClass,
+      QueryOptions options,
+      Object... args) {
+    return workflowQueries.queryAsync(execution, queryType, resultClass, options, args);
+  }
+  /**
+   * Sends the same query to many workflows, at most <code>spring.temporal.queries.fanOutConcurrency
+   * </code> at a time, and streams answers as they arrive. Every query has its own deadline, a
+   * failed query is an answer of its workflow and does not end the stream.
+   *
+   * <pre>
+   * try (Stream&lt;QueryFanOutResult&lt;String&gt;&gt; answers =
+   *     fact.queryAll(workflowIds, "getStatus", String.class)) {
+   *   answers.filter(QueryFanOutResult::isSuccess).forEach(...);
+   * }
+   * </pre>
+   *
+   * @param <R>
+   * @param workflowIds
+   * @param queryType
+   * @param resultClass
+   * @param args
+   * @return
+   */
+  public <R> Stream<QueryFanOutResult<R>> queryAll(
+      Collection<String> workflowIds, String queryType, Class<R> resultClass, Object... args) {
+    return queryAll(
+        workflowIds,
+        queryType,
+        resultClass,
+        null,
+        temporalProperties.getQueries().getFanOutConcurrency(),
+        args);
+  }
+  /**
+   * Query fan-out with deadline, hedge delay and concurrency set per call.
+   *
+   * @param <R>
+   * @param workflowIds
+   * @param queryType
+   * @param resultClass
+   * @param options
+   * @param concurrency
+   * @param args
+   * @return
+   */
+  public <R> Stream<QueryFanOutResult<R>> queryAll(
+      Collection<String> workflowIds,
+      String queryType,
+      Class<R> resultClass,
+      QueryOptions options,
+      int concurrency,
+      Object... args) {
+    Scope scope = workflowClient.getWorkflowServiceStubs().getOptions().getMetricsScope();
+    return new QueryFanOut(workflowQueries, scope)
+        .queryAll(workflowIds, queryType, resultClass, options, concurrency, args);
+  }
+  /**
+   * Executions matching a visibility query, paged lazily with page size of <code>
+   * spring.temporal.listing.pageSize</code>. The next page is fetched while the current one is
+   * read.
+   *
+   * <pre>
+   * try (Stream&lt;WorkflowExecutionInfo&gt; executions =
+   *     fact.listExecutions("WorkflowType='GreetingWorkflow' AND ExecutionStatus='Running'")) {
+   *   executions.forEach(...);
+   * }
+   * </pre>
+   *
+   * @param query visibility query, all executions of the namespace when empty
+   * @return
+   */
+  public Stream<WorkflowExecutionInfo> listExecutions(String query) {
+    return listExecutions(query, temporalProperties.getListing().getPageSize());
+  }
+  /**
+   * Executions matching a visibility query, paged lazily with given page size.
+   *
+   * @param query
+   * @param pageSize
+   * @return
+   */
+  public Stream<WorkflowExecutionInfo> listExecutions(String query, int pageSize) {
+    return new WorkflowExecutionListing(workflowClient, pageSize).list(query);
+  }
+  /**
+   * Stores start of a workflow in the outbox table within the current Spring transaction. The
+   * workflow is started after commit by the outbox dispatcher, with options taken from properties
+   * like in <code>makeStub</code>. Nothing is started when the transaction rolls back.
+   *
+   * <pre>
+   * &#64;Transactional
+   * public void register(Order order) {
+   *   orders.save(order);
+   *   fact.enqueueStart(OrderWorkflow.class, OrderWorkflowImpl.class, order.getId(), order);
+   * }
+   * </pre>
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param workflowClass
+   * @param workflowId
+   * @param args arguments of the workflow method
+   * @throws IllegalStateException when the outbox is not enabled
+   */
+  public <T> void enqueueStart(
+      Class<T> workflowInterface,
+      Class<? extends T> workflowClass,
+      String workflowId,
+      Object... args) {
+    if (outbox == null) {
+      throw new IllegalStateException(
+          "Workflow outbox is not enabled, set spring.temporal.outbox.enabled");
+    }
+    TemporalWorkflow workflowAnnotation =
+        AnnotationUtils.findAnnotation(workflowClass, TemporalWorkflow.class);
+    outbox.enqueue(workflowAnnotation.value(), workflowInterface, workflowId, args);
+  }
+  /**
+   * Runs a start through client side limits of <code>spring.temporal.startLimits</code>. In
+   * ASYNC_QUEUE mode the start is queued and the method returns at once, otherwise it runs in the
+   * calling thread.
+   *
+   * <pre>
+   * fact.startAsync(() -&gt; WorkflowClient.start(workflow::process, argument));
+   * </pre>
+   *
+   * @param start
+   * @return
+   */
+  public CompletableFuture<WorkflowExecution> startAsync(Supplier<WorkflowExecution> start) {
+    if (startLimiter != null) {
+      return startLimiter.submit(start);
+    }
+    CompletableFuture<WorkflowExecution> result = new CompletableFuture<>();
+    try {
+      result.complete(start.get());
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+  /**
+   * Starts a workflow for each item with options taken from properties based on annotation of
+   * implementation class and with <code>spring.temporal.bulkStart.parallelism</code> starts in
+   * flight. Items that are already running are not failed, they are counted as already started.
+   *
+   * <pre>
+   * fact.startAll(HelloWorkflow.class, HelloWorkflowImpl.class,
+   *     ids.stream().map(id -&gt; BulkStartItem.of(id, argument)));
+   * </pre>
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param workflowClass
+   * @param items
+   * @return
+   */
+  public <T> BulkStartResult startAll(
+      Class<T> workflowInterface, Class<? extends T> workflowClass, Stream<BulkStartItem> items) {
+    return startAll(
+        workflowInterface,
+        defaultOptionsBuilder(workflowClass),
+        temporalProperties.getBulkStart().getParallelism(),
+        items);
+  }
+  /**
+   * Starts a workflow for each item with given options and starts in flight.
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param optionsBuilder options without workflow id
+   * @param parallelism
+   * @param items
+   * @return
+   */
+  public <T> BulkStartResult startAll(
+      Class<T> workflowInterface,
+      Builder optionsBuilder,
+      int parallelism,
+      Stream<BulkStartItem> items) {
+    return startAll(workflowInterface, optionsBuilder, parallelism, items, null);
+  }
+  /**
+   * Starts a workflow for each item with given options and starts in flight, the listener is told
+   * about every item when its start is done.
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param optionsBuilder options without workflow id
+   * @param parallelism
+   * @param items
+   * @param listener may be null
+   * @return
+   */
+  public <T> BulkStartResult startAll(
+      Class<T> workflowInterface,
+      Builder optionsBuilder,
+      int parallelism,
+      Stream<BulkStartItem> items,
+      BulkStartListener listener) {
+    return new BulkStarter(workflowClient, parallelism)
+        .startAll(workflowType(workflowInterface), optionsBuilder.build(), items, listener);
+  }
+  /**
+   * Workflow type of workflow interface, name set in <code>@WorkflowMethod</code> or simple name of
+   * the interface.
+   *
+   * @param workflowInterface
+   * @return
+   */
+  public static String workflowType(Class<?> workflowInterface) {
+    return POJOWorkflowInterfaceMetadata.newInstance(workflowInterface)
+        .getWorkflowMethod()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    workflowInterface.getSimpleName() + " has no workflow method"))
+        .getName();
+  }
+  /**
+   * Makes sender delivering items sent to the same workflow together as one signal with a list of
+   * items, with flush interval and max batch size from <code>spring.temporal.signalCoalescing
+   * </code>. Close the sender to deliver items still buffered.
+   *
+   * <pre>
+   * SignalCoalescer names = fact.newSignalCoalescer("waitForNames");
+   * names.send(workflowId, "World");
+   * </pre>
+   *
+   * @param batchSignalName name of signal method taking a list of items
+   * @return
+   */
+  public SignalCoalescer newSignalCoalescer(String batchSignalName) {
+    return newSignalCoalescer(batchSignalName, temporalProperties.getSignalCoalescing());
+  }
+  /**
+   * Makes sender delivering items sent to the same workflow together as one signal with given
+   * flush interval and max batch size.
+   *
+   * @param batchSignalName
+   * @param options
+   * @return
+   */
+  public SignalCoalescer newSignalCoalescer(
+      String batchSignalName, SignalCoalescingOptions options) {
+    return new SignalCoalescer(workflowClient, batchSignalName, options);
+  }
+  /**
+   * Makes operation applying a signal, cancel or terminate to all executions matching a visibility
+   * query, with concurrency and rate of <code>spring.temporal.batch</code> and pages of <code>
+   * spring.temporal.listing.pageSize</code>.
+   *
+   * <pre>
+   * fact.newBatchOperation()
+   *     .run(
+   *         "WorkflowType='GreetingWorkflow' AND ExecutionStatus='Running'",
+   *         BatchAction.cancel(),
+   *         Paths.get("cancel-greetings.checkpoint"),
+   *         progress -&gt; System.out.println(progress.getTotal()));
+   * </pre>
+   *
+   * @return
+   */
+  public BatchOperation newBatchOperation() {
+    return newBatchOperation(temporalProperties.getBatch());
+  }
+  /**
+   * Makes batch operation with given concurrency and rate.
+   *
+   * @param options
+   * @return
+   */
+  public BatchOperation newBatchOperation(BatchOptions options) {
+    return new BatchOperation(
+        workflowClient,
+        options,
+        new WorkflowExecutionListing(
+            workflowClient, temporalProperties.getListing().getPageSize()));
+  }
+  /**
+   * Makes scheduler starting workflows at given times, with pending starts kept in the journal
+   * file so they survive restarts. Tick, wheel size and concurrency are taken from <code>
+   * spring.temporal.delayedStart</code>. Close the scheduler on shutdown.
+   *
+   * <pre>
+   * DelayedStartScheduler reminders =
+   *     fact.newDelayedStartScheduler(Paths.get("reminders.journal"));
+   * reminders.schedule(
+   *     ReminderWorkflow.class, ReminderWorkflowImpl.class, reminderId, remindAt, reminder);
+   * </pre>
+   *
+   * @param journalFile
+   * @return
+   */
+  public DelayedStartScheduler newDelayedStartScheduler(Path journalFile) {
+    return newDelayedStartScheduler(journalFile, temporalProperties.getDelayedStart());
+  }
+  /**
+   * Makes scheduler of delayed starts with given options.
+   *
+   * @param journalFile
+   * @param options
+   * @return
+   */
+  public DelayedStartScheduler newDelayedStartScheduler(
+      Path journalFile, DelayedStartOptions options) {
+    return new DelayedStartScheduler(this, workflowClient, journalFile, options);
+  }
   /**
    * Test version of making workers. On production it is done automaticly. Remember not to use
    * uprocessed classes that are not beans and will not work or not work properly.
@@ -216,6 +691,7 @@ public class WorkflowFactory {
                 method -> AnnotationUtils.findAnnotation(method, WorkflowMethod.class) != null);
 
     Method method = (Method) methods.toArray()[0];
+    registerWorkflowProtobufTypes(targetClass);
 
     Unloaded<?> beanU =
         new ByteBuddy()
@@ -230,4 +706,31 @@ public class WorkflowFactory {
     Loaded<?> beanL = beanU.load(targetClass.getClassLoader());
     return beanL.getLoaded();
   }
+
+  /**
+   * Registers protobuf messages used in methods of the interface to be written in binary by the
+   * data converter of the client, when <code>spring.temporal.dataConverter.protobufStubTypes</code>
+   * is on. Called once per interface as workers and <code>@StartsWorkflow</code> methods are wired.
+   *
+   * @param type workflow or activity interface
+   */
+  public void registerProtobufTypes(Class<?> type) {
+    if (protobufMessageTypes != null) {
+      protobufMessageTypes.registerInterface(type);
+    }
+  }
+
+  /** Protobuf messages of the workflow and of its activity stubs are written in binary. */
+  private void registerWorkflowProtobufTypes(Class<?> targetClass) {
+    if (protobufMessageTypes == null) {
+      return;
+    }
+    ClassUtils.getAllInterfacesForClassAsSet(targetClass).stream()
+        .filter(type -> type.isAnnotationPresent(WorkflowInterface.class))
+        .forEach(protobufMessageTypes::registerInterface);
+    ReflectionUtils.doWithFields(
+        targetClass,
+        field -> protobufMessageTypes.registerInterface(field.getType()),
+        field -> field.isAnnotationPresent(ActivityStub.class));
+  }
 }
@@ -0,0 +1,43 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Replaces body of a bean method with an asynchronous start of a workflow. The method returns
+ * <code>CompletableFuture&lt;WorkflowExecution&gt;</code> completed when the workflow is started,
+ * or nothing. Expressions are SpEL over method parameters, by name or as <code>#p0</code>, <code>
+ * #p1</code>, ...
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+public @interface StartsWorkflow {
+
+  /** Workflow implementation annotated with <code>@TemporalWorkflow</code>, source of options. */
+  Class<?> value();
+
+  /** Expression of workflow id, random UUID when empty. */
+  String workflowId() default "";
+
+  /** Expressions of workflow arguments, method arguments in order when empty. */
+  String[] args() default {};
+}
@@ -31,4 +31,10 @@ import java.lang.annotation.Target;
 public @interface TemporalActivity {
   /** Link to activity properties to be loaded from config */
   String value();
+
+  /**
+   * Name of the client from <code>spring.temporal.clients</code> the activity worker is created
+   * for. Empty means the default client.
+   */
+  String client() default "";
 }
@@ -31,4 +31,10 @@ import java.lang.annotation.Target;
 public @interface TemporalWorkflow {
   /** Link to workflow properties to be loaded from config */
   String value();
+
+  /**
+   * Name of the client from <code>spring.temporal.clients</code> the workflow worker is created
+   * for. Empty means the default client.
+   */
+  String client() default "";
 }
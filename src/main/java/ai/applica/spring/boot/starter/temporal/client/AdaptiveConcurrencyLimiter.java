@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.AdaptiveLimitOptions;
+import com.uber.m3.tally.Scope;
+import io.grpc.Status;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * AIMD concurrency limit of client calls. The limit grows by about one per round trip while calls
+ * are fast and the limit is in use, and is multiplied by backoff ratio when a call is slower than
+ * average latency of its call type times tolerance or fails with RESOURCE_EXHAUSTED. Averages are
+ * kept per call type, as a query that runs workflow code takes longer than a signal.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  public static final String ADAPTIVE_LIMIT = "temporal_starter_adaptive_limit";
+  public static final String ADAPTIVE_IN_FLIGHT = "temporal_starter_adaptive_in_flight";
+
+  /** Weight of a single sample in the average latency. */
+  private static final double LATENCY_SMOOTHING = 0.05;
+
+  /** Kinds of calls with an average latency of their own. */
+  public enum CallType {
+    START,
+    SIGNAL,
+    QUERY,
+    CANCEL,
+    TERMINATE
+  }
+
+  private final AdaptiveLimitOptions options;
+  private final Scope scope;
+  private double limit;
+  private int inFlight;
+  private final double[] averageLatencyNanos = new double[CallType.values().length];
+
+  public AdaptiveConcurrencyLimiter(AdaptiveLimitOptions options, Scope scope) {
+    this.options = options;
+    this.scope = scope;
+    this.limit = options.getInitialLimit();
+    scope.gauge(ADAPTIVE_LIMIT).update(limit);
+  }
+
+  public <T> T execute(CallType callType, Supplier<T> call) {
+    acquire();
+    long start = System.nanoTime();
+    boolean overloaded = false;
+    try {
+      return call.get();
+    } catch (RuntimeException e) {
+      overloaded = isOverloaded(e);
+      throw e;
+    } finally {
+      release(callType, System.nanoTime() - start, overloaded);
+    }
+  }
+
+  /**
+   * Holds a slot until the returned future completes. Waiting for the slot is done in the calling
+   * thread, a call rejected by the limit returns a failed future.
+   */
+  public <T> CompletableFuture<T> executeAsync(
+      CallType callType, Supplier<CompletableFuture<T>> call) {
+    try {
+      acquire();
+    } catch (ClientLimitExceededException e) {
+      CompletableFuture<T> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(e);
+      return rejected;
+    }
+    long start = System.nanoTime();
+    CompletableFuture<T> result;
+    try {
+      result = call.get();
+    } catch (RuntimeException e) {
+      release(callType, System.nanoTime() - start, isOverloaded(e));
+      throw e;
+    }
+    result.whenComplete(
+        (value, t) -> release(callType, System.nanoTime() - start, t != null && isOverloaded(t)));
+    return result;
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  synchronized void acquire() {
+    long deadline = System.nanoTime() + options.getMaxWait().toNanos();
+    while (inFlight >= (int) limit) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        throw new ClientLimitExceededException(
+            "Temporal client call rejected: adaptive limit of " + (int) limit + " calls in flight");
+      }
+      try {
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ClientLimitExceededException(
+            "Temporal client call rejected: interrupted while waiting for adaptive limit");
+      }
+    }
+    inFlight++;
+    scope.gauge(ADAPTIVE_IN_FLIGHT).update(inFlight);
+  }
+
+  synchronized void release(CallType callType, long latencyNanos, boolean overloaded) {
+    boolean limitInUse = inFlight * 2 >= limit;
+    inFlight--;
+    int type = callType.ordinal();
+    if (averageLatencyNanos[type] == 0) {
+      averageLatencyNanos[type] = latencyNanos;
+    }
+    boolean slow = latencyNanos > averageLatencyNanos[type] * options.getLatencyTolerance();
+    if (overloaded || slow) {
+      limit = Math.max(options.getMinLimit(), limit * options.getBackoffRatio());
+    } else if (limitInUse) {
+      limit = Math.min(options.getMaxLimit(), limit + 1 / limit);
+    }
+    if (!overloaded) {
+      averageLatencyNanos[type] += (latencyNanos - averageLatencyNanos[type]) * LATENCY_SMOOTHING;
+    }
+    scope.gauge(ADAPTIVE_LIMIT).update(limit);
+    scope.gauge(ADAPTIVE_IN_FLIGHT).update(inFlight);
+    notifyAll();
+  }
+
+  private static boolean isOverloaded(Throwable t) {
+    return Status.fromThrowable(GrpcFutures.unwrap(t)).getCode() == Status.Code.RESOURCE_EXHAUSTED;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.client.AdaptiveConcurrencyLimiter.CallType;
+import io.temporal.client.WorkflowClient;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowClientInterceptor;
+import io.temporal.common.interceptors.WorkflowClientInterceptorBase;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Passes short client calls through {@link AdaptiveConcurrencyLimiter}. Waiting for workflow result
+ * is a long poll and is not limited. Queries of {@link WorkflowQueries} bypass the interceptors and
+ * take the limiter from {@link #findLimiter(WorkflowClient)}.
+ */
+@RequiredArgsConstructor
+public class AdaptiveLimitingInterceptor extends WorkflowClientInterceptorBase {
+
+  @Getter private final AdaptiveConcurrencyLimiter limiter;
+
+  /** Adaptive limiter of the client or null when the client has no adaptive limit. */
+  public static AdaptiveConcurrencyLimiter findLimiter(WorkflowClient workflowClient) {
+    WorkflowClientInterceptor[] interceptors = workflowClient.getOptions().getInterceptors();
+    if (interceptors != null) {
+      for (WorkflowClientInterceptor interceptor : interceptors) {
+        if (interceptor instanceof AdaptiveLimitingInterceptor) {
+          return ((AdaptiveLimitingInterceptor) interceptor).getLimiter();
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public WorkflowClientCallsInterceptor workflowClientCallsInterceptor(
+      WorkflowClientCallsInterceptor next) {
+    return new WorkflowClientCallsInterceptorBase(next) {
+      @Override
+      public WorkflowStartOutput start(WorkflowStartInput input) {
+        return limiter.execute(CallType.START, () -> super.start(input));
+      }
+
+      @Override
+      public WorkflowSignalOutput signal(WorkflowSignalInput input) {
+        return limiter.execute(CallType.SIGNAL, () -> super.signal(input));
+      }
+
+      @Override
+      public WorkflowSignalWithStartOutput signalWithStart(WorkflowSignalWithStartInput input) {
+        return limiter.execute(CallType.START, () -> super.signalWithStart(input));
+      }
+
+      @Override
+      public <R> QueryOutput<R> query(QueryInput<R> input) {
+        return limiter.execute(CallType.QUERY, () -> super.query(input));
+      }
+
+      @Override
+      public CancelOutput cancel(CancelInput input) {
+        return limiter.execute(CallType.CANCEL, () -> super.cancel(input));
+      }
+
+      @Override
+      public TerminateOutput terminate(TerminateInput input) {
+        return limiter.execute(CallType.TERMINATE, () -> super.terminate(input));
+      }
+    };
+  }
+}
@@ -0,0 +1,421 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.api.common.v1.Memo;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.common.v1.RetryPolicy;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.enums.v1.HistoryEventFilterType;
+import io.temporal.api.errordetails.v1.WorkflowExecutionAlreadyStartedFailure;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.WorkflowExecutionCompletedEventAttributes;
+import io.temporal.api.taskqueue.v1.TaskQueue;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
+import io.temporal.api.workflowservice.v1.SignalWithStartWorkflowExecutionRequest;
+import io.temporal.api.workflowservice.v1.SignalWithStartWorkflowExecutionResponse;
+import io.temporal.api.workflowservice.v1.SignalWorkflowExecutionRequest;
+import io.temporal.api.workflowservice.v1.SignalWorkflowExecutionResponse;
+import io.temporal.api.workflowservice.v1.StartWorkflowExecutionRequest;
+import io.temporal.api.workflowservice.v1.StartWorkflowExecutionResponse;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc.WorkflowServiceFutureStub;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.RetryOptions;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.serviceclient.StatusUtils;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Start, signal, signal-with-start and waiting for result made directly with the asynchronous
+ * gRPC stub, so no thread is blocked while the call is in flight. Cancelling a returned future
+ * cancels its call. Search attributes are not supported in options, and calls do not go through
+ * client interceptors.
+ */
+public class AsyncWorkflowCalls {
+
+  /** Deadline of one long poll for the close event, the poll is repeated when it runs out. */
+  private static final long RESULT_POLL_SECONDS = 60;
+
+  private final WorkflowClient workflowClient;
+  private final QueryResultCache queryCache;
+  private final StartDeduplicator startDeduplicator;
+
+  public AsyncWorkflowCalls(WorkflowClient workflowClient) {
+    this.workflowClient = workflowClient;
+    this.queryCache = QueryCachingInterceptor.findCache(workflowClient);
+    this.startDeduplicator = StartDeduplicatingInterceptor.findDeduplicator(workflowClient);
+  }
+
+  /**
+   * Starts workflow. When workflow with the same id is running the future fails with {@link
+   * WorkflowExecutionAlreadyStarted}, unless the start is answered by the start deduplication of
+   * the client.
+   *
+   * @param workflowType
+   * @param options
+   * @param args
+   * @return
+   */
+  public CompletableFuture<WorkflowExecution> start(
+      String workflowType, WorkflowOptions options, Object... args) {
+    StartWorkflowExecutionRequest request = newStartRequest(workflowType, options, args);
+    if (startDeduplicator != null) {
+      WorkflowExecution recorded =
+          startDeduplicator.lookup(
+              workflowType, request.getWorkflowId(), options.getWorkflowIdReusePolicy());
+      if (recorded != null) {
+        return CompletableFuture.completedFuture(recorded);
+      }
+    }
+    CompletableFuture<StartWorkflowExecutionResponse> call =
+        GrpcFutures.toCompletableFuture(futureStub().startWorkflowExecution(request));
+    return GrpcFutures.cancelling(
+        call.handle(
+            (response, t) -> {
+              if (t != null) {
+                throw translate(t, request.getWorkflowId(), workflowType);
+              }
+              WorkflowExecution execution = execution(request.getWorkflowId(), response.getRunId());
+              if (startDeduplicator != null) {
+                startDeduplicator.record(workflowType, execution);
+              }
+              return execution;
+            }),
+        call);
+  }
+
+  /**
+   * Sends signal to workflow.
+   *
+   * @param execution workflow id and optionally run id
+   * @param signalName
+   * @param args
+   * @return
+   */
+  public CompletableFuture<Void> signal(
+      WorkflowExecution execution, String signalName, Object... args) {
+    SignalWorkflowExecutionRequest.Builder request =
+        SignalWorkflowExecutionRequest.newBuilder()
+            .setNamespace(namespace())
+            .setWorkflowExecution(execution)
+            .setSignalName(signalName)
+            .setIdentity(workflowClient.getOptions().getIdentity())
+            .setRequestId(UUID.randomUUID().toString());
+    dataConverter().toPayloads(args).ifPresent(request::setInput);
+    CompletableFuture<SignalWorkflowExecutionResponse> call =
+        GrpcFutures.toCompletableFuture(futureStub().signalWorkflowExecution(request.build()));
+    return GrpcFutures.cancelling(
+        call.<Void>thenApply(response -> null)
+            .whenComplete((v, t) -> invalidateQueries(execution.getWorkflowId())),
+        call);
+  }
+
+  /**
+   * Sends signal to workflow, starting it first when it is not running.
+   *
+   * @param workflowType
+   * @param options
+   * @param signalName
+   * @param signalArgs
+   * @param startArgs
+   * @return
+   */
+  public CompletableFuture<WorkflowExecution> signalWithStart(
+      String workflowType,
+      WorkflowOptions options,
+      String signalName,
+      Object[] signalArgs,
+      Object... startArgs) {
+    StartWorkflowExecutionRequest start = newStartRequest(workflowType, options, startArgs);
+    SignalWithStartWorkflowExecutionRequest.Builder request =
+        SignalWithStartWorkflowExecutionRequest.newBuilder()
+            .setNamespace(start.getNamespace())
+            .setWorkflowId(start.getWorkflowId())
+            .setWorkflowType(start.getWorkflowType())
+            .setTaskQueue(start.getTaskQueue())
+            .setIdentity(start.getIdentity())
+            .setRequestId(start.getRequestId())
+            .setWorkflowIdReusePolicy(start.getWorkflowIdReusePolicy())
+            .setCronSchedule(start.getCronSchedule())
+            .setSignalName(signalName);
+    if (start.hasInput()) {
+      request.setInput(start.getInput());
+    }
+    if (start.hasWorkflowExecutionTimeout()) {
+      request.setWorkflowExecutionTimeout(start.getWorkflowExecutionTimeout());
+    }
+    if (start.hasWorkflowRunTimeout()) {
+      request.setWorkflowRunTimeout(start.getWorkflowRunTimeout());
+    }
+    if (start.hasWorkflowTaskTimeout()) {
+      request.setWorkflowTaskTimeout(start.getWorkflowTaskTimeout());
+    }
+    if (start.hasRetryPolicy()) {
+      request.setRetryPolicy(start.getRetryPolicy());
+    }
+    if (start.hasMemo()) {
+      request.setMemo(start.getMemo());
+    }
+    dataConverter().toPayloads(signalArgs).ifPresent(request::setSignalInput);
+    CompletableFuture<SignalWithStartWorkflowExecutionResponse> call =
+        GrpcFutures.toCompletableFuture(
+            futureStub().signalWithStartWorkflowExecution(request.build()));
+    return GrpcFutures.cancelling(
+        call.thenApply(response -> execution(start.getWorkflowId(), response.getRunId()))
+            .whenComplete(
+                (execution, t) -> {
+                  invalidateQueries(start.getWorkflowId());
+                  if (execution != null && startDeduplicator != null) {
+                    startDeduplicator.record(workflowType, execution);
+                  }
+                }),
+        call);
+  }
+
+  /**
+   * Waits for the workflow to close with long polls of its history. Runs continued as new are
+   * followed. Cancelling returned future cancels the poll in flight and stops polling.
+   *
+   * @param <R>
+   * @param execution workflow id and optionally run id
+   * @param resultClass
+   * @return future failed with {@link WorkflowClosedException} when workflow did not complete
+   */
+  public <R> CompletableFuture<R> result(WorkflowExecution execution, Class<R> resultClass) {
+    CompletableFuture<R> result = new CompletableFuture<>();
+    AtomicReference<Future<?>> poll = new AtomicReference<>();
+    result.whenComplete(
+        (value, t) -> {
+          Future<?> inFlight = poll.get();
+          if (inFlight != null) {
+            inFlight.cancel(true);
+          }
+        });
+    pollCloseEvent(execution, ByteString.EMPTY, resultClass, result, poll);
+    return result;
+  }
+
+  private <R> void pollCloseEvent(
+      WorkflowExecution execution,
+      ByteString pageToken,
+      Class<R> resultClass,
+      CompletableFuture<R> result,
+      AtomicReference<Future<?>> poll) {
+    if (result.isDone()) {
+      return;
+    }
+    GetWorkflowExecutionHistoryRequest request =
+        GetWorkflowExecutionHistoryRequest.newBuilder()
+            .setNamespace(namespace())
+            .setExecution(execution)
+            .setWaitNewEvent(true)
+            .setHistoryEventFilterType(HistoryEventFilterType.HISTORY_EVENT_FILTER_TYPE_CLOSE_EVENT)
+            .setNextPageToken(pageToken)
+            .build();
+    CompletableFuture<GetWorkflowExecutionHistoryResponse> call =
+        GrpcFutures.toCompletableFuture(
+            futureStub()
+                .withDeadlineAfter(RESULT_POLL_SECONDS, TimeUnit.SECONDS)
+                .getWorkflowExecutionHistory(request));
+    poll.set(call);
+    if (result.isDone()) {
+      // cancelled before the poll was published
+      call.cancel(true);
+      return;
+    }
+    call.whenComplete(
+        (response, t) -> {
+          if (t != null) {
+            if (Status.fromThrowable(t).getCode() == Status.Code.DEADLINE_EXCEEDED) {
+              pollCloseEvent(execution, pageToken, resultClass, result, poll);
+            } else {
+              result.completeExceptionally(GrpcFutures.unwrap(t));
+            }
+          } else if (response.getHistory().getEventsCount() == 0) {
+            pollCloseEvent(execution, response.getNextPageToken(), resultClass, result, poll);
+          } else {
+            if (startDeduplicator != null) {
+              startDeduplicator.invalidate(execution);
+            }
+            HistoryEvent event = response.getHistory().getEvents(0);
+            if (event.getEventType() == EventType.EVENT_TYPE_WORKFLOW_EXECUTION_CONTINUED_AS_NEW) {
+              String runId =
+                  event.getWorkflowExecutionContinuedAsNewEventAttributes().getNewExecutionRunId();
+              pollCloseEvent(
+                  execution.toBuilder().setRunId(runId).build(),
+                  ByteString.EMPTY,
+                  resultClass,
+                  result,
+                  poll);
+            } else {
+              try {
+                result.complete(decodeResult(execution, event, resultClass));
+              } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+              }
+            }
+          }
+        });
+  }
+
+  private <R> R decodeResult(
+      WorkflowExecution execution, HistoryEvent event, Class<R> resultClass) {
+    String message = null;
+    switch (event.getEventType()) {
+      case EVENT_TYPE_WORKFLOW_EXECUTION_COMPLETED:
+        WorkflowExecutionCompletedEventAttributes completed =
+            event.getWorkflowExecutionCompletedEventAttributes();
+        Optional<Payloads> payloads =
+            completed.hasResult() ? Optional.of(completed.getResult()) : Optional.empty();
+        return dataConverter().fromPayloads(0, payloads, resultClass, resultClass);
+      case EVENT_TYPE_WORKFLOW_EXECUTION_FAILED:
+        message = event.getWorkflowExecutionFailedEventAttributes().getFailure().getMessage();
+        break;
+      case EVENT_TYPE_WORKFLOW_EXECUTION_TERMINATED:
+        message = event.getWorkflowExecutionTerminatedEventAttributes().getReason();
+        break;
+      default:
+        break;
+    }
+    throw new WorkflowClosedException(execution, event.getEventType(), message);
+  }
+
+  private StartWorkflowExecutionRequest newStartRequest(
+      String workflowType, WorkflowOptions options, Object... args) {
+    if (options.getSearchAttributes() != null && !options.getSearchAttributes().isEmpty()) {
+      throw new IllegalArgumentException(
+          "Search attributes are not supported by asynchronous start, use WorkflowFactory");
+    }
+    String workflowId =
+        options.getWorkflowId() == null ? UUID.randomUUID().toString() : options.getWorkflowId();
+    StartWorkflowExecutionRequest.Builder request =
+        StartWorkflowExecutionRequest.newBuilder()
+            .setNamespace(namespace())
+            .setWorkflowId(workflowId)
+            .setWorkflowType(WorkflowType.newBuilder().setName(workflowType))
+            .setTaskQueue(TaskQueue.newBuilder().setName(options.getTaskQueue()))
+            .setIdentity(workflowClient.getOptions().getIdentity())
+            .setRequestId(UUID.randomUUID().toString());
+    dataConverter().toPayloads(args).ifPresent(request::setInput);
+    if (options.getWorkflowExecutionTimeout() != null) {
+      request.setWorkflowExecutionTimeout(toProto(options.getWorkflowExecutionTimeout()));
+    }
+    if (options.getWorkflowRunTimeout() != null) {
+      request.setWorkflowRunTimeout(toProto(options.getWorkflowRunTimeout()));
+    }
+    if (options.getWorkflowTaskTimeout() != null) {
+      request.setWorkflowTaskTimeout(toProto(options.getWorkflowTaskTimeout()));
+    }
+    if (options.getWorkflowIdReusePolicy() != null) {
+      request.setWorkflowIdReusePolicy(options.getWorkflowIdReusePolicy());
+    }
+    if (options.getCronSchedule() != null) {
+      request.setCronSchedule(options.getCronSchedule());
+    }
+    if (options.getRetryOptions() != null) {
+      request.setRetryPolicy(toProto(options.getRetryOptions()));
+    }
+    if (options.getMemo() != null && !options.getMemo().isEmpty()) {
+      request.setMemo(toProto(options.getMemo()));
+    }
+    return request.build();
+  }
+
+  private RuntimeException translate(Throwable t, String workflowId, String workflowType) {
+    RuntimeException failure = GrpcFutures.unwrap(t);
+    if (failure instanceof StatusRuntimeException
+        && Status.fromThrowable(failure).getCode() == Status.Code.ALREADY_EXISTS) {
+      WorkflowExecutionAlreadyStartedFailure details =
+          StatusUtils.getFailure(
+              (StatusRuntimeException) failure, WorkflowExecutionAlreadyStartedFailure.class);
+      String runId = details == null ? "" : details.getRunId();
+      return new WorkflowExecutionAlreadyStarted(
+          execution(workflowId, runId), workflowType, failure);
+    }
+    return failure;
+  }
+
+  private void invalidateQueries(String workflowId) {
+    if (queryCache != null) {
+      queryCache.invalidate(workflowId);
+    }
+  }
+
+  private static WorkflowExecution execution(String workflowId, String runId) {
+    return WorkflowExecution.newBuilder().setWorkflowId(workflowId).setRunId(runId).build();
+  }
+
+  private static com.google.protobuf.Duration toProto(Duration duration) {
+    return com.google.protobuf.Duration.newBuilder()
+        .setSeconds(duration.getSeconds())
+        .setNanos(duration.getNano())
+        .build();
+  }
+
+  private static RetryPolicy toProto(RetryOptions retryOptions) {
+    RetryPolicy.Builder policy =
+        RetryPolicy.newBuilder()
+            .setBackoffCoefficient(retryOptions.getBackoffCoefficient())
+            .setMaximumAttempts(retryOptions.getMaximumAttempts());
+    if (retryOptions.getInitialInterval() != null) {
+      policy.setInitialInterval(toProto(retryOptions.getInitialInterval()));
+    }
+    if (retryOptions.getMaximumInterval() != null) {
+      policy.setMaximumInterval(toProto(retryOptions.getMaximumInterval()));
+    }
+    if (retryOptions.getDoNotRetry() != null) {
+      policy.addAllNonRetryableErrorTypes(Arrays.asList(retryOptions.getDoNotRetry()));
+    }
+    return policy.build();
+  }
+
+  private Memo toProto(Map<String, Object> memo) {
+    Memo.Builder result = Memo.newBuilder();
+    memo.forEach(
+        (key, value) -> dataConverter().toPayload(value).ifPresent(p -> result.putFields(key, p)));
+    return result.build();
+  }
+
+  private WorkflowServiceFutureStub futureStub() {
+    return workflowClient.getWorkflowServiceStubs().futureStub();
+  }
+
+  private String namespace() {
+    return workflowClient.getOptions().getNamespace();
+  }
+
+  private DataConverter dataConverter() {
+    return workflowClient.getOptions().getDataConverter();
+  }
+}
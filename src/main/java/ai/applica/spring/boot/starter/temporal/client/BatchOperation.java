@@ -0,0 +1,290 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.BatchOptions;
+import com.google.protobuf.ByteString;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies a signal, cancel or terminate to every execution matching a visibility query, with
+ * bounded concurrency and a rate limit so the frontend is not flooded. Executions are read page by
+ * page; when a page is done the token of the next page is saved to the checkpoint file with the
+ * counts, and a run with the same checkpoint file continues from there. Calls of a page that was
+ * not finished are made again after resuming and counted once, as executions are counted only
+ * when their page is done.
+ */
+@Slf4j
+public class BatchOperation {
+
+  public static final String BATCH_SUCCEEDED = "temporal_starter_batch_succeeded";
+  public static final String BATCH_SKIPPED = "temporal_starter_batch_skipped";
+  public static final String BATCH_FAILED = "temporal_starter_batch_failed";
+
+  private static final String QUERY = "query";
+  private static final String PAGE_TOKEN = "pageToken";
+  private static final String SUCCEEDED = "succeeded";
+  private static final String SKIPPED = "skipped";
+  private static final String FAILED = "failed";
+  private static final String PAGES = "pages";
+
+  private final WorkflowClient workflowClient;
+  private final BatchOptions options;
+  private final WorkflowExecutionListing listing;
+  private final Scope scope;
+
+  public BatchOperation(
+      WorkflowClient workflowClient, BatchOptions options, WorkflowExecutionListing listing) {
+    this.workflowClient = workflowClient;
+    this.options = options;
+    this.listing = listing;
+    this.scope = workflowClient.getWorkflowServiceStubs().getOptions().getMetricsScope();
+  }
+
+  /**
+   * Runs the action on all executions matching the query and returns when the last page is done.
+   * The checkpoint file is removed when the operation completes.
+   *
+   * @param query visibility query
+   * @param action
+   * @param checkpoint file with the position of the operation, no checkpoints when null
+   * @param listener called after every page, may be null
+   * @return counts of the finished operation
+   * @throws IllegalArgumentException when the checkpoint was saved for another query
+   * @throws IllegalStateException when the calling thread was interrupted, the operation can be
+   *     resumed from the checkpoint
+   */
+  public BatchProgress run(
+      String query, BatchAction action, Path checkpoint, Consumer<BatchProgress> listener) {
+    Properties saved = checkpoint == null ? new Properties() : load(checkpoint, query);
+    ByteString pageToken =
+        ByteString.copyFrom(Base64.getDecoder().decode(saved.getProperty(PAGE_TOKEN, "")));
+    long succeeded = Long.parseLong(saved.getProperty(SUCCEEDED, "0"));
+    long skipped = Long.parseLong(saved.getProperty(SKIPPED, "0"));
+    long failed = Long.parseLong(saved.getProperty(FAILED, "0"));
+    int pageCount = Integer.parseInt(saved.getProperty(PAGES, "0"));
+    TokenBucket rate =
+        options.getRatePerSecond() == null
+            ? null
+            : new TokenBucket(
+                options.getRatePerSecond(), (int) Math.ceil(options.getRatePerSecond()));
+    Semaphore window = new Semaphore(options.getConcurrency());
+    AtomicInteger threads = new AtomicInteger();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            options.getConcurrency(),
+            r -> {
+              Thread thread = new Thread(r, "temporal-batch-" + threads.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    long start = System.nanoTime();
+    BatchProgress progress = null;
+    try (Stream<ListWorkflowExecutionsResponse> pages = listing.pages(query, pageToken)) {
+      Iterator<ListWorkflowExecutionsResponse> iterator = pages.iterator();
+      while (iterator.hasNext()) {
+        ListWorkflowExecutionsResponse page = iterator.next();
+        // added to the totals only when the page is done, a page made again is counted once
+        AtomicLong pageSucceeded = new AtomicLong();
+        AtomicLong pageSkipped = new AtomicLong();
+        AtomicLong pageFailed = new AtomicLong();
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (WorkflowExecutionInfo info : page.getExecutionsList()) {
+          acquire(rate);
+          acquire(window);
+          calls.add(
+              CompletableFuture.runAsync(
+                  () -> {
+                    try {
+                      apply(
+                          action, info.getExecution(), pageSucceeded, pageSkipped, pageFailed);
+                    } finally {
+                      window.release();
+                    }
+                  },
+                  executor));
+        }
+        await(calls);
+        succeeded += pageSucceeded.get();
+        skipped += pageSkipped.get();
+        failed += pageFailed.get();
+        pageCount++;
+        boolean done = page.getNextPageToken().isEmpty();
+        progress =
+            new BatchProgress(
+                succeeded,
+                skipped,
+                failed,
+                pageCount,
+                Duration.ofNanos(System.nanoTime() - start),
+                done);
+        if (checkpoint != null) {
+          if (done) {
+            delete(checkpoint);
+          } else {
+            save(checkpoint, query, page.getNextPageToken(), progress);
+          }
+        }
+        log.info("Batch operation on '{}': {}", query, progress);
+        if (listener != null) {
+          listener.accept(progress);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return progress;
+  }
+
+  private void apply(
+      BatchAction action,
+      WorkflowExecution execution,
+      AtomicLong succeeded,
+      AtomicLong skipped,
+      AtomicLong failed) {
+    try {
+      action.apply(
+          workflowClient.newUntypedWorkflowStub(
+              execution.getWorkflowId(), Optional.of(execution.getRunId()), Optional.empty()));
+      succeeded.incrementAndGet();
+      scope.counter(BATCH_SUCCEEDED).inc(1);
+    } catch (WorkflowNotFoundException e) {
+      skipped.incrementAndGet();
+      scope.counter(BATCH_SKIPPED).inc(1);
+    } catch (RuntimeException e) {
+      failed.incrementAndGet();
+      scope.counter(BATCH_FAILED).inc(1);
+      log.warn("Batch operation failed for workflow {}", execution.getWorkflowId(), e);
+    }
+  }
+
+  private static void acquire(TokenBucket rate) {
+    if (rate == null) {
+      return;
+    }
+    try {
+      while (!rate.tryAcquire(1, TimeUnit.SECONDS)) {
+        // rate below one per second, keep waiting
+      }
+    } catch (InterruptedException e) {
+      throw interrupted(e);
+    }
+  }
+
+  private static void acquire(Semaphore window) {
+    try {
+      window.acquire();
+    } catch (InterruptedException e) {
+      throw interrupted(e);
+    }
+  }
+
+  private static void await(List<CompletableFuture<Void>> calls) {
+    try {
+      CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).get();
+    } catch (InterruptedException e) {
+      throw interrupted(e);
+    } catch (ExecutionException e) {
+      throw new CompletionException(e.getCause());
+    }
+  }
+
+  private static IllegalStateException interrupted(InterruptedException e) {
+    Thread.currentThread().interrupt();
+    return new IllegalStateException("Batch operation interrupted", e);
+  }
+
+  private static Properties load(Path checkpoint, String query) {
+    Properties saved = new Properties();
+    if (!Files.exists(checkpoint)) {
+      return saved;
+    }
+    try (InputStream in = Files.newInputStream(checkpoint)) {
+      saved.load(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read batch checkpoint " + checkpoint, e);
+    }
+    if (!query.equals(saved.getProperty(QUERY))) {
+      throw new IllegalArgumentException(
+          "Batch checkpoint " + checkpoint + " was saved for query: " + saved.getProperty(QUERY));
+    }
+    log.info("Resuming batch operation on '{}' from {}", query, checkpoint);
+    return saved;
+  }
+
+  /** Writes a new file and moves it over the previous one, so a crash leaves either of them. */
+  private static void save(
+      Path checkpoint, String query, ByteString pageToken, BatchProgress progress) {
+    Properties saved = new Properties();
+    saved.setProperty(QUERY, query);
+    saved.setProperty(PAGE_TOKEN, Base64.getEncoder().encodeToString(pageToken.toByteArray()));
+    saved.setProperty(SUCCEEDED, String.valueOf(progress.getSucceeded()));
+    saved.setProperty(SKIPPED, String.valueOf(progress.getSkipped()));
+    saved.setProperty(FAILED, String.valueOf(progress.getFailed()));
+    saved.setProperty(PAGES, String.valueOf(progress.getPages()));
+    Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        saved.store(out, "Temporal batch operation checkpoint");
+      }
+      Files.move(
+          temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write batch checkpoint " + checkpoint, e);
+    }
+  }
+
+  private static void delete(Path checkpoint) {
+    try {
+      Files.deleteIfExists(checkpoint);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot delete batch checkpoint " + checkpoint, e);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Counts of a batch operation after a page of executions. Counts and pages include those done
+ * before the operation was resumed from a checkpoint, elapsed time is of this run only.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BatchProgress {
+  private final long succeeded;
+  /** Executions that were already closed or gone. */
+  private final long skipped;
+
+  private final long failed;
+  private final int pages;
+  private final Duration elapsed;
+  private final boolean done;
+
+  public long getTotal() {
+    return succeeded + skipped + failed;
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import io.temporal.api.common.v1.WorkflowExecution;
+
+/** Told about each item of {@link BulkStarter} on the thread that started it, once it is done. */
+@FunctionalInterface
+public interface BulkStartListener {
+
+  /**
+   * @param item
+   * @param execution started execution or the running one of a workflow id already started, null
+   *     when the start failed
+   * @param failure null unless the start failed
+   */
+  void onStart(BulkStartItem item, WorkflowExecution execution, RuntimeException failure);
+}
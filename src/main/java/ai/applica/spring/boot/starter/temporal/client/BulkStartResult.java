@@ -0,0 +1,53 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Summary of a batch completed when all of its starts are done. Results of single items go to a
+ * {@link BulkStartListener}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BulkStartResult {
+
+  private final CompletableFuture<Summary> summary;
+
+  /** Counts of a finished batch. */
+  @Getter
+  @RequiredArgsConstructor
+  public static class Summary {
+    private final int started;
+    private final int alreadyStarted;
+    private final int failed;
+    private final Duration elapsed;
+
+    public int getTotal() {
+      return started + alreadyStarted + failed;
+    }
+
+    public double getStartsPerSecond() {
+      long nanos = Math.max(1, elapsed.toNanos());
+      return getTotal() * 1_000_000_000d / nanos;
+    }
+  }
+}
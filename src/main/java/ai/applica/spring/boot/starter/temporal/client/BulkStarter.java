@@ -0,0 +1,145 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.client.WorkflowOptions;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Starts many workflows of one type with a window of starts in flight. Options are built once and
+ * only workflow id is set per item. Start call of the SDK is blocking, so the window is a pool of
+ * threads, each with one start in flight; reading of items waits while the window is full. Results
+ * are counted as starts complete and nothing is kept per item, so memory does not grow with the
+ * number of items.
+ */
+@RequiredArgsConstructor
+public class BulkStarter {
+
+  private final WorkflowClient workflowClient;
+  private final int parallelism;
+
+  /**
+   * Starts workflow for each item. Returns when all items were handed over to the window, the
+   * summary completes when the last start is done.
+   *
+   * @param workflowType
+   * @param options options without workflow id
+   * @param items
+   * @return
+   */
+  public BulkStartResult startAll(
+      String workflowType, WorkflowOptions options, Stream<BulkStartItem> items) {
+    return startAll(workflowType, options, items, null);
+  }
+
+  /**
+   * Starts workflow for each item and tells the listener about each of them.
+   *
+   * @param workflowType
+   * @param options options without workflow id
+   * @param items
+   * @param listener called when the start of an item is done, may be null
+   * @return
+   */
+  public BulkStartResult startAll(
+      String workflowType,
+      WorkflowOptions options,
+      Stream<BulkStartItem> items,
+      BulkStartListener listener) {
+    long start = System.nanoTime();
+    AtomicInteger started = new AtomicInteger();
+    AtomicInteger alreadyStarted = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    CompletableFuture<BulkStartResult.Summary> summary = new CompletableFuture<>();
+    // one for every start not done yet and one released when all items were handed over
+    AtomicInteger pending = new AtomicInteger(1);
+    Runnable done =
+        () -> {
+          if (pending.decrementAndGet() == 0) {
+            summary.complete(
+                new BulkStartResult.Summary(
+                    started.get(),
+                    alreadyStarted.get(),
+                    failed.get(),
+                    Duration.ofNanos(System.nanoTime() - start)));
+          }
+        };
+    Semaphore window = new Semaphore(parallelism);
+    AtomicInteger threads = new AtomicInteger();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            parallelism,
+            r -> {
+              Thread thread = new Thread(r, "temporal-bulk-start-" + threads.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      items.forEach(
+          item -> {
+            window.acquireUninterruptibly();
+            pending.incrementAndGet();
+            executor.execute(
+                () -> {
+                  WorkflowExecution execution = null;
+                  RuntimeException failure = null;
+                  try {
+                    execution = start(workflowType, options, item);
+                    started.incrementAndGet();
+                  } catch (WorkflowExecutionAlreadyStarted e) {
+                    execution = e.getExecution();
+                    alreadyStarted.incrementAndGet();
+                  } catch (RuntimeException e) {
+                    failure = e;
+                    failed.incrementAndGet();
+                  } finally {
+                    window.release();
+                  }
+                  try {
+                    if (listener != null) {
+                      listener.onStart(item, execution, failure);
+                    }
+                  } finally {
+                    done.run();
+                  }
+                });
+          });
+    } finally {
+      executor.shutdown();
+    }
+    done.run();
+    return new BulkStartResult(summary);
+  }
+
+  private WorkflowExecution start(
+      String workflowType, WorkflowOptions options, BulkStartItem item) {
+    WorkflowOptions itemOptions =
+        WorkflowOptions.newBuilder(options).setWorkflowId(item.getWorkflowId()).build();
+    return workflowClient.newUntypedWorkflowStub(workflowType, itemOptions).start(item.getArgs());
+  }
+}
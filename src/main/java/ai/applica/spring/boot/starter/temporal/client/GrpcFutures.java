@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+
+/** Bridges futures of gRPC future stubs to {@link CompletableFuture}. */
+final class GrpcFutures {
+
+  private GrpcFutures() {}
+
+  /**
+   * Completes returned future with the outcome of the call. Cancelling returned future cancels the
+   * call.
+   */
+  static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> call) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Futures.addCallback(
+        call,
+        new FutureCallback<T>() {
+          @Override
+          public void onSuccess(T value) {
+            result.complete(value);
+          }
+
+          @Override
+          public void onFailure(Throwable t) {
+            result.completeExceptionally(t);
+          }
+        },
+        MoreExecutors.directExecutor());
+    result.whenComplete(
+        (value, t) -> {
+          if (result.isCancelled()) {
+            call.cancel(true);
+          }
+        });
+    return result;
+  }
+
+  /**
+   * Makes cancelling a stage derived from the future of a call cancel the call as well, the
+   * derived stage alone would not propagate cancellation upstream.
+   *
+   * @param <T>
+   * @param stage
+   * @param call
+   * @return the stage
+   */
+  static <T> CompletableFuture<T> cancelling(CompletableFuture<T> stage, Future<?> call) {
+    stage.whenComplete(
+        (value, t) -> {
+          if (stage.isCancelled()) {
+            call.cancel(true);
+          }
+        });
+    return stage;
+  }
+
+  /** Waits for the future and rethrows its failure unwrapped. */
+  static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw unwrap(e);
+    }
+  }
+
+  static RuntimeException unwrap(Throwable t) {
+    Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    return cause instanceof RuntimeException
+        ? (RuntimeException) cause
+        : new CompletionException(cause);
+  }
+}
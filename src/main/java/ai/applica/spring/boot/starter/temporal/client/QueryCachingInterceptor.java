@@ -0,0 +1,114 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import io.temporal.client.WorkflowClient;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowClientInterceptor;
+import io.temporal.common.interceptors.WorkflowClientInterceptorBase;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Answers queries of workflow stubs from {@link QueryResultCache} and drops cached results of a
+ * workflow after it is signalled, cancelled or terminated. Results are cached decoded, as {@link
+ * WorkflowQueries} caches them, so both answer from the same entries.
+ */
+@RequiredArgsConstructor
+public class QueryCachingInterceptor extends WorkflowClientInterceptorBase {
+
+  @Getter private final QueryResultCache cache;
+
+  /** Cache of the client or null when the client does not cache query results. */
+  public static QueryResultCache findCache(WorkflowClient workflowClient) {
+    WorkflowClientInterceptor[] interceptors = workflowClient.getOptions().getInterceptors();
+    if (interceptors != null) {
+      for (WorkflowClientInterceptor interceptor : interceptors) {
+        if (interceptor instanceof QueryCachingInterceptor) {
+          return ((QueryCachingInterceptor) interceptor).getCache();
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public WorkflowClientCallsInterceptor workflowClientCallsInterceptor(
+      WorkflowClientCallsInterceptor next) {
+    return new WorkflowClientCallsInterceptorBase(next) {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <R> QueryOutput<R> query(QueryInput<R> input) {
+        QueryResultCache.Key key =
+            QueryResultCache.key(
+                input.getWorkflowExecution(),
+                input.getQueryType(),
+                input.getResultClass(),
+                input.getArguments());
+        // decoded results are cached, the same entries answer WorkflowQueries
+        Object cached = cache.lookup(key);
+        if (cached != null) {
+          return new QueryOutput<>(null, (R) QueryResultCache.unmask(cached));
+        }
+        Object generation = cache.generation(key);
+        QueryOutput<R> output = super.query(input);
+        if (!output.isQueryRejected()) {
+          cache.put(key, output.getResult(), generation);
+        }
+        return output;
+      }
+
+      @Override
+      public WorkflowSignalOutput signal(WorkflowSignalInput input) {
+        try {
+          return super.signal(input);
+        } finally {
+          cache.invalidate(input.getWorkflowExecution().getWorkflowId());
+        }
+      }
+
+      @Override
+      public WorkflowSignalWithStartOutput signalWithStart(WorkflowSignalWithStartInput input) {
+        try {
+          return super.signalWithStart(input);
+        } finally {
+          cache.invalidate(input.getWorkflowStartInput().getWorkflowId());
+        }
+      }
+
+      @Override
+      public CancelOutput cancel(CancelInput input) {
+        try {
+          return super.cancel(input);
+        } finally {
+          cache.invalidate(input.getWorkflowExecution().getWorkflowId());
+        }
+      }
+
+      @Override
+      public TerminateOutput terminate(TerminateInput input) {
+        try {
+          return super.terminate(input);
+        } finally {
+          cache.invalidate(input.getWorkflowExecution().getWorkflowId());
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.QueryOptions;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sends the same query to many workflows with asynchronous calls and streams answers in order of
+ * arrival. Queries in flight and answers not yet taken from the stream together never exceed the
+ * concurrency, the next query is sent when an answer is taken, so a slow reader holds memory
+ * bounded. Failures, also deadlines of single queries, are answers of their workflows and do not
+ * end the stream.
+ */
+public class QueryFanOut {
+
+  public static final String FAN_OUT_ITEMS = "temporal_starter_query_fan_out_items";
+  public static final String FAN_OUT_FAILED = "temporal_starter_query_fan_out_failed";
+  public static final String FAN_OUT_THROUGHPUT = "temporal_starter_query_fan_out_throughput";
+  public static final String FAN_OUT_LATENCY = "temporal_starter_query_fan_out_latency";
+
+  private final WorkflowQueries workflowQueries;
+  private final Scope scope;
+
+  public QueryFanOut(WorkflowQueries workflowQueries, Scope scope) {
+    this.workflowQueries = workflowQueries;
+    this.scope = scope;
+  }
+
+  /**
+   * Queries workflows lazily, first queries are sent on the first read of the stream.
+   *
+   * @param <R>
+   * @param workflowIds
+   * @param queryType
+   * @param resultClass
+   * @param options deadline of every single query and hedging, defaults when null
+   * @param concurrency queries in flight and answers not taken, positive
+   * @param args
+   * @return stream with answer of every workflow, closing it stops sending queries
+   * @throws IllegalArgumentException when concurrency is not positive
+   */
+  public <R> Stream<QueryFanOutResult<R>> queryAll(
+      Collection<String> workflowIds,
+      String queryType,
+      Class<R> resultClass,
+      QueryOptions options,
+      int concurrency,
+      Object... args) {
+    if (concurrency <= 0) {
+      throw new IllegalArgumentException("Concurrency has to be positive: " + concurrency);
+    }
+    Answers<R> answers =
+        new Answers<>(
+            workflowIds.iterator(),
+            workflowIds.size(),
+            queryType,
+            resultClass,
+            options,
+            concurrency,
+            args);
+    return StreamSupport.stream(
+            Spliterators.spliterator(
+                answers, workflowIds.size(), Spliterator.NONNULL | Spliterator.SIZED),
+            false)
+        .onClose(answers::close);
+  }
+
+  private class Answers<R> implements Iterator<QueryFanOutResult<R>> {
+
+    private final Iterator<String> workflowIds;
+    private final int total;
+    private final String queryType;
+    private final Class<R> resultClass;
+    private final QueryOptions options;
+    private final int concurrency;
+    private final Object[] args;
+    private final BlockingQueue<QueryFanOutResult<R>> arrived = new LinkedBlockingQueue<>();
+    private long start;
+    private int taken;
+    private boolean started;
+    private volatile boolean closed;
+
+    Answers(
+        Iterator<String> workflowIds,
+        int total,
+        String queryType,
+        Class<R> resultClass,
+        QueryOptions options,
+        int concurrency,
+        Object[] args) {
+      this.workflowIds = workflowIds;
+      this.total = total;
+      this.queryType = queryType;
+      this.resultClass = resultClass;
+      this.options = options;
+      this.concurrency = concurrency;
+      this.args = args;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return taken < total && !closed;
+    }
+
+    @Override
+    public QueryFanOutResult<R> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (!started) {
+        started = true;
+        start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+          sendNext();
+        }
+      }
+      QueryFanOutResult<R> answer;
+      try {
+        answer = arrived.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for query answers", e);
+      }
+      taken++;
+      if (taken == total) {
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        scope.gauge(FAN_OUT_THROUGHPUT).update(total * 1_000_000_000d / elapsed);
+      }
+      sendNext();
+      return answer;
+    }
+
+    private void sendNext() {
+      if (closed || !workflowIds.hasNext()) {
+        return;
+      }
+      String workflowId = workflowIds.next();
+      long sent = System.nanoTime();
+      CompletableFuture<R> answer;
+      try {
+        answer =
+            workflowQueries.queryAsync(
+                WorkflowExecution.newBuilder().setWorkflowId(workflowId).build(),
+                queryType,
+                resultClass,
+                options,
+                args);
+      } catch (RuntimeException e) {
+        // e.g. arguments that cannot be serialized, an answer of this workflow as well
+        answer = new CompletableFuture<>();
+        answer.completeExceptionally(e);
+      }
+      answer.whenComplete(
+          (result, t) -> {
+            scope
+                .timer(FAN_OUT_LATENCY)
+                .record(com.uber.m3.util.Duration.ofNanos(System.nanoTime() - sent));
+            scope.counter(FAN_OUT_ITEMS).inc(1);
+            if (t != null) {
+              scope.counter(FAN_OUT_FAILED).inc(1);
+            }
+            arrived.add(
+                new QueryFanOutResult<>(
+                    workflowId, result, t == null ? null : GrpcFutures.unwrap(t)));
+          });
+    }
+
+    void close() {
+      closed = true;
+    }
+  }
+}
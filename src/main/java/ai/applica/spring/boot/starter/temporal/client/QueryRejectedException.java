@@ -0,0 +1,31 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+/** Thrown when the server rejects a query because of the workflow state. */
+public class QueryRejectedException extends RuntimeException {
+  public QueryRejectedException(String workflowId, String queryType, String workflowStatus) {
+    super(
+        "Query "
+            + queryType
+            + " rejected for workflow "
+            + workflowId
+            + " in status "
+            + workflowStatus);
+  }
+}
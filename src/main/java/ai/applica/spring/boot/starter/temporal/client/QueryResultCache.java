@@ -0,0 +1,187 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.QueryCacheOptions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Decoded query results keyed by workflow id, run id, query type, result class and arguments, kept
+ * for TTL in a cache bounded by size. All entries of a workflow are dropped on {@link #invalidate}.
+ * Keys of a workflow are also the generation of its entries: a result of a query that was in flight
+ * while the workflow was invalidated is not stored.
+ */
+public class QueryResultCache {
+
+  public static final String QUERY_CACHE_HIT = "temporal_starter_query_cache_hit";
+  public static final String QUERY_CACHE_MISS = "temporal_starter_query_cache_miss";
+  public static final String QUERY_CACHE_EVICTION = "temporal_starter_query_cache_eviction";
+
+  /** Stands for null results, the cache does not hold nulls. */
+  private static final Object NULL = new Object();
+
+  private final Cache<Key, Object> cache;
+  private final ConcurrentMap<String, Set<Key>> keysByWorkflow = new ConcurrentHashMap<>();
+  private final Scope scope;
+
+  public QueryResultCache(QueryCacheOptions options, Scope scope) {
+    this.scope = scope;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(options.getMaxSize())
+            .expireAfterWrite(options.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+            .removalListener(this::onRemoval)
+            .build();
+  }
+
+  /**
+   * Returns cached result or runs the query and caches its result.
+   *
+   * @param <R>
+   * @param key
+   * @param query
+   * @param cacheable tells whether the result may be cached, e.g. it is not a rejection
+   * @return
+   */
+  @SuppressWarnings("unchecked")
+  public <R> R get(Key key, Supplier<R> query, Predicate<R> cacheable) {
+    Object cached = lookup(key);
+    if (cached != null) {
+      return (R) unmask(cached);
+    }
+    Object generation = generation(key);
+    R result = query.get();
+    if (cacheable.test(result)) {
+      put(key, result, generation);
+    }
+    return result;
+  }
+
+  /** Cached result masked with {@link #unmask} or null, counts hit or miss. */
+  Object lookup(Key key) {
+    Object cached = cache.getIfPresent(key);
+    scope.counter(cached == null ? QUERY_CACHE_MISS : QUERY_CACHE_HIT).inc(1);
+    return cached;
+  }
+
+  /** Taken before the query is sent and passed to {@link #put}. */
+  Object generation(Key key) {
+    return keysByWorkflow.computeIfAbsent(key.workflowId, id -> ConcurrentHashMap.newKeySet());
+  }
+
+  void put(Key key, Object result, Object generation) {
+    Set<Key> keys = keysByWorkflow.get(key.workflowId);
+    if (keys != generation) {
+      return;
+    }
+    synchronized (keys) {
+      if (keysByWorkflow.get(key.workflowId) == keys) {
+        keys.add(key);
+        cache.put(key, result == null ? NULL : result);
+      }
+    }
+  }
+
+  static Object unmask(Object cached) {
+    return cached == NULL ? null : cached;
+  }
+
+  /** Drops all results of the workflow, of all runs. */
+  public void invalidate(String workflowId) {
+    Set<Key> keys = keysByWorkflow.remove(workflowId);
+    if (keys != null) {
+      synchronized (keys) {
+        cache.invalidateAll(keys);
+      }
+    }
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  private void onRemoval(RemovalNotification<Key, Object> notification) {
+    // keys of invalidated workflows are already dropped
+    if (notification.getCause() == RemovalCause.REPLACED
+        || notification.getCause() == RemovalCause.EXPLICIT) {
+      return;
+    }
+    if (notification.getCause() == RemovalCause.SIZE) {
+      scope.counter(QUERY_CACHE_EVICTION).inc(1);
+    }
+    Key key = notification.getKey();
+    keysByWorkflow.computeIfPresent(
+        key.workflowId,
+        (id, keys) -> {
+          // notifications may come late, after the key was cached again
+          if (!cache.asMap().containsKey(key)) {
+            keys.remove(key);
+          }
+          return keys.isEmpty() ? null : keys;
+        });
+  }
+
+  public static Key key(
+      WorkflowExecution execution, String queryType, Class<?> resultClass, Object[] args) {
+    return new Key(
+        execution.getWorkflowId(),
+        execution.getRunId(),
+        queryType,
+        resultClass,
+        // stubs pass no arguments as null, WorkflowFactory as an empty array
+        args == null ? Collections.emptyList() : Arrays.asList(args));
+  }
+
+  /** Identifies a query result. */
+  @EqualsAndHashCode
+  public static final class Key {
+    private final String workflowId;
+    private final String runId;
+    private final String queryType;
+    private final Class<?> resultClass;
+    private final List<Object> args;
+
+    private Key(
+        String workflowId,
+        String runId,
+        String queryType,
+        Class<?> resultClass,
+        List<Object> args) {
+      this.workflowId = workflowId;
+      this.runId = runId;
+      this.queryType = queryType;
+      this.resultClass = resultClass;
+      this.args = args;
+    }
+  }
+}
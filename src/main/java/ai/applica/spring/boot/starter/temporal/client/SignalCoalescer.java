@@ -0,0 +1,185 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.SignalCoalescingOptions;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.client.WorkflowClient;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers items sent to the same workflow and delivers them as one signal, whose only argument is
+ * the list of items, e.g.
+ *
+ * <pre>
+ * &#64;SignalMethod
+ * void waitForNames(List&lt;String&gt; names);
+ * </pre>
+ *
+ * A batch is delivered after flush interval from its first item or at once when it reaches max
+ * batch size. Batches of one workflow are delivered in order, one at a time.
+ */
+public class SignalCoalescer implements AutoCloseable {
+
+  public static final String SIGNAL_BATCHES = "temporal_starter_signal_batches";
+  public static final String SIGNAL_ITEMS = "temporal_starter_signal_items";
+  public static final String SIGNAL_FAILED = "temporal_starter_signal_failed";
+  public static final String SIGNAL_DELIVERY_LATENCY = "temporal_starter_signal_delivery_latency";
+
+  private final AsyncWorkflowCalls calls;
+  private final String signalName;
+  private final SignalCoalescingOptions options;
+  private final Scope scope;
+  private final Map<String, Batch> batches = new HashMap<>();
+  private final Map<String, CompletableFuture<Void>> deliveries = new HashMap<>();
+
+  public SignalCoalescer(
+      WorkflowClient workflowClient, String signalName, SignalCoalescingOptions options) {
+    this.calls = new AsyncWorkflowCalls(workflowClient);
+    this.signalName = signalName;
+    this.options = options;
+    this.scope = workflowClient.getWorkflowServiceStubs().getOptions().getMetricsScope();
+  }
+
+  /**
+   * Adds item to the batch of the workflow.
+   *
+   * @param workflowId
+   * @param item
+   * @return future completed when the batch with the item is delivered
+   */
+  public CompletableFuture<Void> send(String workflowId, Object item) {
+    synchronized (this) {
+      Batch batch = batches.get(workflowId);
+      if (batch == null) {
+        Batch created = new Batch();
+        created.timer =
+            FlushScheduler.INSTANCE.schedule(
+                () -> flushExpired(workflowId, created),
+                options.getFlushInterval().toNanos(),
+                TimeUnit.NANOSECONDS);
+        batches.put(workflowId, created);
+        batch = created;
+      }
+      batch.items.add(item);
+      if (batch.items.size() >= options.getMaxBatchSize()) {
+        batches.remove(workflowId);
+        batch.timer.cancel(false);
+        deliver(workflowId, batch);
+      }
+      return batch.delivered;
+    }
+  }
+
+  /** Delivers batch of the workflow without waiting for flush interval. */
+  public synchronized void flush(String workflowId) {
+    Batch batch = batches.remove(workflowId);
+    if (batch != null) {
+      batch.timer.cancel(false);
+      deliver(workflowId, batch);
+    }
+  }
+
+  /**
+   * Delivers the batch the timer was scheduled for, unless it was already delivered and a newer
+   * batch of the workflow took its place, the timer may fire while waiting for the lock.
+   */
+  private synchronized void flushExpired(String workflowId, Batch batch) {
+    if (batches.remove(workflowId, batch)) {
+      deliver(workflowId, batch);
+    }
+  }
+
+  /** Delivers all batches without waiting for flush interval. */
+  public synchronized CompletableFuture<Void> flush() {
+    List<CompletableFuture<Void>> delivered = new ArrayList<>();
+    for (String workflowId : new ArrayList<>(batches.keySet())) {
+      delivered.add(batches.get(workflowId).delivered);
+      flush(workflowId);
+    }
+    return CompletableFuture.allOf(delivered.toArray(new CompletableFuture<?>[0]));
+  }
+
+  /** Delivers pending batches and waits for their delivery. */
+  @Override
+  public void close() {
+    flush().exceptionally(t -> null).join();
+  }
+
+  /** Chains delivery after the previous one of the same workflow to keep signals in order. */
+  private void deliver(String workflowId, Batch batch) {
+    WorkflowExecution execution = WorkflowExecution.newBuilder().setWorkflowId(workflowId).build();
+    CompletableFuture<Void> previous = deliveries.get(workflowId);
+    CompletableFuture<Void> delivery =
+        previous == null
+            ? signal(execution, batch)
+            : previous.handle((v, t) -> null).thenCompose(v -> signal(execution, batch));
+    deliveries.put(workflowId, delivery);
+    delivery.whenComplete(
+        (v, t) -> {
+          synchronized (this) {
+            deliveries.remove(workflowId, delivery);
+          }
+          if (t == null) {
+            batch.delivered.complete(null);
+          } else {
+            scope.counter(SIGNAL_FAILED).inc(1);
+            batch.delivered.completeExceptionally(GrpcFutures.unwrap(t));
+          }
+        });
+  }
+
+  private CompletableFuture<Void> signal(WorkflowExecution execution, Batch batch) {
+    scope.counter(SIGNAL_BATCHES).inc(1);
+    scope.counter(SIGNAL_ITEMS).inc(batch.items.size());
+    return calls
+        .signal(execution, signalName, batch.items)
+        .whenComplete(
+            (v, t) ->
+                scope
+                    .timer(SIGNAL_DELIVERY_LATENCY)
+                    .record(com.uber.m3.util.Duration.ofNanos(System.nanoTime() - batch.created)));
+  }
+
+  private static final class Batch {
+    final long created = System.nanoTime();
+    final List<Object> items = new ArrayList<>();
+    final CompletableFuture<Void> delivered = new CompletableFuture<>();
+    ScheduledFuture<?> timer;
+  }
+
+  /** Only fires flush timers, deliveries are asynchronous. */
+  private static final class FlushScheduler {
+    static final ScheduledExecutorService INSTANCE =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "temporal-signal-flush");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowException;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowClientInterceptor;
+import io.temporal.common.interceptors.WorkflowClientInterceptorBase;
+import java.util.concurrent.TimeoutException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Answers starts of workflow ids and types recorded in {@link StartDeduplicator} with the recorded
+ * execution and records successful starts, also the run a signal-with-start signalled or started.
+ * Cancel, terminate and waiting for the result until the workflow closes forget the execution.
+ */
+@RequiredArgsConstructor
+public class StartDeduplicatingInterceptor extends WorkflowClientInterceptorBase {
+
+  @Getter private final StartDeduplicator deduplicator;
+
+  /** Deduplicator of the client or null when the client does not deduplicate starts. */
+  public static StartDeduplicator findDeduplicator(WorkflowClient workflowClient) {
+    WorkflowClientInterceptor[] interceptors = workflowClient.getOptions().getInterceptors();
+    if (interceptors != null) {
+      for (WorkflowClientInterceptor interceptor : interceptors) {
+        if (interceptor instanceof StartDeduplicatingInterceptor) {
+          return ((StartDeduplicatingInterceptor) interceptor).getDeduplicator();
+        }
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public WorkflowClientCallsInterceptor workflowClientCallsInterceptor(
+      WorkflowClientCallsInterceptor next) {
+    return new WorkflowClientCallsInterceptorBase(next) {
+      @Override
+      public WorkflowStartOutput start(WorkflowStartInput input) {
+        WorkflowExecution recorded =
+            deduplicator.lookup(
+                input.getWorkflowType(),
+                input.getWorkflowId(),
+                input.getOptions().getWorkflowIdReusePolicy());
+        if (recorded != null) {
+          return new WorkflowStartOutput(recorded);
+        }
+        WorkflowStartOutput output = super.start(input);
+        deduplicator.record(input.getWorkflowType(), output.getWorkflowExecution());
+        return output;
+      }
+
+      @Override
+      public WorkflowSignalWithStartOutput signalWithStart(WorkflowSignalWithStartInput input) {
+        WorkflowSignalWithStartOutput output = super.signalWithStart(input);
+        deduplicator.record(
+            input.getWorkflowStartInput().getWorkflowType(),
+            output.getWorkflowStartOutput().getWorkflowExecution());
+        return output;
+      }
+
+      @Override
+      public <R> GetResultOutput<R> getResult(GetResultInput<R> input) throws TimeoutException {
+        boolean closed = false;
+        try {
+          GetResultOutput<R> output = super.getResult(input);
+          closed = true;
+          return output;
+        } catch (WorkflowException e) {
+          closed = true;
+          throw e;
+        } finally {
+          if (closed) {
+            deduplicator.invalidate(input.getWorkflowExecution());
+          }
+        }
+      }
+
+      @Override
+      public <R> GetResultAsyncOutput<R> getResultAsync(GetResultInput<R> input) {
+        GetResultAsyncOutput<R> output = super.getResultAsync(input);
+        output
+            .getResult()
+            .whenComplete(
+                (result, t) -> {
+                  if (t == null || GrpcFutures.unwrap(t) instanceof WorkflowException) {
+                    deduplicator.invalidate(input.getWorkflowExecution());
+                  }
+                });
+        return output;
+      }
+
+      @Override
+      public CancelOutput cancel(CancelInput input) {
+        try {
+          return super.cancel(input);
+        } finally {
+          deduplicator.invalidate(input.getWorkflowExecution().getWorkflowId());
+        }
+      }
+
+      @Override
+      public TerminateOutput terminate(TerminateInput input) {
+        try {
+          return super.terminate(input);
+        } finally {
+          deduplicator.invalidate(input.getWorkflowExecution().getWorkflowId());
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.StartDedupOptions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.WorkflowIdReusePolicy;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Workflow ids started through a client mapped to their executions and workflow types for TTL, in
+ * a cache bounded by size. Repeated start of a recorded id and type, e.g. a retry of a request, is
+ * answered from the record. Starts with reuse policy {@code ALLOW_DUPLICATE} or {@code
+ * TERMINATE_IF_RUNNING} ask for a new run and are never answered. Records are dropped when the
+ * client sees the execution close, a workflow that closes unobserved stays recorded until TTL.
+ */
+public class StartDeduplicator {
+
+  public static final String START_DEDUP_HIT = "temporal_starter_start_dedup_hit";
+
+  // keyed by workflow id alone as the server allows one open run per id whatever its type
+  private final Cache<String, Started> started;
+  private final Scope scope;
+
+  public StartDeduplicator(StartDedupOptions options, Scope scope) {
+    this.scope = scope;
+    this.started =
+        CacheBuilder.newBuilder()
+            .maximumSize(options.getMaxSize())
+            .expireAfterWrite(options.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+            .build();
+  }
+
+  /**
+   * Recorded execution of the workflow id and type or null, also when the reuse policy asks for a
+   * new run.
+   *
+   * @param reusePolicy policy of the start, null when not set
+   */
+  public WorkflowExecution lookup(
+      String workflowType, String workflowId, WorkflowIdReusePolicy reusePolicy) {
+    if (reusePolicy == WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_ALLOW_DUPLICATE
+        || reusePolicy == WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_TERMINATE_IF_RUNNING) {
+      return null;
+    }
+    Started recorded = started.getIfPresent(workflowId);
+    if (recorded == null || !recorded.workflowType.equals(workflowType)) {
+      return null;
+    }
+    scope.counter(START_DEDUP_HIT).inc(1);
+    return recorded.execution;
+  }
+
+  public void record(String workflowType, WorkflowExecution execution) {
+    started.put(execution.getWorkflowId(), new Started(workflowType, execution));
+  }
+
+  /** Forgets the workflow id, e.g. when the workflow is cancelled or terminated. */
+  public void invalidate(String workflowId) {
+    started.invalidate(workflowId);
+  }
+
+  /**
+   * Forgets the execution when it is the recorded one, a newer run started since stays recorded.
+   *
+   * @param closed execution seen closed, all runs of the workflow id when run id is empty
+   */
+  public void invalidate(WorkflowExecution closed) {
+    if (closed.getRunId().isEmpty()) {
+      started.invalidate(closed.getWorkflowId());
+    } else {
+      started
+          .asMap()
+          .computeIfPresent(
+              closed.getWorkflowId(),
+              (workflowId, recorded) -> recorded.execution.equals(closed) ? null : recorded);
+    }
+  }
+
+  @RequiredArgsConstructor
+  private static final class Started {
+    private final String workflowType;
+    private final WorkflowExecution execution;
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.LimitMode;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.StartLimitOptions;
+import com.uber.m3.tally.Scope;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Global and per workflow type token buckets plus a bulkhead limiting calls in flight. In {@link
+ * LimitMode#ASYNC_QUEUE} mode the bulkhead is a pool of limiter threads fed from a bounded queue.
+ * The bulkhead is entered before tokens are taken, so a call it rejects uses no rate, and a token
+ * of the workflow type is given back when the global rate rejects the call.
+ */
+public class StartLimiter {
+
+  public static final String LIMIT_REJECTED = "temporal_starter_client_limit_rejected";
+  public static final String LIMIT_WAIT = "temporal_starter_client_limit_wait";
+  public static final String LIMIT_QUEUE_DEPTH = "temporal_starter_client_limit_queue_depth";
+
+  private static final int DEFAULT_ASYNC_THREADS = 8;
+
+  private final StartLimitOptions options;
+  private final Scope scope;
+  private final TokenBucket globalBucket;
+  private final Map<String, TokenBucket> workflowTypeBuckets = new HashMap<>();
+  private final Semaphore inFlight;
+  private final ThreadPoolExecutor queue;
+  private final ThreadLocal<Boolean> onLimiterThread = ThreadLocal.withInitial(() -> false);
+
+  public StartLimiter(StartLimitOptions options, Scope scope) {
+    this.options = options;
+    this.scope = scope;
+    this.globalBucket =
+        options.getRatePerSecond() == null ? null : bucket(options.getRatePerSecond());
+    if (options.getWorkflowTypeRates() != null) {
+      options
+          .getWorkflowTypeRates()
+          .forEach((type, rate) -> workflowTypeBuckets.put(type, bucket(rate)));
+    }
+    if (options.getMode() == LimitMode.ASYNC_QUEUE) {
+      int threads =
+          options.getMaxInFlight() == null ? DEFAULT_ASYNC_THREADS : options.getMaxInFlight();
+      AtomicInteger counter = new AtomicInteger();
+      this.queue =
+          new ThreadPoolExecutor(
+              threads,
+              threads,
+              0,
+              TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<>(options.getQueueCapacity()),
+              r -> {
+                Thread thread =
+                    new Thread(
+                        () -> {
+                          onLimiterThread.set(true);
+                          r.run();
+                        },
+                        "temporal-start-limiter-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              });
+      this.inFlight = null;
+    } else {
+      this.queue = null;
+      this.inFlight =
+          options.getMaxInFlight() == null ? null : new Semaphore(options.getMaxInFlight());
+    }
+  }
+
+  /**
+   * Runs the call when limits let it through, in the calling thread unless it has to be queued.
+   *
+   * @param <T>
+   * @param workflowType type for per workflow type limit, null for calls without one
+   * @param call
+   * @return
+   */
+  public <T> T execute(String workflowType, Supplier<T> call) {
+    if (queue != null && !onLimiterThread.get()) {
+      return GrpcFutures.join(submit(() -> execute(workflowType, call)));
+    }
+    long start = System.nanoTime();
+    if (inFlight != null) {
+      acquire(inFlight);
+    }
+    try {
+      TokenBucket workflowTypeBucket = workflowTypeBuckets.get(workflowType);
+      acquireRate(workflowTypeBucket);
+      try {
+        acquireRate(globalBucket);
+      } catch (ClientLimitExceededException e) {
+        if (workflowTypeBucket != null) {
+          workflowTypeBucket.refund();
+        }
+        throw e;
+      }
+      recordWait(start);
+      return call.get();
+    } finally {
+      if (inFlight != null) {
+        inFlight.release();
+      }
+    }
+  }
+
+  /**
+   * In {@link LimitMode#ASYNC_QUEUE} mode queues the call and returns at once, in other modes runs
+   * it in the calling thread.
+   *
+   * @param <T>
+   * @param call
+   * @return future failed with {@link ClientLimitExceededException} when the queue is full
+   */
+  public <T> CompletableFuture<T> submit(Supplier<T> call) {
+    if (queue == null || onLimiterThread.get()) {
+      CompletableFuture<T> result = new CompletableFuture<>();
+      try {
+        result.complete(call.get());
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+      return result;
+    }
+    try {
+      CompletableFuture<T> result = CompletableFuture.supplyAsync(call, queue);
+      scope.gauge(LIMIT_QUEUE_DEPTH).update(queue.getQueue().size());
+      return result;
+    } catch (RejectedExecutionException e) {
+      CompletableFuture<T> result = new CompletableFuture<>();
+      result.completeExceptionally(
+          rejected("queue of " + options.getQueueCapacity() + " calls is full"));
+      return result;
+    }
+  }
+
+  /** Calls waiting in the queue of {@link LimitMode#ASYNC_QUEUE} mode. */
+  public int getQueueDepth() {
+    return queue == null ? 0 : queue.getQueue().size();
+  }
+
+  private void acquireRate(TokenBucket bucket) {
+    if (bucket == null) {
+      return;
+    }
+    boolean acquired;
+    if (options.getMode() == LimitMode.FAIL_FAST) {
+      acquired = bucket.tryAcquire();
+    } else {
+      try {
+        acquired = bucket.tryAcquire(options.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw rejected("interrupted while waiting for rate limit");
+      }
+    }
+    if (!acquired) {
+      throw rejected("rate limit exceeded");
+    }
+  }
+
+  private void acquire(Semaphore semaphore) {
+    boolean acquired;
+    if (options.getMode() == LimitMode.FAIL_FAST) {
+      acquired = semaphore.tryAcquire();
+    } else {
+      try {
+        acquired = semaphore.tryAcquire(options.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw rejected("interrupted while waiting for in flight limit");
+      }
+    }
+    if (!acquired) {
+      throw rejected("more than " + options.getMaxInFlight() + " calls in flight");
+    }
+  }
+
+  private void recordWait(long start) {
+    scope.timer(LIMIT_WAIT).record(com.uber.m3.util.Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  private ClientLimitExceededException rejected(String reason) {
+    scope.counter(LIMIT_REJECTED).inc(1);
+    return new ClientLimitExceededException("Temporal client call rejected: " + reason);
+  }
+
+  private TokenBucket bucket(double rate) {
+    int burst = options.getBurst() == null ? (int) Math.ceil(rate) : options.getBurst();
+    return new TokenBucket(rate, burst);
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowClientInterceptorBase;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** Passes start, signal-with-start and signal calls of a client through {@link StartLimiter}. */
+@RequiredArgsConstructor
+public class StartLimitingInterceptor extends WorkflowClientInterceptorBase {
+
+  @Getter private final StartLimiter startLimiter;
+
+  @Override
+  public WorkflowClientCallsInterceptor workflowClientCallsInterceptor(
+      WorkflowClientCallsInterceptor next) {
+    return new WorkflowClientCallsInterceptorBase(next) {
+      @Override
+      public WorkflowStartOutput start(WorkflowStartInput input) {
+        return startLimiter.execute(input.getWorkflowType(), () -> super.start(input));
+      }
+
+      @Override
+      public WorkflowSignalWithStartOutput signalWithStart(WorkflowSignalWithStartInput input) {
+        return startLimiter.execute(
+            input.getWorkflowStartInput().getWorkflowType(), () -> super.signalWithStart(input));
+      }
+
+      @Override
+      public WorkflowSignalOutput signal(WorkflowSignalInput input) {
+        return startLimiter.execute(null, () -> super.signal(input));
+      }
+    };
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import java.util.concurrent.TimeUnit;
+
+/** Token bucket refilled continuously at a fixed rate. */
+public class TokenBucket {
+
+  private final double tokensPerNano;
+  private final double capacity;
+  private double tokens;
+  private long refilledAt;
+
+  public TokenBucket(double ratePerSecond, int burst) {
+    if (ratePerSecond <= 0) {
+      throw new IllegalArgumentException("Rate has to be positive: " + ratePerSecond);
+    }
+    this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.capacity = Math.max(1, burst);
+    this.tokens = capacity;
+    this.refilledAt = System.nanoTime();
+  }
+
+  /** Takes a token if there is one. */
+  public boolean tryAcquire() {
+    return reserve(0) == 0;
+  }
+
+  /**
+   * Waits for a token at most the given time.
+   *
+   * @param timeout
+   * @param unit
+   * @return false when the token would not be available in time
+   * @throws InterruptedException
+   */
+  public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (true) {
+      long wait = reserve(deadline - System.nanoTime());
+      if (wait == 0) {
+        return true;
+      }
+      if (wait < 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+
+  /** Gives back a token taken by a call that was then rejected by another limit. */
+  public synchronized void refund() {
+    tokens = Math.min(capacity, tokens + 1);
+  }
+
+  /**
+   * @return 0 when token was taken, time to wait for next token when it comes within max wait, -1
+   *     otherwise
+   */
+  private synchronized long reserve(long maxWaitNanos) {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+    refilledAt = now;
+    if (tokens >= 1) {
+      tokens -= 1;
+      return 0;
+    }
+    long wait = (long) Math.ceil((1 - tokens) / tokensPerNano);
+    return wait <= maxWaitNanos ? wait : -1;
+  }
+}
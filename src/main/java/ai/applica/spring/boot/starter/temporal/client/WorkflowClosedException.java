@@ -0,0 +1,42 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.EventType;
+import lombok.Getter;
+
+/** Thrown when awaited workflow closed without completing, e.g. failed or was terminated. */
+@Getter
+public class WorkflowClosedException extends RuntimeException {
+
+  private final WorkflowExecution execution;
+  private final EventType closeEventType;
+
+  public WorkflowClosedException(
+      WorkflowExecution execution, EventType closeEventType, String message) {
+    super(
+        "Workflow "
+            + execution.getWorkflowId()
+            + " closed with "
+            + closeEventType
+            + (message == null || message.isEmpty() ? "" : ": " + message));
+    this.execution = execution;
+    this.closeEventType = closeEventType;
+  }
+}
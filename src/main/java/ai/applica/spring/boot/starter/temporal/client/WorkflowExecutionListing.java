@@ -0,0 +1,147 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import com.google.protobuf.ByteString;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
+import io.temporal.client.WorkflowClient;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lists executions matching a visibility query page by page. A page is asked for when the stream
+ * reaches it and the following page is fetched in the background while the current one is read, so
+ * at most two pages are held in memory whatever the number of executions.
+ */
+public class WorkflowExecutionListing {
+
+  public static final String LIST_PAGE_LATENCY = "temporal_starter_list_page_latency";
+
+  private final WorkflowClient workflowClient;
+  private final int pageSize;
+  private final Scope scope;
+
+  public WorkflowExecutionListing(WorkflowClient workflowClient, int pageSize) {
+    this.workflowClient = workflowClient;
+    this.pageSize = pageSize;
+    this.scope = workflowClient.getWorkflowServiceStubs().getOptions().getMetricsScope();
+  }
+
+  /**
+   * Executions matching the query, lazily.
+   *
+   * @param query visibility query, all executions of the namespace when empty
+   * @return stream of executions, closing it cancels the page being fetched
+   */
+  public Stream<WorkflowExecutionInfo> list(String query) {
+    return pages(query, ByteString.EMPTY).flatMap(page -> page.getExecutionsList().stream());
+  }
+
+  /**
+   * Pages of executions matching the query, starting at the page of given token. Token of the page
+   * that follows is <code>getNextPageToken</code> of the page, so listing can be resumed from it.
+   *
+   * @param query
+   * @param pageToken token of the first page, empty to start from the beginning
+   * @return
+   */
+  public Stream<ListWorkflowExecutionsResponse> pages(String query, ByteString pageToken) {
+    return stream(new Pages(token -> fetch(query, token), pageToken));
+  }
+
+  private CompletableFuture<ListWorkflowExecutionsResponse> fetch(String query, ByteString token) {
+    ListWorkflowExecutionsRequest request =
+        ListWorkflowExecutionsRequest.newBuilder()
+            .setNamespace(workflowClient.getOptions().getNamespace())
+            .setPageSize(pageSize)
+            .setNextPageToken(token)
+            .setQuery(query == null ? "" : query)
+            .build();
+    long start = System.nanoTime();
+    CompletableFuture<ListWorkflowExecutionsResponse> page =
+        GrpcFutures.toCompletableFuture(
+            workflowClient.getWorkflowServiceStubs().futureStub().listWorkflowExecutions(request));
+    // a side stage, cancelling a dependent one would not reach the call
+    page.whenComplete(
+        (response, t) ->
+            scope
+                .timer(LIST_PAGE_LATENCY)
+                .record(com.uber.m3.util.Duration.ofNanos(System.nanoTime() - start)));
+    return page;
+  }
+
+  static Stream<ListWorkflowExecutionsResponse> stream(Pages pages) {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL),
+            false)
+        .onClose(pages::close);
+  }
+
+  /** Hands out pages in order, asking for the next one as soon as a page is handed out. */
+  static class Pages implements Iterator<ListWorkflowExecutionsResponse> {
+
+    private final Function<ByteString, CompletableFuture<ListWorkflowExecutionsResponse>> fetch;
+    private final ByteString firstToken;
+    private CompletableFuture<ListWorkflowExecutionsResponse> next;
+    private boolean started;
+
+    Pages(
+        Function<ByteString, CompletableFuture<ListWorkflowExecutionsResponse>> fetch,
+        ByteString firstToken) {
+      this.fetch = fetch;
+      this.firstToken = firstToken;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (!started) {
+        started = true;
+        next = fetch.apply(firstToken);
+      }
+      return next != null;
+    }
+
+    @Override
+    public ListWorkflowExecutionsResponse next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      ListWorkflowExecutionsResponse page = GrpcFutures.join(next);
+      ByteString token = page.getNextPageToken();
+      next = token.isEmpty() ? null : fetch.apply(token);
+      return page;
+    }
+
+    void close() {
+      started = true;
+      if (next != null) {
+        next.cancel(true);
+        next = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.HandleCacheOptions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.uber.m3.tally.Scope;
+import io.temporal.client.WorkflowClient;
+import java.util.Optional;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Typed stubs of started workflows kept for reuse, least recently used are evicted over max size.
+ * Stubs of started workflows only send signals and queries, so they can be shared by threads.
+ */
+public class WorkflowHandleCache {
+
+  public static final String HANDLE_CACHE_HIT = "temporal_starter_handle_cache_hit";
+  public static final String HANDLE_CACHE_MISS = "temporal_starter_handle_cache_miss";
+  public static final String HANDLE_CACHE_EVICTION = "temporal_starter_handle_cache_eviction";
+
+  private final WorkflowClient workflowClient;
+  private final Scope scope;
+  private final Cache<Key, Object> handles;
+
+  public WorkflowHandleCache(WorkflowClient workflowClient, HandleCacheOptions options) {
+    this.workflowClient = workflowClient;
+    this.scope = workflowClient.getWorkflowServiceStubs().getOptions().getMetricsScope();
+    this.handles =
+        CacheBuilder.newBuilder()
+            .maximumSize(options.getMaxSize())
+            .removalListener(
+                notification -> {
+                  if (notification.getCause() == RemovalCause.SIZE) {
+                    scope.counter(HANDLE_CACHE_EVICTION).inc(1);
+                  }
+                })
+            .build();
+  }
+
+  /**
+   * Returns cached stub or creates one.
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param workflowId
+   * @param runId null for the current run
+   * @return
+   */
+  public <T> T get(Class<T> workflowInterface, String workflowId, String runId) {
+    Key key = new Key(workflowInterface, workflowId, runId);
+    Object handle = handles.getIfPresent(key);
+    if (handle != null) {
+      scope.counter(HANDLE_CACHE_HIT).inc(1);
+      return workflowInterface.cast(handle);
+    }
+    scope.counter(HANDLE_CACHE_MISS).inc(1);
+    return workflowInterface.cast(
+        handles
+            .asMap()
+            .computeIfAbsent(
+                key,
+                k ->
+                    workflowClient.newWorkflowStub(
+                        workflowInterface, workflowId, Optional.ofNullable(runId))));
+  }
+
+  public long size() {
+    return handles.size();
+  }
+
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static final class Key {
+    private final Class<?> workflowInterface;
+    private final String workflowId;
+    private final String runId;
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import ai.applica.spring.boot.starter.temporal.client.AdaptiveConcurrencyLimiter.CallType;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.QueryOptions;
+import com.uber.m3.tally.Scope;
+import io.grpc.Status;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.query.v1.WorkflowQuery;
+import io.temporal.api.workflowservice.v1.QueryWorkflowRequest;
+import io.temporal.api.workflowservice.v1.QueryWorkflowResponse;
+import io.temporal.client.WorkflowClient;
+import io.temporal.common.converter.DataConverter;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Queries workflows through the asynchronous gRPC stub with a deadline per call. When hedge delay
+ * is set and the answer does not come within it, the same query is sent once more and the first
+ * answer wins, so a single slow worker does not decide the latency. When the client caches query
+ * results, cached answers are returned without a call. When the client has an adaptive concurrency
+ * limit, a query with its hedge takes one slot of it.
+ */
+public class WorkflowQueries {
+
+  public static final String QUERY_LATENCY = "temporal_starter_query_latency";
+  public static final String QUERY_HEDGE_ISSUED = "temporal_starter_query_hedge_issued";
+  public static final String QUERY_HEDGE_WON = "temporal_starter_query_hedge_won";
+  public static final String QUERY_DEADLINE_EXCEEDED = "temporal_starter_query_deadline_exceeded";
+
+  private final WorkflowClient workflowClient;
+  private final QueryOptions defaults;
+  private final Scope scope;
+  private final QueryResultCache cache;
+  private final AdaptiveConcurrencyLimiter limiter;
+
+  public WorkflowQueries(WorkflowClient workflowClient, QueryOptions defaults) {
+    this.workflowClient = workflowClient;
+    this.defaults = defaults == null ? new QueryOptions() : defaults;
+    this.scope = workflowClient.getWorkflowServiceStubs().getOptions().getMetricsScope();
+    this.cache = QueryCachingInterceptor.findCache(workflowClient);
+    this.limiter = AdaptiveLimitingInterceptor.findLimiter(workflowClient);
+  }
+
+  /**
+   * Queries workflow and waits for the answer.
+   *
+   * @param <R>
+   * @param execution workflow id and optionally run id
+   * @param queryType name of the query method
+   * @param resultClass
+   * @param options deadline and hedge delay, defaults from properties when null
+   * @param args
+   * @return
+   */
+  public <R> R query(
+      WorkflowExecution execution,
+      String queryType,
+      Class<R> resultClass,
+      QueryOptions options,
+      Object... args) {
+    return GrpcFutures.join(queryAsync(execution, queryType, resultClass, options, args));
+  }
+
+  /**
+   * Queries workflow without blocking the calling thread.
+   *
+   * @param <R>
+   * @param execution workflow id and optionally run id
+   * @param queryType name of the query method
+   * @param resultClass
+   * @param options deadline and hedge delay, defaults from properties when null
+   * @param args
+   * @return
+   */
+  @SuppressWarnings("unchecked")
+  public <R> CompletableFuture<R> queryAsync(
+      WorkflowExecution execution,
+      String queryType,
+      Class<R> resultClass,
+      QueryOptions options,
+      Object... args) {
+    if (cache == null) {
+      return send(execution, queryType, resultClass, options, args);
+    }
+    QueryResultCache.Key key = QueryResultCache.key(execution, queryType, resultClass, args);
+    Object cached = cache.lookup(key);
+    if (cached != null) {
+      return CompletableFuture.completedFuture((R) QueryResultCache.unmask(cached));
+    }
+    Object generation = cache.generation(key);
+    CompletableFuture<R> result = send(execution, queryType, resultClass, options, args);
+    result.thenAccept(value -> cache.put(key, value, generation));
+    return result;
+  }
+
+  private <R> CompletableFuture<R> send(
+      WorkflowExecution execution,
+      String queryType,
+      Class<R> resultClass,
+      QueryOptions options,
+      Object... args) {
+    if (limiter == null) {
+      return sendHedged(execution, queryType, resultClass, options, args);
+    }
+    return limiter.executeAsync(
+        CallType.QUERY, () -> sendHedged(execution, queryType, resultClass, options, args));
+  }
+
+  private <R> CompletableFuture<R> sendHedged(
+      WorkflowExecution execution,
+      String queryType,
+      Class<R> resultClass,
+      QueryOptions options,
+      Object... args) {
+    QueryOptions effective = options == null ? defaults : options;
+    long start = System.nanoTime();
+    long deadline = start + effective.getDeadline().toNanos();
+    QueryWorkflowRequest request = newRequest(execution, queryType, args);
+    CompletableFuture<R> result = new CompletableFuture<>();
+    AtomicInteger pending = new AtomicInteger();
+
+    attempt(request, resultClass, deadline, result, pending, false);
+
+    Duration hedgeDelay = effective.getHedgeDelay();
+    if (hedgeDelay != null && hedgeDelay.compareTo(effective.getDeadline()) < 0) {
+      ScheduledFuture<?> hedge =
+          HedgeScheduler.INSTANCE.schedule(
+              () -> {
+                if (!result.isDone()) {
+                  scope.counter(QUERY_HEDGE_ISSUED).inc(1);
+                  attempt(request, resultClass, deadline, result, pending, true);
+                }
+              },
+              hedgeDelay.toNanos(),
+              TimeUnit.NANOSECONDS);
+      result.whenComplete((value, t) -> hedge.cancel(false));
+    }
+    result.whenComplete(
+        (value, t) -> {
+          scope
+              .timer(QUERY_LATENCY)
+              .record(com.uber.m3.util.Duration.ofNanos(System.nanoTime() - start));
+          if (t != null && Status.fromThrowable(t).getCode() == Status.Code.DEADLINE_EXCEEDED) {
+            scope.counter(QUERY_DEADLINE_EXCEEDED).inc(1);
+          }
+        });
+    return result;
+  }
+
+  private <R> void attempt(
+      QueryWorkflowRequest request,
+      Class<R> resultClass,
+      long deadline,
+      CompletableFuture<R> result,
+      AtomicInteger pending,
+      boolean hedge) {
+    pending.incrementAndGet();
+    CompletableFuture<QueryWorkflowResponse> call =
+        GrpcFutures.toCompletableFuture(
+            workflowClient
+                .getWorkflowServiceStubs()
+                .futureStub()
+                .withDeadlineAfter(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+                .queryWorkflow(request));
+    // the loser of a hedged pair is not needed any more
+    result.whenComplete((value, t) -> call.cancel(true));
+    call.thenApply(response -> decode(request, response, resultClass))
+        .whenComplete(
+            (value, t) -> {
+              int left = pending.decrementAndGet();
+              if (t == null) {
+                if (result.complete(value) && hedge) {
+                  scope.counter(QUERY_HEDGE_WON).inc(1);
+                }
+              } else if (left == 0) {
+                result.completeExceptionally(GrpcFutures.unwrap(t));
+              }
+            });
+  }
+
+  private QueryWorkflowRequest newRequest(
+      WorkflowExecution execution, String queryType, Object... args) {
+    WorkflowQuery.Builder query = WorkflowQuery.newBuilder().setQueryType(queryType);
+    dataConverter().toPayloads(args).ifPresent(query::setQueryArgs);
+    return QueryWorkflowRequest.newBuilder()
+        .setNamespace(workflowClient.getOptions().getNamespace())
+        .setExecution(execution)
+        .setQuery(query)
+        .build();
+  }
+
+  private <R> R decode(
+      QueryWorkflowRequest request, QueryWorkflowResponse response, Class<R> resultClass) {
+    if (response.hasQueryRejected()) {
+      throw new QueryRejectedException(
+          request.getExecution().getWorkflowId(),
+          request.getQuery().getQueryType(),
+          response.getQueryRejected().getStatus().name());
+    }
+    Optional<Payloads> payloads =
+        response.hasQueryResult() ? Optional.of(response.getQueryResult()) : Optional.empty();
+    return dataConverter().fromPayloads(0, payloads, resultClass, resultClass);
+  }
+
+  private DataConverter dataConverter() {
+    return workflowClient.getOptions().getDataConverter();
+  }
+
+  /** Created on first hedge, only fires timers, calls themselves are asynchronous. */
+  private static final class HedgeScheduler {
+    static final ScheduledExecutorService INSTANCE =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "temporal-query-hedge");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+}
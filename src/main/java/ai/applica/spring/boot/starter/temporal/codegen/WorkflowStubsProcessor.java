@@ -0,0 +1,359 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.codegen;
+
+import ai.applica.spring.boot.starter.temporal.annotations.TemporalWorkflow;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates <code>XxxWorkflowStubs</code> class next to each <code>@TemporalWorkflow</code>
+ * implementation. The class knows workflow interface, properties key and workflow type at compile
+ * time and has start, signal and query helpers, so the request path does not look up annotations.
+ * The processor is found on the classpath of every application using the starter, so
+ * implementations it cannot generate stubs for, e.g. abstract ones, with several <code>
+ * &#64;WorkflowInterface</code>s or with a workflow method of more than six parameters, only get a
+ * warning and no stubs. Option <code>-Atemporal.workflowStubs=false</code> turns it off.
+ */
+public class WorkflowStubsProcessor extends AbstractProcessor {
+
+  static final String SUFFIX = "WorkflowStubs";
+  static final String ENABLED_OPTION = "temporal.workflowStubs";
+
+  private static final String WORKFLOW_INTERFACE = "io.temporal.workflow.WorkflowInterface";
+  private static final String WORKFLOW_METHOD = "io.temporal.workflow.WorkflowMethod";
+  private static final String SIGNAL_METHOD = "io.temporal.workflow.SignalMethod";
+  private static final String QUERY_METHOD = "io.temporal.workflow.QueryMethod";
+  /** Arguments supported by <code>WorkflowClient.start</code>. */
+  private static final int MAX_START_ARGUMENTS = 6;
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(TemporalWorkflow.class.getName());
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    return Collections.singleton(ENABLED_OPTION);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if ("false".equalsIgnoreCase(processingEnv.getOptions().get(ENABLED_OPTION))) {
+      return false;
+    }
+    for (Element element : roundEnv.getElementsAnnotatedWith(TemporalWorkflow.class)) {
+      if (element.getKind() != ElementKind.CLASS
+          || element.getModifiers().contains(Modifier.ABSTRACT)) {
+        skip(element, "it is not a concrete workflow implementation class");
+        continue;
+      }
+      generate((TypeElement) element);
+    }
+    return false;
+  }
+
+  private void generate(TypeElement implementation) {
+    TemporalWorkflow annotation = implementation.getAnnotation(TemporalWorkflow.class);
+    if (annotation.value().trim().isEmpty()) {
+      skip(implementation, "@TemporalWorkflow has no name of the workflow in properties");
+      return;
+    }
+    List<TypeElement> interfaces = workflowInterfaces(implementation);
+    if (interfaces.size() != 1) {
+      skip(
+          implementation,
+          "it implements " + interfaces.size() + " @WorkflowInterfaces instead of exactly one");
+      return;
+    }
+    TypeElement workflowInterface = interfaces.get(0);
+    List<ExecutableElement> workflowMethods = methods(workflowInterface, WORKFLOW_METHOD);
+    if (workflowMethods.size() != 1) {
+      skip(
+          implementation,
+          workflowInterface.getSimpleName()
+              + " has "
+              + workflowMethods.size()
+              + " @WorkflowMethods instead of exactly one");
+      return;
+    }
+    ExecutableElement workflowMethod = workflowMethods.get(0);
+    if (workflowMethod.getParameters().size() > MAX_START_ARGUMENTS) {
+      skip(
+          implementation,
+          "WorkflowClient.start takes at most "
+              + MAX_START_ARGUMENTS
+              + " arguments of the @WorkflowMethod");
+      return;
+    }
+    try {
+      write(implementation, annotation.value(), workflowInterface, workflowMethod);
+    } catch (IOException e) {
+      error(implementation, "Could not write " + SUFFIX + " class: " + e.getMessage());
+    }
+  }
+
+  private void write(
+      TypeElement implementation,
+      String workflowName,
+      TypeElement workflowInterface,
+      ExecutableElement workflowMethod)
+      throws IOException {
+    String packageName = packageOf(implementation).getQualifiedName().toString();
+    String className = flatName(implementation) + SUFFIX;
+    String iface = workflowInterface.getQualifiedName().toString();
+    String workflowType = annotationValue(workflowMethod, WORKFLOW_METHOD, "name");
+    if (workflowType == null || workflowType.isEmpty()) {
+      workflowType = workflowInterface.getSimpleName().toString();
+    }
+    String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+    try (PrintWriter out =
+        new PrintWriter(
+            processingEnv
+                .getFiler()
+                .createSourceFile(qualifiedName, implementation)
+                .openWriter())) {
+      if (!packageName.isEmpty()) {
+        out.println("package " + packageName + ";");
+        out.println();
+      }
+      out.println("import ai.applica.spring.boot.starter.temporal.WorkflowFactory;");
+      out.println("import io.temporal.api.common.v1.WorkflowExecution;");
+      out.println("import io.temporal.client.WorkflowClient;");
+      out.println("import io.temporal.client.WorkflowOptions;");
+      out.println();
+      out.println("/**");
+      out.println(
+          " * Stubs of {@link " + implementation.getQualifiedName() + "} workflow, generated by");
+      out.println(" * " + getClass().getSimpleName() + ". Do not edit.");
+      out.println(" */");
+      out.println("public final class " + className + " {");
+      out.println();
+      out.println("  /** Key of the workflow in spring.temporal.workflows. */");
+      out.println("  public static final String WORKFLOW_NAME = " + literal(workflowName) + ";");
+      out.println();
+      out.println("  /** Workflow type workers register the implementation with. */");
+      out.println("  public static final String WORKFLOW_TYPE = " + literal(workflowType) + ";");
+      out.println();
+      out.println("  private final WorkflowFactory workflowFactory;");
+      out.println();
+      out.println("  /** Use workflow factory of the client the workflow is bound to. */");
+      out.println("  public " + className + "(WorkflowFactory workflowFactory) {");
+      out.println("    this.workflowFactory = workflowFactory;");
+      out.println("  }");
+      out.println();
+      out.println("  /** Options of the workflow from properties. */");
+      out.println("  public WorkflowOptions.Builder options() {");
+      out.println("    return workflowFactory.defaultOptionsBuilder(WORKFLOW_NAME);");
+      out.println("  }");
+      out.println();
+      out.println("  /** Stub starting a new workflow with given id. */");
+      out.println("  public " + iface + " newStub(String workflowId) {");
+      out.println(
+          "    return workflowFactory.makeStub("
+              + iface
+              + ".class, options().setWorkflowId(workflowId));");
+      out.println("  }");
+      out.println();
+      out.println("  /** Cached stub of a workflow started before. */");
+      out.println("  public " + iface + " existing(String workflowId) {");
+      out.println("    return workflowFactory.getHandle(" + iface + ".class, workflowId);");
+      out.println("  }");
+      out.println();
+      List<? extends VariableElement> startParameters = workflowMethod.getParameters();
+      out.println("  /** Starts the workflow without waiting for its result. */");
+      out.println(
+          "  public WorkflowExecution start("
+              + parameters("String workflowId", startParameters)
+              + ") {");
+      String methodReference = "newStub(workflowId)::" + workflowMethod.getSimpleName();
+      out.println(
+          "    return WorkflowClient.start("
+              + (startParameters.isEmpty()
+                  ? methodReference
+                  : methodReference + ", " + names(startParameters))
+              + ");");
+      out.println("  }");
+      for (ExecutableElement method : methods(workflowInterface, SIGNAL_METHOD)) {
+        out.println();
+        out.println("  /** Sends {@code " + method.getSimpleName() + "} signal. */");
+        writeDelegate(out, method);
+      }
+      for (ExecutableElement method : methods(workflowInterface, QUERY_METHOD)) {
+        out.println();
+        out.println("  /** Queries {@code " + method.getSimpleName() + "}. */");
+        writeDelegate(out, method);
+      }
+      out.println("}");
+    }
+  }
+
+  private void writeDelegate(PrintWriter out, ExecutableElement method) {
+    boolean returns = method.getReturnType().getKind() != TypeKind.VOID;
+    List<? extends VariableElement> methodParameters = method.getParameters();
+    out.println(
+        "  public "
+            + method.getReturnType()
+            + " "
+            + method.getSimpleName()
+            + "("
+            + parameters("String workflowId", methodParameters)
+            + ") {");
+    out.println(
+        "    "
+            + (returns ? "return " : "")
+            + "existing(workflowId)."
+            + method.getSimpleName()
+            + "("
+            + names(methodParameters)
+            + ");");
+    out.println("  }");
+  }
+
+  private List<TypeElement> workflowInterfaces(TypeElement implementation) {
+    List<TypeElement> result = new ArrayList<>();
+    TypeElement type = implementation;
+    while (type != null) {
+      for (TypeMirror candidate : type.getInterfaces()) {
+        TypeElement element = (TypeElement) ((DeclaredType) candidate).asElement();
+        if (annotation(element, WORKFLOW_INTERFACE) != null && !result.contains(element)) {
+          result.add(element);
+        }
+      }
+      TypeMirror superclass = type.getSuperclass();
+      type =
+          superclass.getKind() == TypeKind.DECLARED
+              ? (TypeElement) ((DeclaredType) superclass).asElement()
+              : null;
+    }
+    return result;
+  }
+
+  private List<ExecutableElement> methods(TypeElement workflowInterface, String annotationName) {
+    List<ExecutableElement> result = new ArrayList<>();
+    for (ExecutableElement method :
+        ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(workflowInterface))) {
+      if (annotation(method, annotationName) != null) {
+        result.add(method);
+      }
+    }
+    return result;
+  }
+
+  private static AnnotationMirror annotation(Element element, String annotationName) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+      if (type.getQualifiedName().contentEquals(annotationName)) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  private static String annotationValue(Element element, String annotationName, String name) {
+    AnnotationMirror mirror = annotation(element, annotationName);
+    if (mirror == null) {
+      return null;
+    }
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        mirror.getElementValues().entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return String.valueOf(entry.getValue().getValue());
+      }
+    }
+    return null;
+  }
+
+  private static PackageElement packageOf(Element element) {
+    Element current = element;
+    while (!(current instanceof PackageElement)) {
+      current = current.getEnclosingElement();
+    }
+    return (PackageElement) current;
+  }
+
+  /** Simple name with names of enclosing classes, e.g. HelloQuery_GreetingWorkflowImpl. */
+  private static String flatName(TypeElement type) {
+    String name = type.getSimpleName().toString();
+    Element enclosing = type.getEnclosingElement();
+    while (enclosing instanceof TypeElement) {
+      name = enclosing.getSimpleName() + "_" + name;
+      enclosing = enclosing.getEnclosingElement();
+    }
+    return name;
+  }
+
+  private static String parameters(String first, List<? extends VariableElement> parameters) {
+    StringBuilder result = new StringBuilder(first);
+    for (VariableElement parameter : parameters) {
+      result.append(", ").append(parameter.asType()).append(' ').append(parameter.getSimpleName());
+    }
+    return result.toString();
+  }
+
+  private static String names(List<? extends VariableElement> parameters) {
+    return parameters.stream()
+        .map(parameter -> parameter.getSimpleName().toString())
+        .collect(Collectors.joining(", "));
+  }
+
+  private static String literal(String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+
+  private void skip(Element element, String reason) {
+    processingEnv
+        .getMessager()
+        .printMessage(
+            Diagnostic.Kind.WARNING,
+            "No " + SUFFIX + " generated for " + element.getSimpleName() + ", " + reason,
+            element);
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+}
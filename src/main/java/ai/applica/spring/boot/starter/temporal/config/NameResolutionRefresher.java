@@ -0,0 +1,64 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.config;
+
+import io.grpc.ManagedChannel;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Makes a channel resolve its target again at a fixed interval. DNS resolver of gRPC does not
+ * re-resolve while connections are healthy, so frontends added behind a DNS name would not get any
+ * traffic until some connection breaks. Moving the channel to idle shuts down the resolver and load
+ * balancer, calls in flight complete on their old connections and the next call resolves the name
+ * and connects to the current set of addresses.
+ */
+final class NameResolutionRefresher {
+
+  private static final ScheduledExecutorService EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "temporal-name-resolution-refresh");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private NameResolutionRefresher() {}
+
+  /** Schedules refreshes until the channel is shut down. */
+  static void schedule(ManagedChannel channel, Duration interval) {
+    long millis = interval.toMillis();
+    AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+    task.set(
+        EXECUTOR.scheduleWithFixedDelay(
+            () -> {
+              if (channel.isShutdown()) {
+                task.get().cancel(false);
+              } else {
+                channel.enterIdle();
+              }
+            },
+            millis,
+            millis,
+            TimeUnit.MILLISECONDS));
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.config;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.outbox.OutboxDispatcher;
+import ai.applica.spring.boot.starter.temporal.outbox.WorkflowStartOutbox;
+import io.temporal.client.WorkflowClient;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Adds the workflow start outbox of the default client when spring-jdbc is on the classpath and
+ * <code>spring.temporal.outbox.enabled</code> is set.
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.jdbc.core.JdbcTemplate")
+@ConditionalOnProperty(prefix = "spring.temporal.outbox", name = "enabled", havingValue = "true")
+@AutoConfigureAfter(
+    value = TemporalBootstrapConfiguration.class,
+    name = "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration")
+public class OutboxConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public WorkflowStartOutbox workflowStartOutbox(
+      TemporalProperties temporalProperties,
+      DataSource dataSource,
+      WorkflowFactory workflowFactory,
+      WorkflowClient workflowClient) {
+    WorkflowStartOutbox outbox =
+        new WorkflowStartOutbox(
+            new JdbcTemplate(dataSource),
+            temporalProperties.getOutbox(),
+            workflowClient.getOptions().getDataConverter());
+    if (temporalProperties.getOutbox().isInitializeSchema()) {
+      outbox.createTable();
+    }
+    workflowFactory.setOutbox(outbox);
+    return outbox;
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  public OutboxDispatcher outboxDispatcher(
+      TemporalProperties temporalProperties,
+      WorkflowStartOutbox outbox,
+      WorkflowFactory workflowFactory,
+      WorkflowClient workflowClient) {
+    OutboxDispatcher dispatcher =
+        new OutboxDispatcher(
+            outbox, workflowFactory, workflowClient, temporalProperties.getOutbox());
+    dispatcher.start();
+    return dispatcher;
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.config;
+
+import ai.applica.spring.boot.starter.temporal.ReactiveWorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import io.temporal.client.WorkflowClient;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Adds {@link ReactiveWorkflowFactory} of the default client when Reactor is on the classpath. */
+@Configuration
+@ConditionalOnClass(name = "reactor.core.publisher.Mono")
+@AutoConfigureAfter(TemporalBootstrapConfiguration.class)
+public class ReactiveTemporalConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public ReactiveWorkflowFactory reactiveWorkflowFactory(
+      TemporalProperties temporalProperties,
+      WorkflowFactory workflowFactory,
+      WorkflowClient workflowClient) {
+    return new ReactiveWorkflowFactory(temporalProperties, workflowFactory, workflowClient);
+  }
+}
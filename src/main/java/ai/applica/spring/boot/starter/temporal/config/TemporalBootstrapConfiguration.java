@@ -19,31 +19,89 @@ package ai.applica.spring.boot.starter.temporal.config;
 
 import static java.util.Optional.ofNullable;
 
+import ai.applica.spring.boot.starter.temporal.TemporalClientRegistry;
 import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.client.AdaptiveConcurrencyLimiter;
+import ai.applica.spring.boot.starter.temporal.client.AdaptiveLimitingInterceptor;
+import ai.applica.spring.boot.starter.temporal.client.QueryCachingInterceptor;
+import ai.applica.spring.boot.starter.temporal.client.QueryResultCache;
+import ai.applica.spring.boot.starter.temporal.client.StartDeduplicatingInterceptor;
+import ai.applica.spring.boot.starter.temporal.client.StartDeduplicator;
+import ai.applica.spring.boot.starter.temporal.client.StartLimiter;
+import ai.applica.spring.boot.starter.temporal.client.StartLimitingInterceptor;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.AdaptiveLimitOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.ClaimCheckOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.ClientOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.DataConverterOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.PayloadCompressionOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.QueryCacheOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.StartDedupOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.StartLimitOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.TlsOptions;
 import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.WorkflowServiceStubOptions;
+import ai.applica.spring.boot.starter.temporal.converter.ClaimCheckPayloadCodec;
+import ai.applica.spring.boot.starter.temporal.converter.CompressionPayloadCodec;
+import ai.applica.spring.boot.starter.temporal.converter.DataConverters;
+import ai.applica.spring.boot.starter.temporal.converter.FileSystemPayloadStore;
+import ai.applica.spring.boot.starter.temporal.converter.PayloadStore;
+import ai.applica.spring.boot.starter.temporal.converter.ProtobufMessageTypes;
 import ai.applica.spring.boot.starter.temporal.processors.ActivityAnnotationBeanPostProcessor;
+import ai.applica.spring.boot.starter.temporal.processors.StartsWorkflowBeanPostProcessor;
 import ai.applica.spring.boot.starter.temporal.processors.WorkflowAnnotationBeanPostProcessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
 import io.temporal.client.ActivityCompletionClient;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.interceptors.WorkflowClientInterceptor;
+import io.temporal.payload.codec.PayloadCodec;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import io.temporal.worker.WorkerFactory;
 import io.temporal.worker.WorkerFactoryOptions;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+@Slf4j
 @Configuration
 @EnableConfigurationProperties(TemporalProperties.class)
-@Import({WorkflowAnnotationBeanPostProcessor.class, ActivityAnnotationBeanPostProcessor.class})
+@Import({
+  WorkflowAnnotationBeanPostProcessor.class,
+  ActivityAnnotationBeanPostProcessor.class,
+  StartsWorkflowBeanPostProcessor.class
+})
 @RequiredArgsConstructor
-public class TemporalBootstrapConfiguration {
+public class TemporalBootstrapConfiguration implements DisposableBean {
 
   private final TemporalOptionsConfiguration temporalOptionsConfiguration;
+  private final ObjectProvider<ObjectMapper> objectMapper;
+  private final ObjectProvider<PayloadStore> payloadStore;
+  /** Shared by the data converter and the workflow factory of the default client. */
+  private final ProtobufMessageTypes defaultProtobufMessageTypes = new ProtobufMessageTypes();
+  /** Calls in flight get this long to finish when the application context closes. */
+  private static final long CHANNEL_SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+  /** Contexts of clients with TLS, their reloading stops with the application context. */
+  private final List<ReloadingSslContext> sslContexts = new CopyOnWriteArrayList<>();
+  /** Channels built for clients, the SDK does not shut down a channel passed to it. */
+  private final List<ManagedChannel> channels = new CopyOnWriteArrayList<>();
 
   @Bean
   public ActivityCompletionClient defaultActivityCompletionClient(
@@ -53,12 +111,57 @@ public class TemporalBootstrapConfiguration {
 
   @Bean
   public WorkflowFactory defaultWorkflowFactory(TemporalProperties temporalProperties) {
-    return new WorkflowFactory(
-        temporalProperties, defaultClient(temporalProperties), temporalOptionsConfiguration);
+    WorkflowFactory workflowFactory =
+        new WorkflowFactory(
+            temporalProperties, defaultClient(temporalProperties), temporalOptionsConfiguration);
+    if (protobufStubTypes(temporalProperties.defaultClientOptions(), temporalProperties)) {
+      workflowFactory.setProtobufMessageTypes(defaultProtobufMessageTypes);
+    }
+    return workflowFactory;
   }
 
   @Bean
   public WorkerFactory defaultWorkerFactory(WorkflowClient workflowClient) {
+    return newWorkerFactory(workflowClient);
+  }
+
+  @Bean
+  public WorkflowClient defaultClient(TemporalProperties temporalProperties) {
+    return newWorkflowClient(
+        temporalProperties.defaultClientOptions(), temporalProperties, defaultProtobufMessageTypes);
+  }
+
+  @Bean
+  public TemporalClientRegistry temporalClientRegistry(TemporalProperties temporalProperties) {
+    TemporalClientRegistry registry = new TemporalClientRegistry();
+    WorkflowClient workflowClient = defaultClient(temporalProperties);
+    registry.register(
+        TemporalClientRegistry.DEFAULT_CLIENT,
+        workflowClient,
+        defaultWorkerFactory(workflowClient),
+        defaultWorkflowFactory(temporalProperties));
+    if (temporalProperties.getClients() != null) {
+      temporalProperties
+          .getClients()
+          .forEach(
+              (name, clientOptions) -> {
+                ProtobufMessageTypes protobufMessageTypes = new ProtobufMessageTypes();
+                WorkflowClient namedClient =
+                    newWorkflowClient(clientOptions, temporalProperties, protobufMessageTypes);
+                WorkflowFactory workflowFactory =
+                    new WorkflowFactory(
+                        temporalProperties, namedClient, temporalOptionsConfiguration, name);
+                if (protobufStubTypes(clientOptions, temporalProperties)) {
+                  workflowFactory.setProtobufMessageTypes(protobufMessageTypes);
+                }
+                registry.register(
+                    name, namedClient, newWorkerFactory(namedClient), workflowFactory);
+              });
+    }
+    return registry;
+  }
+
+  private WorkerFactory newWorkerFactory(WorkflowClient workflowClient) {
     WorkerFactoryOptions.Builder builder =
         temporalOptionsConfiguration.modifyDefaultWorkerFactoryOptions(
             WorkerFactoryOptions.newBuilder());
@@ -66,21 +169,28 @@ public class TemporalBootstrapConfiguration {
     return WorkerFactory.newInstance(workflowClient, build);
   }
 
-  @Bean
-  public WorkflowClient defaultClient(TemporalProperties temporalProperties) {
+  private WorkflowClient newWorkflowClient(
+      ClientOptions clientOptions,
+      TemporalProperties temporalProperties,
+      ProtobufMessageTypes protobufMessageTypes) {
     WorkflowServiceStubs service;
     // Get worker to poll the common task queue.
     // gRPC stubs wrapper that talks to the local docker instance of temporal service.
-    if (hostAndPortAreSet(temporalProperties)) {
-      ManagedChannelBuilder<?> channel =
-          ManagedChannelBuilder.forAddress(
-              temporalProperties.getHost(), temporalProperties.getPort());
-      if (temporalProperties.getUseSsl() == null || !temporalProperties.getUseSsl()) {
-        channel.usePlaintext();
+    if (connectionIsSet(clientOptions)) {
+      SslContext sslContext = null;
+      if (clientOptions.getTls() != null && clientOptions.getTls().isConfigured()) {
+        ReloadingSslContext reloadingSslContext = newSslContext(clientOptions.getTls());
+        sslContexts.add(reloadingSslContext);
+        sslContext = reloadingSslContext.getSslContext();
       }
-      WorkflowServiceStubsOptions options =
-          mapWorkflowServiceStubsOptions(channel, temporalProperties);
+      ManagedChannel channel = newChannelBuilder(clientOptions, sslContext).build();
+      channels.add(channel);
+      WorkflowServiceStubsOptions options = mapWorkflowServiceStubsOptions(channel, clientOptions);
       service = WorkflowServiceStubs.newServiceStubs(options);
+      if (clientOptions.getNameResolutionRefresh() != null) {
+        NameResolutionRefresher.schedule(
+            service.getRawChannel(), clientOptions.getNameResolutionRefresh());
+      }
     } else {
       // Get the default connection for the local docker
       service =
@@ -92,34 +202,190 @@ public class TemporalBootstrapConfiguration {
     }
     WorkflowClientOptions.Builder optionsBuilder =
         temporalOptionsConfiguration.modifyClientOptions(
-            preBuildWorkflowClientOptions(temporalProperties));
+            preBuildWorkflowClientOptions(
+                clientOptions, service, temporalProperties, protobufMessageTypes));
 
-    return WorkflowClient.newInstance(service, optionsBuilder.build());
+    WorkflowClientOptions workflowClientOptions =
+        withStarterInterceptors(optionsBuilder.build(), service, temporalProperties);
+    WorkflowClient workflowClient = WorkflowClient.newInstance(service, workflowClientOptions);
+    if (temporalProperties.getWarmUp() != null && temporalProperties.getWarmUp().isEnabled()) {
+      new WorkflowServiceWarmUp(temporalProperties.getWarmUp()).warmUp(workflowClient);
+    }
+    return workflowClient;
   }
 
-  private WorkflowClientOptions.Builder preBuildWorkflowClientOptions(
+  /** @param sslContext context of TLS connections, plain or JDK TLS when null */
+  static ManagedChannelBuilder<?> newChannelBuilder(
+      ClientOptions clientOptions, SslContext sslContext) {
+    String target = clientOptions.getTarget();
+    boolean hasTarget = target != null && !target.isEmpty();
+    ManagedChannelBuilder<?> channel;
+    if (sslContext != null) {
+      NettyChannelBuilder nettyChannel =
+          hasTarget
+              ? NettyChannelBuilder.forTarget(target)
+              : NettyChannelBuilder.forAddress(clientOptions.getHost(), clientOptions.getPort());
+      channel = nettyChannel.sslContext(sslContext);
+    } else {
+      channel =
+          hasTarget
+              ? ManagedChannelBuilder.forTarget(target)
+              : ManagedChannelBuilder.forAddress(clientOptions.getHost(), clientOptions.getPort());
+      if (clientOptions.getUseSsl() == null || !clientOptions.getUseSsl()) {
+        channel.usePlaintext();
+      }
+    }
+    if (clientOptions.getLoadBalancingPolicy() != null) {
+      channel.defaultLoadBalancingPolicy(clientOptions.getLoadBalancingPolicy());
+    }
+    return channel;
+  }
+
+  private static ReloadingSslContext newSslContext(TlsOptions tlsOptions) {
+    try {
+      return new ReloadingSslContext(tlsOptions);
+    } catch (SSLException e) {
+      throw new IllegalStateException("Could not create TLS context for Temporal connection", e);
+    }
+  }
+
+  /**
+   * Shuts down channels built for clients, which also stops their name resolution refresh, and
+   * reloading of TLS contexts. Worker factories are beans made here, so they are shut down before.
+   */
+  @Override
+  public void destroy() {
+    channels.forEach(ManagedChannel::shutdown);
+    try {
+      for (ManagedChannel channel : channels) {
+        if (!channel.awaitTermination(CHANNEL_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          channel.shutdownNow();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      channels.forEach(ManagedChannel::shutdownNow);
+    }
+    sslContexts.forEach(ReloadingSslContext::close);
+  }
+
+  /** Adds interceptors of the starter after ones set in TemporalOptionsConfiguration. */
+  private WorkflowClientOptions withStarterInterceptors(
+      WorkflowClientOptions options,
+      WorkflowServiceStubs service,
       TemporalProperties temporalProperties) {
-    String namespace = temporalProperties.getNamespace();
+    List<WorkflowClientInterceptor> interceptors = new ArrayList<>();
+    if (options.getInterceptors() != null) {
+      interceptors.addAll(Arrays.asList(options.getInterceptors()));
+    }
+    // interceptors later in the array wrap earlier ones
+    AdaptiveLimitOptions adaptiveLimit = temporalProperties.getAdaptiveLimit();
+    if (adaptiveLimit != null && adaptiveLimit.isEnabled()) {
+      interceptors.add(
+          new AdaptiveLimitingInterceptor(
+              new AdaptiveConcurrencyLimiter(
+                  adaptiveLimit, service.getOptions().getMetricsScope())));
+    }
+    StartLimitOptions startLimits = temporalProperties.getStartLimits();
+    if (startLimits != null && startLimits.isConfigured()) {
+      interceptors.add(
+          new StartLimitingInterceptor(
+              new StartLimiter(startLimits, service.getOptions().getMetricsScope())));
+    }
+    // cache hits and deduplicated starts do not take permits of the limits
+    QueryCacheOptions queryCache = temporalProperties.getQueryCache();
+    if (queryCache != null && queryCache.isEnabled()) {
+      interceptors.add(
+          new QueryCachingInterceptor(
+              new QueryResultCache(queryCache, service.getOptions().getMetricsScope())));
+    }
+    StartDedupOptions startDedup = temporalProperties.getStartDedup();
+    if (startDedup != null && startDedup.isEnabled()) {
+      interceptors.add(
+          new StartDeduplicatingInterceptor(
+              new StartDeduplicator(startDedup, service.getOptions().getMetricsScope())));
+    }
+    return WorkflowClientOptions.newBuilder(options)
+        .setInterceptors(interceptors.toArray(new WorkflowClientInterceptor[0]))
+        .build();
+  }
+
+  /** Workers take the data converter of their client. */
+  private WorkflowClientOptions.Builder preBuildWorkflowClientOptions(
+      ClientOptions clientOptions,
+      WorkflowServiceStubs service,
+      TemporalProperties temporalProperties,
+      ProtobufMessageTypes protobufMessageTypes) {
+    String namespace = clientOptions.getNamespace();
     WorkflowClientOptions.Builder builder = WorkflowClientOptions.newBuilder();
     if (namespace != null && !namespace.trim().isEmpty()) {
       builder.setNamespace(namespace);
     }
+    // codecs encode from the last, so payloads are compressed before they are offloaded
+    List<PayloadCodec> codecs = new ArrayList<>();
+    ClaimCheckOptions claimCheck = temporalProperties.getClaimCheck();
+    if (claimCheck != null && claimCheck.isEnabled()) {
+      codecs.add(
+          new ClaimCheckPayloadCodec(
+              payloadStore.getIfAvailable(() -> newFileSystemPayloadStore(claimCheck)),
+              claimCheck,
+              service.getOptions().getMetricsScope()));
+    }
+    PayloadCompressionOptions compression = temporalProperties.getPayloadCompression();
+    if (compression != null && compression.isEnabled()) {
+      codecs.add(new CompressionPayloadCodec(compression));
+    }
+    DataConverter dataConverter =
+        DataConverters.withCodecs(
+            DataConverters.newDataConverter(
+                dataConverterOptions(clientOptions, temporalProperties),
+                objectMapper::getIfAvailable,
+                protobufMessageTypes),
+            codecs);
+    if (dataConverter != null) {
+      builder.setDataConverter(dataConverter);
+    }
     return builder;
   }
 
-  private boolean hostAndPortAreSet(TemporalProperties temporalProperties) {
-    return temporalProperties.getHost() != null
-        && !temporalProperties.getHost().isEmpty()
-        && temporalProperties.getPort() != null;
+  private static DataConverterOptions dataConverterOptions(
+      ClientOptions clientOptions, TemporalProperties temporalProperties) {
+    return clientOptions.getDataConverter() != null
+        ? clientOptions.getDataConverter()
+        : temporalProperties.getDataConverter();
+  }
+
+  /** Workflow factory fills message types of the client only when its converter uses them. */
+  private static boolean protobufStubTypes(
+      ClientOptions clientOptions, TemporalProperties temporalProperties) {
+    DataConverterOptions options = dataConverterOptions(clientOptions, temporalProperties);
+    return options != null && options.isProtobufStubTypes();
+  }
+
+  private static PayloadStore newFileSystemPayloadStore(ClaimCheckOptions claimCheck) {
+    if (claimCheck.getDirectory() == null) {
+      throw new IllegalStateException(
+          "Temporal claim check needs a PayloadStore bean or spring.temporal.claimCheck.directory");
+    }
+    return new FileSystemPayloadStore(Paths.get(claimCheck.getDirectory()));
+  }
+
+  private boolean connectionIsSet(ClientOptions clientOptions) {
+    return clientOptions.getTarget() != null && !clientOptions.getTarget().isEmpty()
+        || clientOptions.getHost() != null
+            && !clientOptions.getHost().isEmpty()
+            && clientOptions.getPort() != null;
   }
 
   private WorkflowServiceStubsOptions mapWorkflowServiceStubsOptions(
-      ManagedChannelBuilder<?> channel, TemporalProperties temporalProperties) {
+      ManagedChannel channel, ClientOptions clientOptions) {
     WorkflowServiceStubsOptions.Builder builder =
         WorkflowServiceStubsOptions.newBuilder()
-            .setChannel(channel.build())
-            .setEnableHttps(temporalProperties.getUseSsl());
-    WorkflowServiceStubOptions options = temporalProperties.getWorkflowServiceStubOptions();
+            .setChannel(channel)
+            .setEnableHttps(
+                Boolean.TRUE.equals(clientOptions.getUseSsl())
+                    || clientOptions.getTls() != null && clientOptions.getTls().isConfigured());
+    WorkflowServiceStubOptions options = clientOptions.getWorkflowServiceStubOptions();
     if (options != null) {
       ofNullable(options.getDisableHealthCheck()).ifPresent(builder::setDisableHealthCheck);
       ofNullable(options.getHealthCheckAttemptTimeout()).ifPresent(builder::setRpcTimeout);
@@ -132,9 +398,18 @@ public class TemporalBootstrapConfiguration {
       ofNullable(options.getRpcLongPollTimeout()).ifPresent(builder::setRpcLongPollTimeout);
       ofNullable(options.getRpcQueryTimeout()).ifPresent(builder::setRpcQueryTimeout);
       ofNullable(options.getRpcTimeout()).ifPresent(builder::setRpcTimeout);
-      ofNullable(options.getConnectionBackoffResetFrequency())
-          .ifPresent(builder::setConnectionBackoffResetFrequency);
-      ofNullable(options.getGrpcReconnectFrequency()).ifPresent(builder::setGrpcReconnectFrequency);
+      // Temporal SDK reconnects and resets backoff only of channels it builds itself, the starter
+      // always passes one
+      if (options.getGrpcReconnectFrequency() != null) {
+        log.warn(
+            "grpcReconnectFrequency is ignored for a channel built by the starter,"
+                + " use nameResolutionRefresh instead");
+      }
+      if (options.getConnectionBackoffResetFrequency() != null) {
+        log.warn(
+            "connectionBackoffResetFrequency is ignored for a channel built by the starter,"
+                + " use nameResolutionRefresh instead");
+      }
     }
     temporalOptionsConfiguration.modifyWorkflowServiceStubsOptions(builder);
     return builder.build();
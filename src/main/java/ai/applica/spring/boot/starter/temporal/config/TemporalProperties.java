@@ -33,8 +33,17 @@ public class TemporalProperties {
 
   private Integer port;
 
+  /** gRPC target URI like <code>dns:///frontend:7233</code>, used instead of host and port. */
+  private String target;
+
+  private String loadBalancingPolicy;
+
+  private Duration nameResolutionRefresh;
+
   private Boolean useSsl;
 
+  private TlsOptions tls;
+
   private boolean createWorkers = true;
 
   private String namespace = "default";
@@ -53,6 +62,42 @@ public class TemporalProperties {
 
   private WorkflowServiceStubOptions workflowServiceStubOptions;
 
+  private WarmUpOptions warmUp = new WarmUpOptions();
+
+  private Map<String, ClientOptions> clients;
+
+  private QueryOptions queries = new QueryOptions();
+
+  private StartLimitOptions startLimits;
+
+  private AdaptiveLimitOptions adaptiveLimit;
+
+  private QueryCacheOptions queryCache;
+
+  private StartDedupOptions startDedup;
+
+  private BulkStartOptions bulkStart = new BulkStartOptions();
+
+  private SignalCoalescingOptions signalCoalescing = new SignalCoalescingOptions();
+
+  private HandleCacheOptions handleCache = new HandleCacheOptions();
+
+  private ListingOptions listing = new ListingOptions();
+
+  private BatchOptions batch = new BatchOptions();
+
+  private OutboxOptions outbox = new OutboxOptions();
+
+  private StartsWorkflowOptions startsWorkflow = new StartsWorkflowOptions();
+
+  private DelayedStartOptions delayedStart = new DelayedStartOptions();
+
+  private DataConverterOptions dataConverter = new DataConverterOptions();
+
+  private PayloadCompressionOptions payloadCompression = new PayloadCompressionOptions();
+
+  private ClaimCheckOptions claimCheck = new ClaimCheckOptions();
+
   private boolean addedDefaultsToWorkflows = false;
 
   private boolean addedDefaultsToActivities = false;
@@ -99,6 +144,344 @@ public class TemporalProperties {
     private Duration grpcReconnectFrequency;
   }
 
+  /**
+   * Connection of an additional, named client. Workflows and activities select it with <code>
+   * client</code> attribute of their annotation.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class ClientOptions {
+    private String host;
+    private Integer port;
+    private String target;
+    private String loadBalancingPolicy;
+    private Duration nameResolutionRefresh;
+    private Boolean useSsl;
+    private TlsOptions tls;
+    private String namespace = "default";
+    private WorkflowServiceStubOptions workflowServiceStubOptions;
+    /** Converter of this client and its workers, top level one when not set. */
+    private DataConverterOptions dataConverter;
+  }
+
+  /**
+   * TLS of the connection. Setting any of the files turns TLS on. Private key has to be in PKCS#8
+   * PEM format.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class TlsOptions {
+    private String certChainFile;
+    private String privateKeyFile;
+    private String trustCertCollectionFile;
+    private TlsProvider provider = TlsProvider.AUTO;
+    /** How often to check files for changes, certificates are not reloaded if not set. */
+    private Duration reloadInterval;
+
+    public boolean isConfigured() {
+      return certChainFile != null || privateKeyFile != null || trustCertCollectionFile != null;
+    }
+  }
+
+  public enum TlsProvider {
+    /** OpenSSL when netty-tcnative is available, JDK otherwise. */
+    AUTO,
+    JDK,
+    OPENSSL
+  }
+
+  /**
+   * Connection warm-up done while the application context starts, so that the first request does
+   * not pay for DNS, TCP, TLS and HTTP/2 setup.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class WarmUpOptions {
+    private boolean enabled = false;
+    private Duration timeout = Duration.ofSeconds(10);
+    private boolean describeNamespace = true;
+    private boolean failOnError = true;
+  }
+
+  /**
+   * Defaults of queries made through <code>WorkflowFactory#query</code>. When hedge delay is set
+   * and the answer does not come within it, the same query is sent again and the first answer is
+   * used.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class QueryOptions {
+    private Duration deadline = Duration.ofSeconds(10);
+    private Duration hedgeDelay;
+    /** Queries in flight of <code>WorkflowFactory#queryAll</code>. */
+    private int fanOutConcurrency = 64;
+  }
+
+  /**
+   * Defaults of senders made by <code>WorkflowFactory#newSignalCoalescer</code>. Signals to the
+   * same workflow are delivered together after flush interval or when max batch size is reached.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class SignalCoalescingOptions {
+    private Duration flushInterval = Duration.ofMillis(100);
+    private int maxBatchSize = 100;
+  }
+
+  /** Size of the cache of stubs returned by <code>WorkflowFactory#getHandle</code>. */
+  @Data
+  @NoArgsConstructor
+  public static class HandleCacheOptions {
+    private long maxSize = 1_000;
+  }
+
+  /** Paging of <code>WorkflowFactory#listExecutions</code>. */
+  @Data
+  @NoArgsConstructor
+  public static class ListingOptions {
+    /** Executions asked for in one ListWorkflowExecutions call. */
+    private int pageSize = 1_000;
+  }
+
+  /**
+   * Payload converters of clients and their workers. With SDK mapper, JSON format and both
+   * protobuf options off the SDK data converter is used unchanged.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class DataConverterOptions {
+    /** Object mapper of the JSON converter. */
+    private JsonMapper jsonMapper = JsonMapper.SDK;
+    /** Format of payloads written by Jackson, JSON ones are read whatever is set. */
+    private JacksonFormat jacksonFormat = JacksonFormat.JSON;
+    /** Writes protobuf messages in binary encoding instead of protobuf JSON. */
+    private boolean protobufFirst = false;
+    /**
+     * Writes in binary encoding the protobuf messages used in methods of workflow interfaces,
+     * <code>@ActivityStub</code> fields and activities of the workers of the client and of its
+     * <code>@StartsWorkflow</code> methods, other messages in protobuf JSON.
+     */
+    private boolean protobufStubTypes = false;
+  }
+
+  public enum JsonMapper {
+    /** Mapper of the SDK JSON converter. */
+    SDK,
+    /** <code>ObjectMapper</code> bean of the application, with its modules and settings. */
+    SPRING,
+    /** SDK settings with Blackbird module, needs <code>jackson-module-blackbird</code>. */
+    BLACKBIRD,
+    /** SDK settings with Afterburner module, needs <code>jackson-module-afterburner</code>. */
+    AFTERBURNER
+  }
+
+  public enum JacksonFormat {
+    JSON,
+    /** Binary JSON, needs <code>jackson-dataformat-smile</code>. */
+    SMILE,
+    /** Needs <code>jackson-dataformat-cbor</code>. */
+    CBOR
+  }
+
+  /**
+   * Compression of payloads written by clients and their workers. Payloads are compressed only when
+   * they are at least threshold bytes long and compression makes them smaller; all algorithms are
+   * read whatever is configured, when their library is present.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class PayloadCompressionOptions {
+    private boolean enabled = false;
+    /** Falls back to DEFLATE when the library of the algorithm is not on the classpath. */
+    private CompressionAlgorithm algorithm = CompressionAlgorithm.LZ4;
+    /** Size of the serialized payload below which it is written as it is. */
+    private int threshold = 4_096;
+    /** Level of the algorithm, its default when not set. */
+    private Integer level;
+  }
+
+  /**
+   * Offload of large payloads of clients and their workers to a <code>PayloadStore</code>, the
+   * history keeps only a reference. A <code>PayloadStore</code> bean is used when there is one,
+   * otherwise payloads are stored in files under directory.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class ClaimCheckOptions {
+    private boolean enabled = false;
+    /** Size of the serialized payload, after compression, from which it is offloaded. */
+    private int threshold = 128 * 1024;
+    /** Directory of the file system store, shared by all clients and workers. */
+    private String directory;
+    /** Bytes of offloaded payloads kept in memory for replays. */
+    private long cacheMaxBytes = 64 * 1024 * 1024;
+  }
+
+  public enum CompressionAlgorithm {
+    /** Needs <code>org.lz4:lz4-java</code>. */
+    LZ4,
+    /** Needs <code>com.github.luben:zstd-jni</code>. */
+    ZSTD,
+    /** Zlib format of <code>java.util.zip</code>. */
+    DEFLATE
+  }
+
+  /** Defaults of schedulers made by <code>WorkflowFactory#newDelayedStartScheduler</code>. */
+  @Data
+  @NoArgsConstructor
+  public static class DelayedStartOptions {
+    /** Precision of start times. */
+    private Duration tickDuration = Duration.ofMillis(100);
+    /** Buckets of the timing wheel, one turn covers wheelSize ticks. */
+    private int wheelSize = 512;
+    /** Starts in flight at the same time. */
+    private int concurrency = 8;
+    /** Delay before a failed start is tried again. */
+    private Duration retryInterval = Duration.ofSeconds(30);
+    /** Attempts after which a start is removed from the journal and no longer retried. */
+    private int maxAttempts = 10;
+    /** Records of finished starts after which the journal is rewritten. */
+    private int compactionThreshold = 10_000;
+    /** Forces every journal write to disk, not only to the operating system. */
+    private boolean syncWrites = false;
+  }
+
+  /** Executor of starts made by methods annotated with <code>@StartsWorkflow</code>. */
+  @Data
+  @NoArgsConstructor
+  public static class StartsWorkflowOptions {
+    /** Starts in flight at the same time. */
+    private int concurrency = 8;
+    /** Starts waiting for a thread, further starts fail at once. */
+    private int queueCapacity = 1_000;
+  }
+
+  /**
+   * Table of workflow starts written in the transaction of the caller and dispatched after commit.
+   * Needs spring-jdbc and a <code>DataSource</code>.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class OutboxOptions {
+    private boolean enabled = false;
+    private String tableName = "temporal_workflow_outbox";
+    /** Creates the table on startup if it does not exist. */
+    private boolean initializeSchema = true;
+    /** Period of draining when no commit woke the dispatcher up. */
+    private Duration pollInterval = Duration.ofSeconds(1);
+    /** Starts read from the table at once. */
+    private int batchSize = 100;
+    /** Starts in flight at the same time. */
+    private int parallelism = 8;
+    /** Attempts after which a start is left in the table and no longer retried. */
+    private int maxAttempts = 10;
+    private Duration retryInitialInterval = Duration.ofSeconds(1);
+    private Duration retryMaxInterval = Duration.ofMinutes(5);
+    /**
+     * Time a dispatcher holds starts it read, after it starts left by a stopped instance are made
+     * by another one. Longer than a batch takes to start.
+     */
+    private Duration claimTimeout = Duration.ofMinutes(1);
+  }
+
+  /** Defaults of batch operations made by <code>WorkflowFactory#newBatchOperation</code>. */
+  @Data
+  @NoArgsConstructor
+  public static class BatchOptions {
+    /** Signal, cancel or terminate calls in flight at the same time. */
+    private int concurrency = 16;
+    /** Calls per second, not limited when not set. */
+    private Double ratePerSecond = 100d;
+  }
+
+  /** Defaults of <code>WorkflowFactory#startAll</code>. */
+  @Data
+  @NoArgsConstructor
+  public static class BulkStartOptions {
+    /** Starts in flight at the same time. */
+    private int parallelism = 32;
+  }
+
+  /**
+   * Client side limits of start, signal-with-start and signal calls. Rates are in calls per second,
+   * limits are off when not set.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class StartLimitOptions {
+    private Double ratePerSecond;
+    /** Calls allowed at once after idle time, rounded up rate by default. */
+    private Integer burst;
+    /** Start rate per workflow type. */
+    private Map<String, Double> workflowTypeRates;
+
+    private Integer maxInFlight;
+    private LimitMode mode = LimitMode.BLOCK;
+    /** Longest wait in {@link LimitMode#BLOCK} mode. */
+    private Duration maxWait = Duration.ofSeconds(30);
+    /** Queued calls in {@link LimitMode#ASYNC_QUEUE} mode. */
+    private int queueCapacity = 1000;
+
+    public boolean isConfigured() {
+      return ratePerSecond != null
+          || maxInFlight != null
+          || workflowTypeRates != null && !workflowTypeRates.isEmpty();
+    }
+  }
+
+  public enum LimitMode {
+    /** Wait for permit up to max wait. */
+    BLOCK,
+    /** Fail when there is no permit at once. */
+    FAIL_FAST,
+    /** Queue calls and run them on limiter threads, callers of async methods do not wait. */
+    ASYNC_QUEUE
+  }
+
+  /**
+   * Concurrency limit of client calls adapted to the service: it grows additively while calls are
+   * fast and shrinks multiplicatively when latency exceeds tolerance or the server answers
+   * RESOURCE_EXHAUSTED.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class AdaptiveLimitOptions {
+    private boolean enabled = false;
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 200;
+    /** Limit is multiplied by it on overload. */
+    private double backoffRatio = 0.9;
+    /** Call slower than average latency of its call type times tolerance counts as overload. */
+    private double latencyTolerance = 2.0;
+
+    private Duration maxWait = Duration.ofSeconds(30);
+  }
+
+  /**
+   * Client side cache of query results. Entries of a workflow are dropped when it is signalled,
+   * cancelled or terminated through the client.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class QueryCacheOptions {
+    private boolean enabled = false;
+    private Duration ttl = Duration.ofSeconds(5);
+    private long maxSize = 10_000;
+  }
+
+  /**
+   * Client side record of workflows started through the client. Start of a workflow id recorded
+   * within TTL returns the recorded execution without a call.
+   */
+  @Data
+  @NoArgsConstructor
+  public static class StartDedupOptions {
+    private boolean enabled = false;
+    private Duration ttl = Duration.ofMinutes(1);
+    private long maxSize = 10_000;
+  }
+
   @Data
   @NoArgsConstructor
   public static class ActivityStubOptions {
@@ -180,6 +563,26 @@ public class TemporalProperties {
     return activityWorkers;
   }
 
+  /**
+   * Connection settings of the default client, the one configured at the top level of properties.
+   *
+   * @return
+   */
+  public ClientOptions defaultClientOptions() {
+    ClientOptions options = new ClientOptions();
+    options.setHost(host);
+    options.setPort(port);
+    options.setTarget(target);
+    options.setLoadBalancingPolicy(loadBalancingPolicy);
+    options.setNameResolutionRefresh(nameResolutionRefresh);
+    options.setUseSsl(useSsl);
+    options.setTls(tls);
+    options.setNamespace(namespace);
+    options.setWorkflowServiceStubOptions(workflowServiceStubOptions);
+    options.setDataConverter(dataConverter);
+    return options;
+  }
+
   public ActivityStubOptions getActivityStubOptionsForField(Field field) {
     Map<String, ActivityStubOptions> stubMap = getActivityStubs();
     if (stubMap != null) {
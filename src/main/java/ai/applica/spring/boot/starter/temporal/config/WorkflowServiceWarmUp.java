@@ -0,0 +1,97 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.config;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.WarmUpOptions;
+import com.uber.m3.tally.Scope;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.temporal.api.workflowservice.v1.DescribeNamespaceRequest;
+import io.temporal.client.WorkflowClient;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opens the gRPC channel of a client eagerly and checks that the frontend is serving. Runs while
+ * the client bean is created so the context does not report ready before the connection is usable.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class WorkflowServiceWarmUp {
+
+  public static final String WARM_UP_LATENCY = "temporal_starter_warm_up_latency";
+  public static final String WARM_UP_FAILURE = "temporal_starter_warm_up_failure";
+
+  private static final String WORKFLOW_SERVICE = "temporal.api.workflowservice.v1.WorkflowService";
+
+  private final WarmUpOptions options;
+
+  /**
+   * Runs health check and, if configured, <code>DescribeNamespace</code> within the configured
+   * timeout.
+   *
+   * @param workflowClient
+   * @throws IllegalStateException when warm-up fails and failOnError is set
+   */
+  public void warmUp(WorkflowClient workflowClient) {
+    WorkflowServiceStubs service = workflowClient.getWorkflowServiceStubs();
+    String namespace = workflowClient.getOptions().getNamespace();
+    Scope scope = service.getOptions().getMetricsScope();
+    long start = System.nanoTime();
+    long deadline = start + options.getTimeout().toNanos();
+    try {
+      // the first call on a lazy channel pays for name resolution and connection setup
+      HealthCheckResponse health =
+          HealthGrpc.newBlockingStub(service.getRawChannel())
+              .withDeadlineAfter(remaining(deadline), TimeUnit.NANOSECONDS)
+              .check(HealthCheckRequest.newBuilder().setService(WORKFLOW_SERVICE).build());
+      if (health.getStatus() != HealthCheckResponse.ServingStatus.SERVING) {
+        throw new IllegalStateException(
+            "Temporal frontend health check returned " + health.getStatus());
+      }
+      if (options.isDescribeNamespace()) {
+        service
+            .blockingStub()
+            .withDeadlineAfter(remaining(deadline), TimeUnit.NANOSECONDS)
+            .describeNamespace(
+                DescribeNamespaceRequest.newBuilder().setNamespace(namespace).build());
+      }
+      long elapsed = System.nanoTime() - start;
+      scope.timer(WARM_UP_LATENCY).record(com.uber.m3.util.Duration.ofNanos(elapsed));
+      log.info(
+          "Temporal connection for namespace {} warmed up in {} ms",
+          namespace,
+          TimeUnit.NANOSECONDS.toMillis(elapsed));
+    } catch (StatusRuntimeException | IllegalStateException e) {
+      scope.counter(WARM_UP_FAILURE).inc(1);
+      if (options.isFailOnError()) {
+        throw new IllegalStateException(
+            "Temporal connection warm-up failed for namespace " + namespace, e);
+      }
+      log.warn("Temporal connection warm-up failed for namespace {}", namespace, e);
+    }
+  }
+
+  private static long remaining(long deadline) {
+    return Math.max(0, deadline - System.nanoTime());
+  }
+}
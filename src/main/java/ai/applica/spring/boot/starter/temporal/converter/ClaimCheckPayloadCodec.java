@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.ClaimCheckOptions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.payload.codec.PayloadCodec;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes payloads of at least threshold bytes to a {@link PayloadStore} and puts a reference with
+ * the SHA-256 digest of the payload into the history instead. References are resolved when the
+ * payload is decoded, through a cache of recently used payloads bounded by their size, so replays
+ * of the same histories do not read the store again. Payloads written by this codec are cached
+ * too.
+ */
+public class ClaimCheckPayloadCodec implements PayloadCodec {
+
+  public static final String CLAIM_CHECK_OFFLOADED = "temporal_starter_claim_check_offloaded";
+  public static final String CLAIM_CHECK_CACHE_HIT = "temporal_starter_claim_check_cache_hit";
+  public static final String CLAIM_CHECK_CACHE_MISS = "temporal_starter_claim_check_cache_miss";
+
+  static final String ENCODING = "encoding";
+  static final ByteString CLAIM_CHECK_ENCODING = ByteString.copyFromUtf8("binary/claim-check");
+  static final String ORIGINAL_SIZE = "original-size";
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final PayloadStore store;
+  private final int threshold;
+  private final Scope scope;
+  private final Cache<String, byte[]> cache;
+
+  public ClaimCheckPayloadCodec(PayloadStore store, ClaimCheckOptions options, Scope scope) {
+    this.store = store;
+    this.threshold = options.getThreshold();
+    this.scope = scope;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(options.getCacheMaxBytes())
+            .<String, byte[]>weigher((key, data) -> data.length)
+            .build();
+  }
+
+  @Override
+  public List<Payload> encode(List<Payload> payloads) {
+    return payloads.stream().map(this::encode).collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Payload> decode(List<Payload> payloads) {
+    return payloads.stream().map(this::decode).collect(Collectors.toList());
+  }
+
+  Payload encode(Payload payload) {
+    int size = payload.getSerializedSize();
+    if (size < threshold) {
+      return payload;
+    }
+    byte[] data = payload.toByteArray();
+    String key = key(data);
+    if (cache.getIfPresent(key) == null) {
+      store.put(key, data);
+      cache.put(key, data);
+    }
+    scope.counter(CLAIM_CHECK_OFFLOADED).inc(1);
+    return Payload.newBuilder()
+        .putMetadata(ENCODING, CLAIM_CHECK_ENCODING)
+        .putMetadata(ORIGINAL_SIZE, ByteString.copyFromUtf8(Integer.toString(size)))
+        .setData(ByteString.copyFromUtf8(key))
+        .build();
+  }
+
+  Payload decode(Payload payload) {
+    if (!CLAIM_CHECK_ENCODING.equals(payload.getMetadataMap().get(ENCODING))) {
+      return payload;
+    }
+    String key = payload.getData().toStringUtf8();
+    byte[] data = cache.getIfPresent(key);
+    if (data != null) {
+      scope.counter(CLAIM_CHECK_CACHE_HIT).inc(1);
+    } else {
+      scope.counter(CLAIM_CHECK_CACHE_MISS).inc(1);
+      data = store.get(key);
+      if (data == null) {
+        throw new IllegalStateException(
+            "Offloaded payload " + key + " is not in the payload store");
+      }
+      cache.put(key, data);
+    }
+    try {
+      return Payload.parseFrom(data);
+    } catch (InvalidProtocolBufferException e) {
+      throw new DataConverterException("Offloaded payload " + key + " is corrupted", e);
+    }
+  }
+
+  static String key(byte[] data) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+      char[] hex = new char[digest.length * 2];
+      for (int i = 0; i < digest.length; i++) {
+        hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+        hex[2 * i + 1] = HEX[digest[i] & 0xf];
+      }
+      return new String(hex);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.CompressionAlgorithm;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.PayloadCompressionOptions;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.payload.codec.PayloadCodec;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compresses payloads of at least threshold bytes. The whole serialized payload, metadata
+ * included, is compressed into the data of a new payload whose encoding names the algorithm, so
+ * decoding restores the payload exactly. Payloads that do not get smaller are written as they are.
+ */
+@Slf4j
+public class CompressionPayloadCodec implements PayloadCodec {
+
+  static final String ENCODING = "encoding";
+  static final String ORIGINAL_SIZE = "original-size";
+
+  private final Compressor compressor;
+  private final ByteString encoding;
+  private final int threshold;
+  private final Map<String, Compressor> decompressors = new ConcurrentHashMap<>();
+
+  public CompressionPayloadCodec(PayloadCompressionOptions options) {
+    this.compressor = Compressor.of(options.getAlgorithm(), options.getLevel());
+    this.encoding = ByteString.copyFromUtf8(compressor.encoding());
+    this.threshold = options.getThreshold();
+    if (options.getAlgorithm() != CompressionAlgorithm.DEFLATE
+        && compressor instanceof Compressor.Zlib) {
+      log.warn(
+          "{} compression library is not on the classpath, payloads are compressed with DEFLATE",
+          options.getAlgorithm());
+    }
+  }
+
+  @Override
+  public List<Payload> encode(List<Payload> payloads) {
+    return payloads.stream().map(this::encode).collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Payload> decode(List<Payload> payloads) {
+    return payloads.stream().map(this::decode).collect(Collectors.toList());
+  }
+
+  Payload encode(Payload payload) {
+    int size = payload.getSerializedSize();
+    if (size < threshold) {
+      return payload;
+    }
+    byte[] compressed = compressor.compress(payload.toByteArray());
+    if (compressed.length >= size) {
+      return payload;
+    }
+    return Payload.newBuilder()
+        .putMetadata(ENCODING, encoding)
+        .putMetadata(ORIGINAL_SIZE, ByteString.copyFromUtf8(Integer.toString(size)))
+        .setData(UnsafeByteOperations.unsafeWrap(compressed))
+        .build();
+  }
+
+  Payload decode(Payload payload) {
+    ByteString encoding = payload.getMetadataMap().get(ENCODING);
+    ByteString originalSize = payload.getMetadataMap().get(ORIGINAL_SIZE);
+    // payloads compressed by the codec carry their original size
+    if (encoding == null
+        || originalSize == null && !Compressor.isCompressed(encoding.toStringUtf8())) {
+      return payload;
+    }
+    Compressor decompressor =
+        decompressors.computeIfAbsent(encoding.toStringUtf8(), Compressor::forEncoding);
+    if (decompressor == null) {
+      throw new DataConverterException(
+          "Payload is compressed with "
+              + encoding.toStringUtf8()
+              + ", which is unknown or whose library is not on the classpath");
+    }
+    try {
+      return Payload.parseFrom(
+          decompressor.decompress(
+              payload.getData().toByteArray(),
+              originalSize == null ? -1 : Integer.parseInt(originalSize.toStringUtf8())));
+    } catch (InvalidProtocolBufferException | RuntimeException e) {
+      throw new DataConverterException("Cannot decompress payload", e);
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.CompressionAlgorithm;
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Compression algorithm of {@link CompressionPayloadCodec}. Implementations using optional
+ * libraries are created only after the library was found, so their classes are not loaded
+ * otherwise.
+ */
+interface Compressor {
+
+  String LZ4_ENCODING = "binary/lz4";
+  String ZSTD_ENCODING = "binary/zstd";
+  String ZLIB_ENCODING = "binary/zlib";
+  /** Largest buffer allocated up front for a decompressed payload. */
+  int MAX_INITIAL_OUTPUT = 1 << 20;
+
+  /** Value of the encoding metadata of compressed payloads. */
+  String encoding();
+
+  byte[] compress(byte[] data);
+
+  /**
+   * @param data
+   * @param originalSize size before compression, -1 when unknown
+   */
+  byte[] decompress(byte[] data, int originalSize);
+
+  /**
+   * @param level null for the default level of the algorithm
+   * @return compressor of the algorithm, DEFLATE when its library is not on the classpath
+   */
+  static Compressor of(CompressionAlgorithm algorithm, Integer level) {
+    if (algorithm == CompressionAlgorithm.LZ4 && Lz4.isAvailable()) {
+      return new Lz4(level);
+    }
+    if (algorithm == CompressionAlgorithm.ZSTD && Zstandard.isAvailable()) {
+      return new Zstandard(level);
+    }
+    return new Zlib(level);
+  }
+
+  /**
+   * @return compressor reading the encoding, null when the encoding is not a known compressed one
+   *     or its library is not on the classpath
+   */
+  static Compressor forEncoding(String encoding) {
+    switch (encoding) {
+      case LZ4_ENCODING:
+        return Lz4.isAvailable() ? new Lz4(null) : null;
+      case ZSTD_ENCODING:
+        return Zstandard.isAvailable() ? new Zstandard(null) : null;
+      case ZLIB_ENCODING:
+        return new Zlib(null);
+      default:
+        return null;
+    }
+  }
+
+  static boolean isCompressed(String encoding) {
+    return LZ4_ENCODING.equals(encoding)
+        || ZSTD_ENCODING.equals(encoding)
+        || ZLIB_ENCODING.equals(encoding);
+  }
+
+  /**
+   * Output of a decompression, growing as data is written. Original size comes with the payload and
+   * is not trusted beyond {@link #MAX_INITIAL_OUTPUT}.
+   */
+  static ByteArrayOutputStream newOutput(byte[] data, int originalSize) {
+    return new ByteArrayOutputStream(
+        originalSize > 0 ? Math.min(originalSize, MAX_INITIAL_OUTPUT) : data.length * 4);
+  }
+
+  final class Zlib implements Compressor {
+    private final int level;
+
+    Zlib(Integer level) {
+      this.level = level == null ? Deflater.DEFAULT_COMPRESSION : level;
+    }
+
+    @Override
+    public String encoding() {
+      return ZLIB_ENCODING;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+      Deflater deflater = new Deflater(level);
+      try {
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+          out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+      } finally {
+        deflater.end();
+      }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int originalSize) {
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(data);
+        ByteArrayOutputStream out = newOutput(data, originalSize);
+        byte[] buffer = new byte[8192];
+        while (!inflater.finished()) {
+          int length = inflater.inflate(buffer);
+          if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            throw new IllegalArgumentException("Truncated zlib payload");
+          }
+          out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+      } catch (DataFormatException e) {
+        throw new IllegalArgumentException("Corrupted zlib payload", e);
+      } finally {
+        inflater.end();
+      }
+    }
+  }
+
+  final class Lz4 implements Compressor {
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    Lz4(Integer level) {
+      LZ4Factory factory = LZ4Factory.fastestInstance();
+      this.compressor = level == null ? factory.fastCompressor() : factory.highCompressor(level);
+      this.decompressor = factory.fastDecompressor();
+    }
+
+    static boolean isAvailable() {
+      return ClassUtils.isPresent("net.jpountz.lz4.LZ4Factory", Compressor.class.getClassLoader());
+    }
+
+    @Override
+    public String encoding() {
+      return LZ4_ENCODING;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+      return compressor.compress(data);
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int originalSize) {
+      if (originalSize < 0) {
+        throw new IllegalArgumentException("LZ4 payload without original size");
+      }
+      // a byte of an LZ4 block expands to at most 255 bytes
+      if (originalSize > (long) data.length * 255) {
+        throw new IllegalArgumentException(
+            "LZ4 payload of " + data.length + " bytes cannot have original size " + originalSize);
+      }
+      return decompressor.decompress(data, originalSize);
+    }
+  }
+
+  final class Zstandard implements Compressor {
+    private final int level;
+
+    Zstandard(Integer level) {
+      this.level = level == null ? 3 : level;
+    }
+
+    static boolean isAvailable() {
+      return ClassUtils.isPresent("com.github.luben.zstd.Zstd", Compressor.class.getClassLoader());
+    }
+
+    @Override
+    public String encoding() {
+      return ZSTD_ENCODING;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+      return Zstd.compress(data, level);
+    }
+
+    /** Streams the frame, so memory follows the data rather than the size in metadata. */
+    @Override
+    public byte[] decompress(byte[] data, int originalSize) {
+      try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(data))) {
+        ByteArrayOutputStream out = newOutput(data, originalSize);
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+          out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Corrupted Zstandard payload", e);
+      }
+    }
+  }
+}
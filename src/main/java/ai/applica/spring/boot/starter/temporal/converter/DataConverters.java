@@ -0,0 +1,203 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.DataConverterOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.JacksonFormat;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.JsonMapper;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import io.temporal.common.converter.ByteArrayPayloadConverter;
+import io.temporal.common.converter.CodecDataConverter;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.common.converter.NullPayloadConverter;
+import io.temporal.common.converter.PayloadConverter;
+import io.temporal.common.converter.ProtobufJsonPayloadConverter;
+import io.temporal.common.converter.ProtobufPayloadConverter;
+import io.temporal.payload.codec.PayloadCodec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Builds the data converter selected by {@link DataConverterOptions}. A value is written by the
+ * first converter of the chain that accepts it and read by the converter named in the encoding of
+ * the payload, so payloads written with any of the chains can be read by the others.
+ */
+public final class DataConverters {
+
+  private static final String BLACKBIRD_MODULE =
+      "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+  private static final String AFTERBURNER_MODULE =
+      "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+  private static final String JAVA_TIME_MODULE =
+      "com.fasterxml.jackson.datatype.jsr310.JavaTimeModule";
+  private static final String JDK8_MODULE = "com.fasterxml.jackson.datatype.jdk8.Jdk8Module";
+  private static final String SMILE_FACTORY =
+      "com.fasterxml.jackson.dataformat.smile.SmileFactory";
+  private static final String CBOR_FACTORY = "com.fasterxml.jackson.dataformat.cbor.CBORFactory";
+
+  private DataConverters() {}
+
+  /**
+   * @param options
+   * @param springObjectMapper supplies the application mapper for {@link JsonMapper#SPRING}, may
+   *     return null when there is none
+   * @param protobufMessageTypes messages written in binary when {@link
+   *     DataConverterOptions#isProtobufStubTypes()} is on, filled as the client is wired
+   * @return converter to set on client options, null when the SDK default should be kept
+   * @throws IllegalStateException when the selected mapper or module is not available
+   */
+  public static DataConverter newDataConverter(
+      DataConverterOptions options,
+      Supplier<ObjectMapper> springObjectMapper,
+      ProtobufMessageTypes protobufMessageTypes) {
+    if (options == null
+        || options.getJsonMapper() == JsonMapper.SDK
+            && options.getJacksonFormat() == JacksonFormat.JSON
+            && !options.isProtobufFirst()
+            && !options.isProtobufStubTypes()) {
+      return null;
+    }
+    ObjectMapper jsonMapper = objectMapper(options.getJsonMapper(), springObjectMapper);
+    List<PayloadConverter> converters = new ArrayList<>();
+    converters.add(new NullPayloadConverter());
+    converters.add(new ByteArrayPayloadConverter());
+    if (options.isProtobufFirst()) {
+      converters.add(new ProtobufPayloadConverter());
+    } else if (options.isProtobufStubTypes()) {
+      converters.add(new RegisteredProtobufPayloadConverter(protobufMessageTypes));
+    }
+    // kept when protobuf is binary to read payloads written in protobuf JSON
+    converters.add(new ProtobufJsonPayloadConverter());
+    // once the chain is replaced, binary formats on the classpath are read whatever is written
+    boolean smile = options.getJacksonFormat() == JacksonFormat.SMILE;
+    if (smile || isPresent(SMILE_FACTORY)) {
+      converters.add(
+          new JacksonBinaryPayloadConverter(
+              binaryMapper(jsonMapper, SMILE_FACTORY),
+              JacksonBinaryPayloadConverter.SMILE_ENCODING,
+              smile));
+    }
+    boolean cbor = options.getJacksonFormat() == JacksonFormat.CBOR;
+    if (cbor || isPresent(CBOR_FACTORY)) {
+      converters.add(
+          new JacksonBinaryPayloadConverter(
+              binaryMapper(jsonMapper, CBOR_FACTORY),
+              JacksonBinaryPayloadConverter.CBOR_ENCODING,
+              cbor));
+    }
+    // kept when Jackson writes a binary format to read payloads written in JSON
+    converters.add(new JacksonJsonPayloadConverter(jsonMapper));
+    return new DefaultDataConverter(converters.toArray(new PayloadConverter[0]));
+  }
+
+  /**
+   * Wraps the converter with codecs. Codecs encode from the last to the first, so the first one
+   * sees payloads encoded by all others, and decode in the opposite order.
+   *
+   * @param converter null for the SDK default
+   * @param codecs
+   * @return the converter as it is when there are no codecs
+   */
+  public static DataConverter withCodecs(DataConverter converter, List<PayloadCodec> codecs) {
+    if (codecs.isEmpty()) {
+      return converter;
+    }
+    return new CodecDataConverter(
+        converter == null ? DefaultDataConverter.newDefaultInstance() : converter, codecs);
+  }
+
+  /**
+   * Mapper configured like the one of the SDK JSON converter, so payloads written by either are
+   * read by the other. Private fields are serialized, also of classes without getters.
+   */
+  public static ObjectMapper newSdkObjectMapper() {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.configure(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE, false);
+    mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    for (String className : new String[] {JAVA_TIME_MODULE, JDK8_MODULE}) {
+      if (isPresent(className)) {
+        mapper.registerModule((Module) instantiate(className));
+      }
+    }
+    mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    return mapper;
+  }
+
+  static ObjectMapper objectMapper(
+      JsonMapper jsonMapper, Supplier<ObjectMapper> springObjectMapper) {
+    switch (jsonMapper) {
+      case SPRING:
+        ObjectMapper mapper = springObjectMapper.get();
+        if (mapper == null) {
+          throw new IllegalStateException(
+              "Temporal data converter is set to Spring ObjectMapper but there is no such bean");
+        }
+        return mapper;
+      case BLACKBIRD:
+        return newSdkObjectMapper().registerModule((Module) instantiate(BLACKBIRD_MODULE));
+      case AFTERBURNER:
+        return newSdkObjectMapper().registerModule((Module) instantiate(AFTERBURNER_MODULE));
+      default:
+        return newSdkObjectMapper();
+    }
+  }
+
+  /**
+   * Mapper of a binary format with the settings, modules and naming of the JSON mapper, also when
+   * the JSON mapper is the one of the application.
+   */
+  static ObjectMapper binaryMapper(ObjectMapper jsonMapper, String factoryClassName) {
+    ObjectMapper mapper =
+        new ObjectMapper(
+            (JsonFactory) instantiate(factoryClassName),
+            ((DefaultSerializerProvider) jsonMapper.getSerializerProvider()).copy(),
+            ((DefaultDeserializationContext) jsonMapper.getDeserializationContext()).copy());
+    mapper.setSerializerFactory(jsonMapper.getSerializerFactory());
+    mapper.setConfig(jsonMapper.getSerializationConfig());
+    mapper.setConfig(jsonMapper.getDeserializationConfig());
+    mapper.setInjectableValues(jsonMapper.getInjectableValues());
+    return mapper;
+  }
+
+  private static boolean isPresent(String className) {
+    return ClassUtils.isPresent(className, DataConverters.class.getClassLoader());
+  }
+
+  /** Modules and formats are optional dependencies, so they are not referenced directly. */
+  private static Object instantiate(String className) {
+    ClassLoader classLoader = DataConverters.class.getClassLoader();
+    if (!ClassUtils.isPresent(className, classLoader)) {
+      throw new IllegalStateException(
+          "Temporal data converter needs " + className + " which is not on the classpath");
+    }
+    return BeanUtils.instantiateClass(ClassUtils.resolveClassName(className, classLoader));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+/**
+ * Stores every payload in a file named by its key, in subdirectories by the first two characters
+ * of the key. Files are written to a temporary file and moved into place, so readers never see a
+ * partial file, and a payload that is already stored is not written again. The directory has to
+ * be shared by all clients and workers of the namespace, e.g. on a network file system.
+ */
+public class FileSystemPayloadStore implements PayloadStore {
+
+  private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+
+  private final Path directory;
+
+  public FileSystemPayloadStore(Path directory) {
+    this.directory = directory;
+  }
+
+  @Override
+  public void put(String key, byte[] data) {
+    Path file = file(key);
+    if (Files.exists(file)) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+      try {
+        Files.write(temp, data);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (FileAlreadyExistsException e) {
+        // written by another client in the meantime, with the same content
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot store payload " + file, e);
+    }
+  }
+
+  @Override
+  public byte[] get(String key) {
+    Path file = file(key);
+    try {
+      return Files.readAllBytes(file);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read payload " + file, e);
+    }
+  }
+
+  private Path file(String key) {
+    if (!KEY.matcher(key).matches()) {
+      throw new IllegalArgumentException("Invalid payload key: " + key);
+    }
+    return directory.resolve(key.substring(0, 2)).resolve(key);
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Store of a single process, for tests and for workers that run with their clients. */
+public class InMemoryPayloadStore implements PayloadStore {
+
+  private final Map<String, byte[]> payloads = new ConcurrentHashMap<>();
+
+  @Override
+  public void put(String key, byte[] data) {
+    payloads.putIfAbsent(key, data);
+  }
+
+  @Override
+  public byte[] get(String key) {
+    return payloads.get(key);
+  }
+
+  /** Number of stored payloads. */
+  public int size() {
+    return payloads.size();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.converter.PayloadConverter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Optional;
+
+/**
+ * Reads and, when it is the selected format, writes values with a Jackson mapper of a binary
+ * format, Smile or CBOR. Payloads carry their own encoding, so JSON payloads of existing histories
+ * are still read by the JSON converter of the chain.
+ */
+public class JacksonBinaryPayloadConverter implements PayloadConverter {
+
+  public static final String SMILE_ENCODING = "binary/jackson-smile";
+  public static final String CBOR_ENCODING = "binary/jackson-cbor";
+
+  private static final String ENCODING = "encoding";
+
+  private final ObjectMapper mapper;
+  private final String encodingType;
+  private final ByteString encoding;
+  private final boolean writes;
+
+  /**
+   * @param mapper mapper created with the factory of the format
+   * @param encodingType {@link #SMILE_ENCODING} or {@link #CBOR_ENCODING}
+   */
+  public JacksonBinaryPayloadConverter(ObjectMapper mapper, String encodingType) {
+    this(mapper, encodingType, true);
+  }
+
+  /**
+   * @param mapper mapper created with the factory of the format
+   * @param encodingType {@link #SMILE_ENCODING} or {@link #CBOR_ENCODING}
+   * @param writes false to only read payloads of the format and leave writing to the next
+   *     converter of the chain
+   */
+  public JacksonBinaryPayloadConverter(ObjectMapper mapper, String encodingType, boolean writes) {
+    this.mapper = mapper;
+    this.encodingType = encodingType;
+    this.encoding = ByteString.copyFromUtf8(encodingType);
+    this.writes = writes;
+  }
+
+  @Override
+  public String getEncodingType() {
+    return encodingType;
+  }
+
+  @Override
+  public Optional<Payload> toData(Object value) {
+    if (!writes) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(
+          Payload.newBuilder()
+              .putMetadata(ENCODING, encoding)
+              .setData(UnsafeByteOperations.unsafeWrap(mapper.writeValueAsBytes(value)))
+              .build());
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+  }
+
+  @Override
+  public <T> T fromData(Payload content, Class<T> valueClass, Type valueType) {
+    try {
+      return mapper.readValue(
+          content.getData().newInput(), mapper.getTypeFactory().constructType(valueType));
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+/**
+ * Storage of payloads offloaded by {@link ClaimCheckPayloadCodec}. Keys are SHA-256 digests of the
+ * stored data written in hex, so a key always comes with the same data and a store may skip
+ * writing a key it already has. Implementations are used by many threads at once.
+ */
+public interface PayloadStore {
+
+  /**
+   * Stores the data under the key. Returns once the data can be read by other clients and workers.
+   */
+  void put(String key, byte[] data);
+
+  /** @return stored data, null when there is nothing under the key */
+  byte[] get(String key);
+}
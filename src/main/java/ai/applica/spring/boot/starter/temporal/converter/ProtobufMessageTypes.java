@@ -0,0 +1,54 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import com.google.protobuf.Message;
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protobuf message classes used as arguments or results of workflow and activity interfaces of one
+ * client. {@link RegisteredProtobufPayloadConverter} of the client writes them in binary encoding.
+ * Classes are registered when workers, activity stubs and <code>@StartsWorkflow</code> methods of
+ * the client are wired.
+ */
+public class ProtobufMessageTypes {
+
+  private final Set<Class<?>> types = ConcurrentHashMap.newKeySet();
+
+  /** Registers message classes among parameter and return types of the interface methods. */
+  public void registerInterface(Class<?> type) {
+    for (Method method : type.getMethods()) {
+      register(method.getReturnType());
+      for (Class<?> parameterType : method.getParameterTypes()) {
+        register(parameterType);
+      }
+    }
+  }
+
+  public boolean contains(Class<?> type) {
+    return types.contains(type);
+  }
+
+  private void register(Class<?> type) {
+    if (Message.class.isAssignableFrom(type) && type != Message.class) {
+      types.add(type);
+    }
+  }
+}
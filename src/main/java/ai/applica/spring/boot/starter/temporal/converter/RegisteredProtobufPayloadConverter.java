@@ -0,0 +1,57 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.PayloadConverter;
+import io.temporal.common.converter.ProtobufPayloadConverter;
+import java.lang.reflect.Type;
+import java.util.Optional;
+
+/**
+ * Writes messages registered in given {@link ProtobufMessageTypes} in binary protobuf encoding and
+ * leaves other values to the next converter of the chain. Reads binary protobuf payloads of any
+ * message.
+ */
+public class RegisteredProtobufPayloadConverter implements PayloadConverter {
+
+  private final ProtobufPayloadConverter delegate = new ProtobufPayloadConverter();
+  private final ProtobufMessageTypes messageTypes;
+
+  public RegisteredProtobufPayloadConverter(ProtobufMessageTypes messageTypes) {
+    this.messageTypes = messageTypes;
+  }
+
+  @Override
+  public String getEncodingType() {
+    return delegate.getEncodingType();
+  }
+
+  @Override
+  public Optional<Payload> toData(Object value) {
+    if (value == null || !messageTypes.contains(value.getClass())) {
+      return Optional.empty();
+    }
+    return delegate.toData(value);
+  }
+
+  @Override
+  public <T> T fromData(Payload content, Class<T> valueClass, Type valueType) {
+    return delegate.fromData(content, valueClass, valueType);
+  }
+}
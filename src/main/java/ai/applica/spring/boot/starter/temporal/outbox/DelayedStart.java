@@ -0,0 +1,46 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** Start waiting in the journal and the timing wheel. */
+@Getter
+@RequiredArgsConstructor
+class DelayedStart {
+  /** Identifies the record in the journal, a workflow id scheduled again gets a new one. */
+  private final long sequence;
+
+  private final String workflowId;
+  private final String workflowName;
+  private final String workflowInterface;
+  private final long dueAtMillis;
+  private final byte[] args;
+  private volatile boolean cancelled;
+  /** Failed attempts in this process, not kept in the journal. */
+  private int failedAttempts;
+
+  void cancel() {
+    cancelled = true;
+  }
+
+  int failed() {
+    return ++failedAttempts;
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only file of scheduled and finished starts. On open the file is replayed to find pending
+ * starts, an incomplete last record left by a crash is dropped, and the file is rewritten with
+ * pending starts only. It is rewritten again when records of finished starts outweigh pending
+ * ones.
+ */
+@Slf4j
+final class DelayedStartJournal implements Closeable {
+
+  private static final int SCHEDULED = 1;
+  private static final int DONE = 2;
+
+  private final Path file;
+  private final boolean syncWrites;
+  private final Map<Long, DelayedStart> pending = new LinkedHashMap<>();
+  private final Map<String, DelayedStart> byWorkflowId = new HashMap<>();
+  private long nextSequence;
+  /** Records in the file not describing a pending start. */
+  private int obsolete;
+
+  private FileOutputStream fileOut;
+  private DataOutputStream out;
+
+  DelayedStartJournal(Path file, boolean syncWrites) throws IOException {
+    this.file = file;
+    this.syncWrites = syncWrites;
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    if (Files.exists(file)) {
+      replay();
+    }
+    compact();
+  }
+
+  synchronized List<DelayedStart> pending() {
+    return new ArrayList<>(pending.values());
+  }
+
+  synchronized int size() {
+    return pending.size();
+  }
+
+  /** Records a start, replacing the pending start of the same workflow id. */
+  synchronized DelayedStart schedule(
+      String workflowId,
+      String workflowName,
+      String workflowInterface,
+      long dueAtMillis,
+      byte[] args) {
+    cancel(workflowId);
+    DelayedStart start =
+        new DelayedStart(
+            nextSequence++, workflowId, workflowName, workflowInterface, dueAtMillis, args);
+    try {
+      writeScheduled(out, start);
+      flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write delayed start journal " + file, e);
+    }
+    add(start);
+    return start;
+  }
+
+  /** @return cancelled start, null when no start of the workflow id is pending */
+  synchronized DelayedStart cancel(String workflowId) {
+    DelayedStart start = byWorkflowId.get(workflowId);
+    if (start != null) {
+      done(start);
+      start.cancel();
+    }
+    return start;
+  }
+
+  /** Records that the start is finished, does nothing when it is no longer pending. */
+  synchronized void done(DelayedStart start) {
+    if (pending.get(start.getSequence()) != start) {
+      return;
+    }
+    try {
+      out.writeByte(DONE);
+      out.writeLong(start.getSequence());
+      flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write delayed start journal " + file, e);
+    }
+    remove(start.getSequence());
+    obsolete += 2;
+  }
+
+  synchronized boolean needsCompaction(int threshold) {
+    return obsolete > threshold && obsolete > pending.size();
+  }
+
+  /** Rewrites the file with pending starts only, the new file replaces the old one atomically. */
+  synchronized void compact() throws IOException {
+    if (out != null) {
+      out.close();
+    }
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream compacted =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+      for (DelayedStart start : pending.values()) {
+        writeScheduled(compacted, start);
+      }
+    }
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+      channel.force(true);
+    }
+    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    obsolete = 0;
+    fileOut = new FileOutputStream(file.toFile(), true);
+    out = new DataOutputStream(new BufferedOutputStream(fileOut));
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    out.close();
+  }
+
+  private void replay() throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      while (true) {
+        int type = in.read();
+        if (type == -1) {
+          break;
+        } else if (type == SCHEDULED) {
+          long sequence = in.readLong();
+          String workflowId = in.readUTF();
+          String workflowName = in.readUTF();
+          String workflowInterface = in.readUTF();
+          long dueAtMillis = in.readLong();
+          int length = in.readInt();
+          if (length < 0) {
+            throw new IOException("Negative length of arguments");
+          }
+          byte[] args = new byte[length];
+          in.readFully(args);
+          DelayedStart replaced = byWorkflowId.get(workflowId);
+          if (replaced != null) {
+            remove(replaced.getSequence());
+          }
+          add(
+              new DelayedStart(
+                  sequence, workflowId, workflowName, workflowInterface, dueAtMillis, args));
+          nextSequence = Math.max(nextSequence, sequence + 1);
+        } else if (type == DONE) {
+          remove(in.readLong());
+        } else {
+          throw new IOException("Unknown record type " + type);
+        }
+      }
+    } catch (EOFException e) {
+      log.warn("Delayed start journal {} ends with an incomplete record, dropping it", file);
+    } catch (IOException e) {
+      log.warn("Delayed start journal {} is corrupted, keeping records before the error", file, e);
+    }
+    log.info("Delayed start journal {} has {} pending starts", file, pending.size());
+  }
+
+  private void add(DelayedStart start) {
+    pending.put(start.getSequence(), start);
+    byWorkflowId.put(start.getWorkflowId(), start);
+  }
+
+  private void remove(long sequence) {
+    DelayedStart start = pending.remove(sequence);
+    if (start != null) {
+      byWorkflowId.remove(start.getWorkflowId(), start);
+    }
+  }
+
+  private void flush() throws IOException {
+    out.flush();
+    if (syncWrites) {
+      fileOut.getFD().sync();
+    }
+  }
+
+  private static void writeScheduled(DataOutputStream out, DelayedStart start) throws IOException {
+    out.writeByte(SCHEDULED);
+    out.writeLong(start.getSequence());
+    out.writeUTF(start.getWorkflowId());
+    out.writeUTF(start.getWorkflowName());
+    out.writeUTF(start.getWorkflowInterface());
+    out.writeLong(start.getDueAtMillis());
+    out.writeInt(start.getArgs().length);
+    out.write(start.getArgs());
+  }
+}
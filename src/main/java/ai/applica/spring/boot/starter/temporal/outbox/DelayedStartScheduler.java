@@ -0,0 +1,231 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.annotations.TemporalWorkflow;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.DelayedStartOptions;
+import com.uber.m3.tally.Scope;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.common.converter.DataConverter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotationUtils;
+
+/**
+ * Starts workflows at given times from the client, so waiting for the start time takes neither an
+ * open execution nor history on the cluster. Pending starts are kept in a hashed timing wheel in
+ * memory and in an append-only journal on local disk, and are loaded from the journal again when a
+ * scheduler is created for the same file. Due starts run on a pool of <code>concurrency</code>
+ * threads; a failed start is tried again after <code>retryInterval</code>, up to <code>
+ * maxAttempts</code> times, and dropped at once when the failure cannot be fixed by retrying. A
+ * workflow id already running counts as started.
+ *
+ * <p>One scheduler at a time may use a journal file.
+ */
+@Slf4j
+public class DelayedStartScheduler implements AutoCloseable {
+
+  public static final String DELAYED_START_PENDING = "temporal_starter_delayed_start_pending";
+  public static final String DELAYED_START_STARTED = "temporal_starter_delayed_start_started";
+  public static final String DELAYED_START_RETRIED = "temporal_starter_delayed_start_retried";
+  public static final String DELAYED_START_ABANDONED = "temporal_starter_delayed_start_abandoned";
+  /** Time from the due time to the start. */
+  public static final String DELAYED_START_LATENESS = "temporal_starter_delayed_start_lateness";
+
+  private final WorkflowFactory workflowFactory;
+  private final WorkflowClient workflowClient;
+  private final DelayedStartOptions options;
+  private final DataConverter dataConverter;
+  private final Scope scope;
+  private final DelayedStartJournal journal;
+  private final TimingWheel<DelayedStart> wheel;
+  private final ScheduledExecutorService ticker;
+  private final ExecutorService executor;
+
+  /**
+   * Loads pending starts from the journal and starts the clock.
+   *
+   * @param workflowFactory source of workflow options
+   * @param workflowClient client starting workflows
+   * @param journalFile created when it does not exist
+   * @param options
+   */
+  public DelayedStartScheduler(
+      WorkflowFactory workflowFactory,
+      WorkflowClient workflowClient,
+      Path journalFile,
+      DelayedStartOptions options) {
+    this.workflowFactory = workflowFactory;
+    this.workflowClient = workflowClient;
+    this.options = options;
+    this.dataConverter = workflowClient.getOptions().getDataConverter();
+    this.scope = workflowClient.getWorkflowServiceStubs().getOptions().getMetricsScope();
+    try {
+      this.journal = new DelayedStartJournal(journalFile, options.isSyncWrites());
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open delayed start journal " + journalFile, e);
+    }
+    long tickMillis = options.getTickDuration().toMillis();
+    this.wheel = new TimingWheel<>(tickMillis, options.getWheelSize(), System.currentTimeMillis());
+    for (DelayedStart start : journal.pending()) {
+      wheel.add(start, start.getDueAtMillis());
+    }
+    this.ticker =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "temporal-delayed-start-ticker");
+              thread.setDaemon(true);
+              return thread;
+            });
+    AtomicInteger threads = new AtomicInteger();
+    this.executor =
+        Executors.newFixedThreadPool(
+            options.getConcurrency(),
+            r -> {
+              Thread thread = new Thread(r, "temporal-delayed-start-" + threads.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Schedules start of a workflow, replacing a pending start of the same workflow id. The start is
+   * in the journal when the method returns. Options are taken from properties like in <code>
+   * makeStub</code> when the workflow is started.
+   *
+   * @param <T>
+   * @param workflowInterface
+   * @param workflowClass
+   * @param workflowId
+   * @param startAt start time, a time in the past starts at the next tick
+   * @param args arguments of the workflow method
+   */
+  public <T> void schedule(
+      Class<T> workflowInterface,
+      Class<? extends T> workflowClass,
+      String workflowId,
+      Instant startAt,
+      Object... args) {
+    TemporalWorkflow workflowAnnotation =
+        AnnotationUtils.findAnnotation(workflowClass, TemporalWorkflow.class);
+    DelayedStart start =
+        journal.schedule(
+            workflowId,
+            workflowAnnotation.value(),
+            workflowInterface.getName(),
+            startAt.toEpochMilli(),
+            WorkflowStarts.serialize(dataConverter, args));
+    wheel.add(start, start.getDueAtMillis());
+  }
+
+  /**
+   * Cancels pending start of the workflow id.
+   *
+   * @param workflowId
+   * @return false when no start of the workflow id was pending
+   */
+  public boolean cancel(String workflowId) {
+    return journal.cancel(workflowId) != null;
+  }
+
+  /** Number of starts not yet made. */
+  public int size() {
+    return journal.size();
+  }
+
+  private void tick() {
+    try {
+      for (DelayedStart start : wheel.advance(System.currentTimeMillis())) {
+        if (!start.isCancelled()) {
+          executor.execute(() -> fire(start));
+        }
+      }
+      scope.gauge(DELAYED_START_PENDING).update(journal.size());
+      if (journal.needsCompaction(options.getCompactionThreshold())) {
+        journal.compact();
+      }
+    } catch (IOException | RuntimeException e) {
+      log.warn("Delayed start tick failed", e);
+    }
+  }
+
+  private void fire(DelayedStart start) {
+    if (start.isCancelled()) {
+      return;
+    }
+    try {
+      WorkflowStarts.start(
+          workflowFactory,
+          workflowClient,
+          start.getWorkflowName(),
+          start.getWorkflowInterface(),
+          start.getWorkflowId(),
+          start.getArgs());
+      scope.counter(DELAYED_START_STARTED).inc(1);
+    } catch (WorkflowExecutionAlreadyStarted e) {
+      log.debug("Delayed workflow {} was already started", start.getWorkflowId());
+    } catch (RuntimeException e) {
+      int attempts = start.failed();
+      if (WorkflowStarts.isRetryable(e) && attempts < options.getMaxAttempts()) {
+        scope.counter(DELAYED_START_RETRIED).inc(1);
+        log.warn("Delayed start of workflow {} failed, retrying", start.getWorkflowId(), e);
+        wheel.add(start, System.currentTimeMillis() + options.getRetryInterval().toMillis());
+      } else {
+        scope.counter(DELAYED_START_ABANDONED).inc(1);
+        log.error(
+            "Delayed start of workflow {} failed {} times, giving up",
+            start.getWorkflowId(),
+            attempts,
+            e);
+        journal.done(start);
+      }
+      return;
+    }
+    long lateness = Math.max(0, System.currentTimeMillis() - start.getDueAtMillis());
+    scope
+        .timer(DELAYED_START_LATENESS)
+        .record(com.uber.m3.util.Duration.ofNanos(TimeUnit.MILLISECONDS.toNanos(lateness)));
+    journal.done(start);
+  }
+
+  /** Stops the clock, starts in progress are finished. Pending starts stay in the journal. */
+  @Override
+  public void close() {
+    ticker.shutdownNow();
+    executor.shutdown();
+    try {
+      executor.awaitTermination(options.getRetryInterval().toMillis(), TimeUnit.MILLISECONDS);
+      journal.close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
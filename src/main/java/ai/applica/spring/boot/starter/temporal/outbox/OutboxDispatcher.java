@@ -0,0 +1,211 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.OutboxOptions;
+import com.uber.m3.tally.Scope;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Starts workflows stored in the outbox. Drains the table batch by batch when woken up after a
+ * commit and every poll interval, with a pool of threads each having one start in flight. Started
+ * workflows and workflow ids already running are removed from the table, failed starts are retried
+ * with exponential backoff unless the failure is permanent. Several instances may drain the same
+ * table, each start is claimed by one of them for {@link OutboxOptions#getClaimTimeout()} before it
+ * is made.
+ */
+@Slf4j
+public class OutboxDispatcher implements DisposableBean {
+
+  public static final String OUTBOX_STARTED = "temporal_starter_outbox_started";
+  public static final String OUTBOX_RETRIED = "temporal_starter_outbox_retried";
+  public static final String OUTBOX_ABANDONED = "temporal_starter_outbox_abandoned";
+  /** Time from enqueue to start. */
+  public static final String OUTBOX_START_DELAY = "temporal_starter_outbox_start_delay";
+
+  private final WorkflowStartOutbox outbox;
+  private final WorkflowFactory workflowFactory;
+  private final WorkflowClient workflowClient;
+  private final OutboxOptions options;
+  private final Scope scope;
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService executor;
+  private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+  /**
+   * @param outbox
+   * @param workflowFactory source of workflow options
+   * @param workflowClient client starting workflows
+   * @param options
+   */
+  public OutboxDispatcher(
+      WorkflowStartOutbox outbox,
+      WorkflowFactory workflowFactory,
+      WorkflowClient workflowClient,
+      OutboxOptions options) {
+    this.outbox = outbox;
+    this.workflowFactory = workflowFactory;
+    this.workflowClient = workflowClient;
+    this.options = options;
+    this.scope = workflowClient.getWorkflowServiceStubs().getOptions().getMetricsScope();
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            r -> {
+              Thread thread = new Thread(r, "temporal-outbox-dispatcher");
+              thread.setDaemon(true);
+              return thread;
+            });
+    AtomicInteger threads = new AtomicInteger();
+    this.executor =
+        Executors.newFixedThreadPool(
+            options.getParallelism(),
+            r -> {
+              Thread thread = new Thread(r, "temporal-outbox-start-" + threads.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /** Starts polling and draining after commits. */
+  public void start() {
+    outbox.setCommitListener(this::wakeUp);
+    long interval = options.getPollInterval().toMillis();
+    scheduler.scheduleWithFixedDelay(this::drainQuietly, 0, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /** Schedules draining, at most one wake-up waits at a time. */
+  public void wakeUp() {
+    if (wakeUpPending.compareAndSet(false, true)) {
+      scheduler.execute(
+          () -> {
+            wakeUpPending.set(false);
+            drainQuietly();
+          });
+    }
+  }
+
+  /**
+   * Starts due workflows until no start is due.
+   *
+   * @return number of workflows started or found already started
+   */
+  public int drain() {
+    int started = 0;
+    while (true) {
+      long now = System.currentTimeMillis();
+      List<OutboxEntry> batch =
+          outbox.claim(
+              options.getBatchSize(),
+              options.getMaxAttempts(),
+              now,
+              now + options.getClaimTimeout().toMillis());
+      if (batch.isEmpty()) {
+        return started;
+      }
+      List<CompletableFuture<Boolean>> starts = new ArrayList<>(batch.size());
+      for (OutboxEntry entry : batch) {
+        starts.add(CompletableFuture.supplyAsync(() -> dispatch(entry), executor));
+      }
+      List<String> done = new ArrayList<>(batch.size());
+      for (int i = 0; i < batch.size(); i++) {
+        if (starts.get(i).join()) {
+          done.add(batch.get(i).getId());
+        }
+      }
+      outbox.delete(done);
+      started += done.size();
+      if (batch.size() < options.getBatchSize()) {
+        return started;
+      }
+    }
+  }
+
+  private void drainQuietly() {
+    try {
+      drain();
+    } catch (RuntimeException e) {
+      log.warn("Draining of Temporal workflow outbox failed", e);
+    }
+  }
+
+  /** @return true when the entry can be removed */
+  private boolean dispatch(OutboxEntry entry) {
+    try {
+      WorkflowStarts.start(
+          workflowFactory,
+          workflowClient,
+          entry.getWorkflowName(),
+          entry.getWorkflowInterface(),
+          entry.getWorkflowId(),
+          Base64.getDecoder().decode(entry.getArgs()));
+      scope.counter(OUTBOX_STARTED).inc(1);
+    } catch (WorkflowExecutionAlreadyStarted e) {
+      log.debug("Workflow {} from outbox was already started", entry.getWorkflowId());
+    } catch (RuntimeException e) {
+      retry(entry, e);
+      return false;
+    }
+    long delay = Math.max(0, System.currentTimeMillis() - entry.getCreatedAt());
+    scope
+        .timer(OUTBOX_START_DELAY)
+        .record(com.uber.m3.util.Duration.ofNanos(TimeUnit.MILLISECONDS.toNanos(delay)));
+    return true;
+  }
+
+  private void retry(OutboxEntry entry, RuntimeException e) {
+    int attempts = entry.getAttempts() + 1;
+    if (!WorkflowStarts.isRetryable(e) || attempts >= options.getMaxAttempts()) {
+      scope.counter(OUTBOX_ABANDONED).inc(1);
+      log.error(
+          "Start of workflow {} from outbox failed {} times, giving up",
+          entry.getWorkflowId(),
+          attempts,
+          e);
+      // left in the table with attempts used up, so it is never claimed again
+      outbox.retry(entry.getId(), options.getMaxAttempts(), System.currentTimeMillis());
+      return;
+    }
+    scope.counter(OUTBOX_RETRIED).inc(1);
+    log.warn("Start of workflow {} from outbox failed, retrying", entry.getWorkflowId(), e);
+    long backoff =
+        Math.min(
+            options.getRetryMaxInterval().toMillis(),
+            options.getRetryInitialInterval().toMillis() << Math.min(attempts - 1, 30));
+    outbox.retry(entry.getId(), attempts, System.currentTimeMillis() + backoff);
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.shutdownNow();
+    executor.shutdownNow();
+  }
+}
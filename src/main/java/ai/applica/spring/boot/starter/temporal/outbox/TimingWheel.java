@@ -0,0 +1,109 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel. An item goes to the bucket of its due tick modulo wheel size, so adding is
+ * constant time whatever the number of items, and advancing by a tick only visits one bucket. Items
+ * due in a later turn of the wheel stay in their bucket until the turn comes.
+ */
+final class TimingWheel<T> {
+
+  private final long tickMillis;
+  private final long startMillis;
+  private final List<Deque<Slot<T>>> buckets;
+  /** Last tick processed. */
+  private long tick;
+
+  private int size;
+
+  TimingWheel(long tickMillis, int wheelSize, long nowMillis) {
+    this.tickMillis = tickMillis;
+    this.startMillis = nowMillis;
+    this.buckets = new ArrayList<>(wheelSize);
+    for (int i = 0; i < wheelSize; i++) {
+      buckets.add(new ArrayDeque<>());
+    }
+  }
+
+  /** Adds item due at given time, items already due are returned by the next advance. */
+  synchronized void add(T item, long dueMillis) {
+    long dueTick = Math.max(tick + 1, -Math.floorDiv(startMillis - dueMillis, tickMillis));
+    buckets.get(index(dueTick)).add(new Slot<>(item, dueTick));
+    size++;
+  }
+
+  /**
+   * Moves the wheel to given time.
+   *
+   * @return items that became due, in no particular order
+   */
+  synchronized List<T> advance(long nowMillis) {
+    long target = Math.floorDiv(nowMillis - startMillis, tickMillis);
+    List<T> due = new ArrayList<>();
+    if (target - tick >= buckets.size()) {
+      // a whole turn or more behind, every bucket is visited once
+      for (Deque<Slot<T>> bucket : buckets) {
+        collect(bucket, target, due);
+      }
+      tick = target;
+    } else {
+      while (tick < target) {
+        tick++;
+        collect(buckets.get(index(tick)), tick, due);
+      }
+    }
+    size -= due.size();
+    return due;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  private int index(long tick) {
+    return (int) Math.floorMod(tick, (long) buckets.size());
+  }
+
+  private static <T> void collect(Deque<Slot<T>> bucket, long tick, List<T> due) {
+    Iterator<Slot<T>> slots = bucket.iterator();
+    while (slots.hasNext()) {
+      Slot<T> slot = slots.next();
+      if (slot.dueTick <= tick) {
+        slots.remove();
+        due.add(slot.item);
+      }
+    }
+  }
+
+  private static class Slot<T> {
+    final T item;
+    final long dueTick;
+
+    Slot(T item, long dueTick) {
+      this.item = item;
+      this.dueTick = dueTick;
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.OutboxOptions;
+import io.temporal.common.converter.DataConverter;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Table of workflow starts. A start is inserted with the connection of the current Spring
+ * transaction, so it is stored only when the transaction commits and nothing is started on
+ * rollback. The dispatcher is woken up after commit and starts workflows outside of the
+ * transaction.
+ */
+public class WorkflowStartOutbox {
+
+  private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+  private static final String COLUMNS =
+      "id, workflow_id, workflow_name, workflow_interface, args, attempts, created_at";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DataConverter dataConverter;
+  private final String table;
+  private volatile Runnable commitListener = () -> {};
+
+  public WorkflowStartOutbox(
+      JdbcTemplate jdbcTemplate, OutboxOptions options, DataConverter dataConverter) {
+    if (!TABLE_NAME.matcher(options.getTableName()).matches()) {
+      throw new IllegalArgumentException("Invalid outbox table name: " + options.getTableName());
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.dataConverter = dataConverter;
+    this.table = options.getTableName();
+  }
+
+  /**
+   * Stores start of a workflow. Options are taken from properties of the workflow name when the
+   * start is dispatched.
+   *
+   * @param workflowName name from <code>@TemporalWorkflow</code>
+   * @param workflowInterface
+   * @param workflowId
+   * @param args arguments of the workflow method
+   */
+  public void enqueue(
+      String workflowName, Class<?> workflowInterface, String workflowId, Object... args) {
+    String payloads =
+        Base64.getEncoder().encodeToString(WorkflowStarts.serialize(dataConverter, args));
+    long now = System.currentTimeMillis();
+    jdbcTemplate.update(
+        "INSERT INTO "
+            + table
+            + " ("
+            + COLUMNS
+            + ", next_attempt_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?)",
+        UUID.randomUUID().toString(),
+        workflowId,
+        workflowName,
+        workflowInterface.getName(),
+        payloads,
+        now,
+        now);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              commitListener.run();
+            }
+          });
+    } else {
+      commitListener.run();
+    }
+  }
+
+  /**
+   * Creates the table if it does not exist. Arguments are in a <code>CLOB</code> column, on
+   * databases without that type create the table by hand with their large text type.
+   */
+  public void createTable() {
+    jdbcTemplate.execute(
+        "CREATE TABLE IF NOT EXISTS "
+            + table
+            + " (id VARCHAR(36) PRIMARY KEY,"
+            + " workflow_id VARCHAR(1000) NOT NULL,"
+            + " workflow_name VARCHAR(255) NOT NULL,"
+            + " workflow_interface VARCHAR(1000) NOT NULL,"
+            + " args CLOB NOT NULL,"
+            + " attempts INT NOT NULL,"
+            + " created_at BIGINT NOT NULL,"
+            + " next_attempt_at BIGINT NOT NULL)");
+  }
+
+  /** Number of starts in the table, also of those no longer retried. */
+  public int size() {
+    return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+  }
+
+  void setCommitListener(Runnable commitListener) {
+    this.commitListener = commitListener;
+  }
+
+  /**
+   * Claims oldest starts due for an attempt. A start is claimed by moving its next attempt to the
+   * end of the claim, only when it was not changed since it was read, so of dispatchers reading
+   * the same start one gets it. Start claimed by a dispatcher that stopped is due again after the
+   * claim.
+   *
+   * @param limit
+   * @param maxAttempts
+   * @param now
+   * @param claimedUntil time when unfinished starts of this claim are due again
+   */
+  List<OutboxEntry> claim(int limit, int maxAttempts, long now, long claimedUntil) {
+    List<OutboxEntry> due =
+        jdbcTemplate.query(
+            connection -> {
+              PreparedStatement statement =
+                  connection.prepareStatement(
+                      "SELECT "
+                          + COLUMNS
+                          + ", next_attempt_at FROM "
+                          + table
+                          + " WHERE attempts < ? AND next_attempt_at <= ? ORDER BY created_at");
+              statement.setInt(1, maxAttempts);
+              statement.setLong(2, now);
+              statement.setMaxRows(limit);
+              return statement;
+            },
+            (rs, i) ->
+                new OutboxEntry(
+                    rs.getString("id"),
+                    rs.getString("workflow_id"),
+                    rs.getString("workflow_name"),
+                    rs.getString("workflow_interface"),
+                    rs.getString("args"),
+                    rs.getInt("attempts"),
+                    rs.getLong("created_at"),
+                    rs.getLong("next_attempt_at")));
+    List<OutboxEntry> claimed = new ArrayList<>(due.size());
+    for (OutboxEntry entry : due) {
+      int updated =
+          jdbcTemplate.update(
+              "UPDATE " + table + " SET next_attempt_at = ? WHERE id = ? AND next_attempt_at = ?",
+              claimedUntil,
+              entry.getId(),
+              entry.getNextAttemptAt());
+      if (updated == 1) {
+        claimed.add(entry);
+      }
+    }
+    return claimed;
+  }
+
+  void delete(List<String> ids) {
+    if (!ids.isEmpty()) {
+      jdbcTemplate.batchUpdate(
+          "DELETE FROM " + table + " WHERE id = ?",
+          ids,
+          ids.size(),
+          (statement, id) -> statement.setString(1, id));
+    }
+  }
+
+  void retry(String id, int attempts, long nextAttemptAt) {
+    jdbcTemplate.update(
+        "UPDATE " + table + " SET attempts = ?, next_attempt_at = ? WHERE id = ?",
+        attempts,
+        nextAttemptAt,
+        id);
+  }
+}
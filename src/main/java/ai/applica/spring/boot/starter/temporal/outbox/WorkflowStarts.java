@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.common.metadata.POJOWorkflowInterfaceMetadata;
+import io.temporal.common.metadata.POJOWorkflowMethodMetadata;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Starts stored with serialized arguments, shared by the outbox and delayed starts. Arguments are
+ * kept as serialized <code>Payloads</code> and decoded with parameter types of the workflow method
+ * when the workflow is started.
+ */
+final class WorkflowStarts {
+
+  private static final Set<Status.Code> NON_RETRYABLE_CODES =
+      EnumSet.of(
+          Status.Code.INVALID_ARGUMENT,
+          Status.Code.NOT_FOUND,
+          Status.Code.PERMISSION_DENIED,
+          Status.Code.UNAUTHENTICATED,
+          Status.Code.UNIMPLEMENTED);
+
+  private WorkflowStarts() {}
+
+  /** Serialized arguments, empty when the workflow has none. */
+  static byte[] serialize(DataConverter dataConverter, Object... args) {
+    return dataConverter.toPayloads(args).map(Payloads::toByteArray).orElse(new byte[0]);
+  }
+
+  /**
+   * Starts workflow with options taken from properties of the workflow name.
+   *
+   * @throws io.temporal.client.WorkflowExecutionAlreadyStarted when workflow id is running
+   */
+  static WorkflowExecution start(
+      WorkflowFactory workflowFactory,
+      WorkflowClient workflowClient,
+      String workflowName,
+      String workflowInterface,
+      String workflowId,
+      byte[] args) {
+    Class<?> workflowInterfaceClass;
+    try {
+      workflowInterfaceClass = ClassUtils.forName(workflowInterface, null);
+    } catch (ClassNotFoundException | LinkageError e) {
+      throw new IllegalArgumentException("Unknown workflow interface " + workflowInterface, e);
+    }
+    POJOWorkflowMethodMetadata method =
+        POJOWorkflowInterfaceMetadata.newInstance(workflowInterfaceClass)
+            .getWorkflowMethod()
+            .orElseThrow(
+                () ->
+                    new IllegalArgumentException(
+                        workflowInterfaceClass.getSimpleName() + " has no workflow method"));
+    WorkflowOptions options =
+        workflowFactory.defaultOptionsBuilder(workflowName).setWorkflowId(workflowId).build();
+    Object[] arguments =
+        deserialize(
+            workflowClient.getOptions().getDataConverter(), method.getWorkflowMethod(), args);
+    return workflowClient.newUntypedWorkflowStub(method.getName(), options).start(arguments);
+  }
+
+  /**
+   * Failures that a later attempt cannot fix: unknown workflow, arguments that cannot be read and
+   * calls the service rejects as invalid or not allowed.
+   */
+  static boolean isRetryable(RuntimeException e) {
+    if (e instanceof IllegalArgumentException || e instanceof DataConverterException) {
+      return false;
+    }
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof StatusRuntimeException) {
+        Status.Code code = ((StatusRuntimeException) cause).getStatus().getCode();
+        return !NON_RETRYABLE_CODES.contains(code);
+      }
+    }
+    return true;
+  }
+
+  private static Object[] deserialize(
+      DataConverter dataConverter, Method workflowMethod, byte[] args) {
+    Class<?>[] types = workflowMethod.getParameterTypes();
+    Type[] genericTypes = workflowMethod.getGenericParameterTypes();
+    Object[] arguments = new Object[types.length];
+    if (args.length == 0) {
+      return arguments;
+    }
+    Optional<Payloads> payloads;
+    try {
+      payloads = Optional.of(Payloads.parseFrom(args));
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalArgumentException("Corrupted arguments of " + workflowMethod, e);
+    }
+    for (int i = 0; i < types.length; i++) {
+      arguments[i] = dataConverter.fromPayloads(i, payloads, types[i], genericTypes[i]);
+    }
+    return arguments;
+  }
+}
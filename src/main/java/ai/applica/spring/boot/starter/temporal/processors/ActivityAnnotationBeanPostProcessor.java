@@ -17,6 +17,8 @@
 
 package ai.applica.spring.boot.starter.temporal.processors;
 
+import ai.applica.spring.boot.starter.temporal.TemporalClientRegistry;
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
 import ai.applica.spring.boot.starter.temporal.annotations.TemporalActivity;
 import ai.applica.spring.boot.starter.temporal.config.TemporalProperties;
 import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.WorkflowOption;
@@ -36,6 +38,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
 
 @Slf4j
 @Configuration
@@ -45,7 +48,7 @@ public class ActivityAnnotationBeanPostProcessor
     implements BeanPostProcessor, Ordered, SmartInitializingSingleton {
 
   private final TemporalProperties temporalProperties;
-  private final WorkerFactory workerFactory;
+  private final TemporalClientRegistry temporalClientRegistry;
   private final Set<String> classes = new HashSet<>();
 
   @Override
@@ -78,9 +81,16 @@ public class ActivityAnnotationBeanPostProcessor
     if (options == null) {
       throw new RuntimeException("No configuration defined for activityWorker: " + value);
     }
+    WorkerFactory workerFactory =
+        temporalClientRegistry.getWorkerFactory(activityAnotation.client());
     Worker worker = workerFactory.newWorker(options.getTaskQueue(), getWorkerOptions(options));
 
     worker.registerActivitiesImplementations(bean);
+    // results of the activities are written like the stubs of workflows write arguments
+    WorkflowFactory workflowFactory =
+        temporalClientRegistry.getWorkflowFactory(activityAnotation.client());
+    ClassUtils.getAllInterfacesForClassAsSet(targetClass)
+        .forEach(workflowFactory::registerProtobufTypes);
 
     classes.add(bean.getClass().getName());
     return bean;
@@ -106,7 +116,7 @@ public class ActivityAnnotationBeanPostProcessor
   @Override
   public void afterSingletonsInstantiated() {
     if (temporalProperties.isCreateWorkers()) {
-      workerFactory.start();
+      temporalClientRegistry.startWorkerFactories();
     }
   }
 
@@ -0,0 +1,72 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.processors;
+
+import ai.applica.spring.boot.starter.temporal.TemporalClientRegistry;
+import ai.applica.spring.boot.starter.temporal.annotations.StartsWorkflow;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.StartsWorkflowOptions;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Proxies beans having methods annotated with {@link StartsWorkflow}. Starts of all such methods
+ * share one executor with <code>spring.temporal.startsWorkflow.concurrency</code> threads and a
+ * queue of <code>queueCapacity</code> starts, so request threads do not wait for the frontend.
+ */
+public class StartsWorkflowBeanPostProcessor extends AbstractAdvisingBeanPostProcessor
+    implements DisposableBean {
+
+  private final ThreadPoolExecutor executor;
+
+  public StartsWorkflowBeanPostProcessor(
+      TemporalProperties temporalProperties, TemporalClientRegistry temporalClientRegistry) {
+    StartsWorkflowOptions options = temporalProperties.getStartsWorkflow();
+    AtomicInteger threads = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            options.getConcurrency(),
+            options.getConcurrency(),
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(options.getQueueCapacity()),
+            r -> {
+              Thread thread =
+                  new Thread(r, "temporal-starts-workflow-" + threads.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    this.advisor =
+        new DefaultPointcutAdvisor(
+            new AnnotationMatchingPointcut(null, StartsWorkflow.class, true),
+            new StartsWorkflowInterceptor(temporalClientRegistry, executor));
+    setBeforeExistingAdvisors(true);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+}
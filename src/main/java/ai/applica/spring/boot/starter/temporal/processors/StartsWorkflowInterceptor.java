@@ -0,0 +1,183 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.processors;
+
+import ai.applica.spring.boot.starter.temporal.TemporalClientRegistry;
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.annotations.StartsWorkflow;
+import ai.applica.spring.boot.starter.temporal.annotations.TemporalWorkflow;
+import ai.applica.spring.boot.starter.temporal.client.ClientLimitExceededException;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.workflow.WorkflowInterface;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Starts workflow of a method annotated with {@link StartsWorkflow} on the shared executor. Type
+ * and options of the workflow are resolved and expressions parsed once per method, a call only
+ * evaluates expressions and sets workflow id. Failed and rejected starts are counted, for methods
+ * returning void, which have no future to report them, they are also logged.
+ */
+@Slf4j
+class StartsWorkflowInterceptor implements MethodInterceptor {
+
+  static final String QUEUE_DEPTH = "temporal_starter_starts_workflow_queue_depth";
+  static final String FAILED = "temporal_starter_starts_workflow_failed";
+  static final String REJECTED = "temporal_starter_starts_workflow_rejected";
+
+  private final TemporalClientRegistry temporalClientRegistry;
+  private final ThreadPoolExecutor executor;
+  private final SpelExpressionParser parser = new SpelExpressionParser();
+  private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+  private final Map<Method, Start> starts = new ConcurrentHashMap<>();
+
+  StartsWorkflowInterceptor(
+      TemporalClientRegistry temporalClientRegistry, ThreadPoolExecutor executor) {
+    this.temporalClientRegistry = temporalClientRegistry;
+    this.executor = executor;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) {
+    Method method = invocation.getMethod();
+    Start start = starts.computeIfAbsent(method, this::prepare);
+    EvaluationContext context =
+        new MethodBasedEvaluationContext(
+            invocation.getThis(), method, invocation.getArguments(), parameterNames);
+    String workflowId =
+        start.workflowId == null
+            ? UUID.randomUUID().toString()
+            : String.valueOf(start.workflowId.getValue(context));
+    Object[] args =
+        start.args == null
+            ? invocation.getArguments()
+            : start.args.stream().map(arg -> arg.getValue(context)).toArray();
+    WorkflowOptions options =
+        WorkflowOptions.newBuilder(start.options).setWorkflowId(workflowId).build();
+    boolean returnsVoid = method.getReturnType() == void.class;
+    CompletableFuture<WorkflowExecution> result = new CompletableFuture<>();
+    try {
+      executor.execute(
+          () -> {
+            queueDepth(start.scope);
+            try {
+              result.complete(
+                  start
+                      .workflowClient
+                      .newUntypedWorkflowStub(start.workflowType, options)
+                      .start(args));
+            } catch (RuntimeException e) {
+              start.scope.counter(FAILED).inc(1);
+              if (returnsVoid) {
+                log.error("Start of workflow {} from {} failed", workflowId, method, e);
+              }
+              result.completeExceptionally(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      start.scope.counter(REJECTED).inc(1);
+      if (returnsVoid) {
+        log.warn("Queue of @StartsWorkflow starts is full, workflow {} not started", workflowId);
+      }
+      result.completeExceptionally(
+          new ClientLimitExceededException(
+              "Queue of @StartsWorkflow starts is full, workflow " + workflowId + " not started"));
+    }
+    queueDepth(start.scope);
+    return returnsVoid ? null : result;
+  }
+
+  private void queueDepth(Scope scope) {
+    scope.gauge(QUEUE_DEPTH).update(executor.getQueue().size());
+  }
+
+  private Start prepare(Method method) {
+    if (method.getReturnType() != void.class
+        && !method.getReturnType().isAssignableFrom(CompletableFuture.class)) {
+      throw new IllegalStateException(
+          "Method " + method + " annotated with @StartsWorkflow must return CompletableFuture");
+    }
+    StartsWorkflow annotation = AnnotationUtils.findAnnotation(method, StartsWorkflow.class);
+    Class<?> workflowClass = annotation.value();
+    TemporalWorkflow workflow =
+        AnnotationUtils.findAnnotation(workflowClass, TemporalWorkflow.class);
+    if (workflow == null) {
+      throw new IllegalStateException(
+          workflowClass.getSimpleName() + " used in @StartsWorkflow has no @TemporalWorkflow");
+    }
+    List<Class<?>> workflowInterfaces =
+        ClassUtils.getAllInterfacesForClassAsSet(workflowClass).stream()
+            .filter(i -> i.isAnnotationPresent(WorkflowInterface.class))
+            .collect(Collectors.toList());
+    if (workflowInterfaces.size() != 1) {
+      throw new IllegalStateException(
+          workflowClass.getSimpleName()
+              + " used in @StartsWorkflow must have exactly one workflow interface");
+    }
+    WorkflowFactory workflowFactory =
+        temporalClientRegistry.getWorkflowFactory(workflow.client());
+    workflowFactory.registerProtobufTypes(workflowInterfaces.get(0));
+    WorkflowClient workflowClient = workflowFactory.getWorkflowClient();
+    Start start = new Start();
+    start.workflowClient = workflowClient;
+    start.workflowType = WorkflowFactory.workflowType(workflowInterfaces.get(0));
+    start.options = workflowFactory.defaultOptionsBuilder(workflowClass).build();
+    start.scope = workflowClient.getWorkflowServiceStubs().getOptions().getMetricsScope();
+    start.workflowId =
+        annotation.workflowId().isEmpty() ? null : parser.parseExpression(annotation.workflowId());
+    if (annotation.args().length > 0) {
+      start.args =
+          Arrays.stream(annotation.args())
+              .map(parser::parseExpression)
+              .collect(Collectors.toList());
+    }
+    return start;
+  }
+
+  /** Resolved workflow of an annotated method. */
+  private static class Start {
+    WorkflowClient workflowClient;
+    String workflowType;
+    WorkflowOptions options;
+    Scope scope;
+    Expression workflowId;
+    List<Expression> args;
+  }
+}
@@ -17,13 +17,12 @@
 
 package ai.applica.spring.boot.starter.temporal.processors;
 
+import ai.applica.spring.boot.starter.temporal.TemporalClientRegistry;
 import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
 import ai.applica.spring.boot.starter.temporal.annotations.ActivityStub;
 import ai.applica.spring.boot.starter.temporal.annotations.TemporalWorkflow;
-import ai.applica.spring.boot.starter.temporal.config.TemporalOptionsConfiguration;
 import ai.applica.spring.boot.starter.temporal.config.TemporalProperties;
 import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.WorkflowOption;
-import io.temporal.client.WorkflowClient;
 import io.temporal.worker.Worker;
 import io.temporal.worker.WorkerFactory;
 import io.temporal.worker.WorkerOptions;
@@ -60,9 +59,7 @@ public class WorkflowAnnotationBeanPostProcessor
     implements BeanPostProcessor, Ordered, BeanFactoryAware, SmartInitializingSingleton {
 
   private final TemporalProperties temporalProperties;
-  private final TemporalOptionsConfiguration temporalOptionsConfiguration;
-  private final WorkerFactory workerFactory;
-  private final WorkflowClient workflowClient;
+  private final TemporalClientRegistry temporalClientRegistry;
   private final Set<String> classes = new HashSet<>();
 
   private BeanFactory beanFactory;
@@ -109,10 +106,11 @@ public class WorkflowAnnotationBeanPostProcessor
       if (options == null) {
         throw new RuntimeException("No configuration defined for workflow: " + value);
       }
+      WorkerFactory workerFactory = temporalClientRegistry.getWorkerFactory(workflow.client());
       Worker worker = workerFactory.newWorker(options.getTaskQueue(), getWorkerOptions(options));
 
       WorkflowFactory workflowFactory =
-          new WorkflowFactory(temporalProperties, workflowClient, temporalOptionsConfiguration);
+          temporalClientRegistry.getWorkflowFactory(workflow.client());
 
       try {
         List<Object> activities = getBeansForInnerWorker(beanName, targetClass);
@@ -176,7 +174,7 @@ public class WorkflowAnnotationBeanPostProcessor
   @Override
   public void afterSingletonsInstantiated() {
     if (temporalProperties.isCreateWorkers()) {
-      workerFactory.start();
+      temporalClientRegistry.startWorkerFactories();
     }
   }
 
@@ -0,0 +1,108 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.applica.spring.boot.starter.temporal.annotations.TemporalWorkflow;
+import io.grpc.ManagedChannel;
+import io.temporal.testserver.TestServer;
+import io.temporal.testserver.TestServer.PortBoundTestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Workers made from annotations, without the test profile, against a port bound test server. */
+class NamedClientWorkerTest {
+
+  private PortBoundTestServer server;
+  private ConfigurableApplicationContext context;
+
+  @BeforeEach
+  void setUp() {
+    server = TestServer.createPortBoundServer(7236);
+    context =
+        new SpringApplicationBuilder(NamedClientWorkerConfiguration.class)
+            .web(WebApplicationType.NONE)
+            .profiles("named-client-worker")
+            .run();
+  }
+
+  @AfterEach
+  void tearDown() {
+    context.close();
+    server.close();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldRunWorkflowBoundToNamedClient() {
+    TemporalClientRegistry registry = context.getBean(TemporalClientRegistry.class);
+
+    HelloWorkflow workflow =
+        registry
+            .getWorkflowFactory("other")
+            .makeStub(HelloWorkflow.class, NamedClientWorkflowImpl.class);
+
+    assertThat(workflow.process()).isEqualTo("Hello from other");
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldShutDownChannelsWhenContextCloses() {
+    TemporalClientRegistry registry = context.getBean(TemporalClientRegistry.class);
+    ManagedChannel defaultChannel =
+        registry
+            .getClient(TemporalClientRegistry.DEFAULT_CLIENT)
+            .getWorkflowServiceStubs()
+            .getRawChannel();
+    ManagedChannel otherChannel =
+        registry.getClient("other").getWorkflowServiceStubs().getRawChannel();
+
+    context.close();
+
+    assertThat(defaultChannel.isTerminated()).isTrue();
+    assertThat(otherChannel.isTerminated()).isTrue();
+  }
+
+  @Configuration
+  @EnableAutoConfiguration
+  static class NamedClientWorkerConfiguration {
+
+    @Bean
+    NamedClientWorkflowImpl namedClientWorkflow() {
+      return new NamedClientWorkflowImpl();
+    }
+  }
+
+  @TemporalWorkflow(value = "NamedClient", client = "other")
+  public static class NamedClientWorkflowImpl implements HelloWorkflow {
+
+    @Override
+    public String process() {
+      return "Hello from other";
+    }
+  }
+}
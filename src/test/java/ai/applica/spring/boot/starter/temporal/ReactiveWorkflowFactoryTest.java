@@ -0,0 +1,156 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloSignal;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.MethodDescriptor;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.Disposable;
+
+/** Reactive calls against the test environment. */
+class ReactiveWorkflowFactoryTest extends BaseTest {
+
+  private TestWorkflowEnvironment testEnv;
+  private ReactiveWorkflowFactory reactive;
+  private CountDownLatch historyPollCancelled;
+
+  @Autowired WorkflowFactory fact;
+  @Autowired TemporalProperties temporalProperties;
+  @Autowired ReactiveWorkflowFactory defaultReactiveWorkflowFactory;
+
+  @BeforeEach
+  void setUp() {
+    historyPollCancelled = new CountDownLatch(1);
+    testEnv =
+        TestWorkflowEnvironment.newInstance(
+            TestEnvironmentOptions.newBuilder()
+                .setWorkflowServiceStubsOptions(
+                    WorkflowServiceStubsOptions.newBuilder()
+                        .setGrpcClientInterceptors(
+                            Collections.singletonList(new HistoryPollCancelRecorder()))
+                        .build())
+                .build());
+    fact.makeWorker(testEnv, HelloSignal.GreetingWorkflowImpl.class);
+    fact.makeWorker(testEnv, HelloQuery.GreetingWorkflowImpl.class);
+    testEnv.start();
+    reactive = new ReactiveWorkflowFactory(temporalProperties, fact, testEnv.getWorkflowClient());
+  }
+
+  @AfterEach
+  void tearDown() {
+    testEnv.close();
+  }
+
+  @Test
+  void shouldBeConfiguredWithReactorOnClasspath() {
+    assertThat(defaultReactiveWorkflowFactory).isNotNull();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldStartQueryAndAwaitResult() {
+    WorkflowExecution execution =
+        reactive
+            .start(
+                HelloQuery.GreetingWorkflow.class,
+                HelloQuery.GreetingWorkflowImpl.class,
+                "reactive-query",
+                "World")
+            .block();
+
+    assertThat(execution.getRunId()).isNotEmpty();
+    assertThat(reactive.query("reactive-query", "queryGreeting", String.class).block())
+        .isEqualTo("Hello World!");
+    assertThat(reactive.result(execution, Void.class).block()).isNull();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldSignalWithStartAndSignal() {
+    reactive
+        .signalWithStart(
+            HelloSignal.GreetingWorkflow.class,
+            HelloSignal.GreetingWorkflowImpl.class,
+            "reactive-signal",
+            "waitForName",
+            new Object[] {"World"})
+        .block();
+    reactive.signal("reactive-signal", "exit").block();
+
+    @SuppressWarnings("unchecked")
+    List<String> greetings = reactive.result("reactive-signal", List.class).block();
+    assertThat(greetings).containsExactly("Hello World!");
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldCancelResultPollWhenSubscriptionIsDisposed() throws InterruptedException {
+    reactive
+        .start(
+            HelloSignal.GreetingWorkflow.class,
+            HelloSignal.GreetingWorkflowImpl.class,
+            "reactive-dispose")
+        .block();
+
+    Disposable subscription = reactive.result("reactive-dispose", List.class).subscribe();
+    subscription.dispose();
+
+    assertThat(historyPollCancelled.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  /** Counts down when a long poll of workflow history is cancelled by the client. */
+  private class HistoryPollCancelRecorder implements ClientInterceptor {
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      return new SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+        @Override
+        public void cancel(String message, Throwable cause) {
+          if (method.equals(WorkflowServiceGrpc.getGetWorkflowExecutionHistoryMethod())) {
+            historyPollCancelled.countDown();
+          }
+          super.cancel(message, cause);
+        }
+      };
+    }
+  }
+}
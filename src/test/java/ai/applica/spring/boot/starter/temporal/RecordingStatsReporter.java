@@ -0,0 +1,105 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+
+package ai.applica.spring.boot.starter.temporal;
+
+import com.uber.m3.tally.Buckets;
+import com.uber.m3.tally.Capabilities;
+import com.uber.m3.tally.CapableOf;
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.StatsReporter;
+import com.uber.m3.util.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps metrics reported by a scope from {@link #newScope()}, counters are summed, gauges keep the
+ * last value and timers and histograms count samples. Values are reported every few milliseconds
+ * and when the scope is closed.
+ */
+public class RecordingStatsReporter implements StatsReporter {
+
+  private final Map<String, Long> counters = new ConcurrentHashMap<>();
+  private final Map<String, Double> gauges = new ConcurrentHashMap<>();
+  private final Map<String, Long> samples = new ConcurrentHashMap<>();
+
+  public Scope newScope() {
+    return new RootScopeBuilder().reporter(this).reportEvery(Duration.ofMillis(10));
+  }
+
+  public long counter(String name) {
+    return counters.getOrDefault(name, 0L);
+  }
+
+  public Double gauge(String name) {
+    return gauges.get(name);
+  }
+
+  public long samples(String name) {
+    return samples.getOrDefault(name, 0L);
+  }
+
+  @Override
+  public void reportCounter(String name, Map<String, String> tags, long value) {
+    counters.merge(name, value, Long::sum);
+  }
+
+  @Override
+  public void reportGauge(String name, Map<String, String> tags, double value) {
+    gauges.put(name, value);
+  }
+
+  @Override
+  public void reportTimer(String name, Map<String, String> tags, Duration interval) {
+    samples.merge(name, 1L, Long::sum);
+  }
+
+  @Override
+  public void reportHistogramValueSamples(
+      String name,
+      Map<String, String> tags,
+      Buckets buckets,
+      double bucketLowerBound,
+      double bucketUpperBound,
+      long samples) {
+    this.samples.merge(name, samples, Long::sum);
+  }
+
+  @Override
+  public void reportHistogramDurationSamples(
+      String name,
+      Map<String, String> tags,
+      Buckets buckets,
+      Duration bucketLowerBound,
+      Duration bucketUpperBound,
+      long samples) {
+    this.samples.merge(name, samples, Long::sum);
+  }
+
+  @Override
+  public Capabilities capabilities() {
+    return CapableOf.REPORTING;
+  }
+
+  @Override
+  public void flush() {}
+
+  @Override
+  public void close() {}
+}
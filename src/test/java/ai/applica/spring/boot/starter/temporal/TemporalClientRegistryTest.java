@@ -0,0 +1,58 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import io.temporal.client.WorkflowClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+
+/** Unit tests for clients configured under spring.temporal.clients */
+@ActiveProfiles("named-clients")
+class TemporalClientRegistryTest extends BaseTest {
+
+  @Autowired TemporalClientRegistry registry;
+  @Autowired WorkflowClient defaultClient;
+  @Autowired WorkflowFactory defaultWorkflowFactory;
+
+  @Test
+  void shouldRegisterDefaultClient() {
+    assertThat(registry.getClient(TemporalClientRegistry.DEFAULT_CLIENT)).isSameAs(defaultClient);
+    assertThat(registry.getWorkflowFactory(TemporalClientRegistry.DEFAULT_CLIENT))
+        .isSameAs(defaultWorkflowFactory);
+  }
+
+  @Test
+  void shouldCreateNamedClient() {
+    assertThat(registry.getClientNames()).contains("other");
+    assertThat(registry.getClient("other").getOptions().getNamespace()).isEqualTo("other");
+    assertThat(registry.getWorkflowFactory("other").getClientName()).isEqualTo("other");
+    assertThat(registry.getWorkerFactory("other").getWorkflowClient())
+        .isSameAs(registry.getClient("other"));
+  }
+
+  @Test
+  void shouldRejectUnknownClient() {
+    assertThatThrownBy(() -> registry.getClient("missing"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
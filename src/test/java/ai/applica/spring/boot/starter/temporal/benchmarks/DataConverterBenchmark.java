@@ -0,0 +1,121 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.benchmarks;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.DataConverterOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.JacksonFormat;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.JsonMapper;
+import ai.applica.spring.boot.starter.temporal.converter.DataConverters;
+import ai.applica.spring.boot.starter.temporal.converter.ProtobufMessageTypes;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Round trip of a payload through each data converter selectable in properties. Run the main
+ * method from the IDE or with <code>java -cp</code> on the test classpath.
+ */
+public class DataConverterBenchmark {
+
+  public static void main(String[] args) {
+    Order order = order();
+    WorkflowExecutionInfo info = executionInfo();
+    System.out.println("JSON object, " + order.getLines().size() + " lines");
+    run("SDK default", DefaultDataConverter.newDefaultInstance(), order, Order.class);
+    for (JsonMapper jsonMapper : JsonMapper.values()) {
+      run(jsonMapper.name(), converter(jsonMapper, JacksonFormat.JSON, false), order, Order.class);
+    }
+    for (JacksonFormat format : JacksonFormat.values()) {
+      run(format.name(), converter(JsonMapper.SDK, format, false), order, Order.class);
+    }
+    System.out.println("Protobuf message");
+    Class<WorkflowExecutionInfo> infoType = WorkflowExecutionInfo.class;
+    run("protobuf JSON", DefaultDataConverter.newDefaultInstance(), info, infoType);
+    run("protobuf first", converter(JsonMapper.SDK, JacksonFormat.JSON, true), info, infoType);
+  }
+
+  private static <T> void run(String name, DataConverter converter, T value, Class<T> type) {
+    int size = converter.toPayload(value).get().getSerializedSize();
+    double nanos =
+        Measure.nanosPerOp(
+            () -> {
+              Payload payload = converter.toPayload(value).get();
+              Measure.sink = converter.fromPayload(payload, type, type);
+            });
+    System.out.printf("  %-16s %s %8d bytes%n", name, Measure.format(nanos), size);
+  }
+
+  private static DataConverter converter(
+      JsonMapper jsonMapper, JacksonFormat format, boolean protobufFirst) {
+    DataConverterOptions options = new DataConverterOptions();
+    options.setJsonMapper(jsonMapper);
+    options.setJacksonFormat(format);
+    options.setProtobufFirst(protobufFirst);
+    // stands in for the mapper of the application context
+    return DataConverters.newDataConverter(
+        options, DataConverters::newSdkObjectMapper, new ProtobufMessageTypes());
+  }
+
+  private static Order order() {
+    List<OrderLine> lines = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      lines.add(
+          new OrderLine("SKU-" + i, "Product number " + i, i % 5 + 1, new BigDecimal("9.99")));
+    }
+    return new Order("order-1", "customer-1", Instant.now(), "NEW", lines);
+  }
+
+  private static WorkflowExecutionInfo executionInfo() {
+    return WorkflowExecutionInfo.newBuilder()
+        .setExecution(
+            WorkflowExecution.newBuilder().setWorkflowId("order-1").setRunId("run-1").build())
+        .setHistoryLength(120)
+        .setTaskQueue("orders")
+        .build();
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Order {
+    private String id;
+    private String customerId;
+    private Instant createdAt;
+    private String status;
+    private List<OrderLine> lines;
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class OrderLine {
+    private String sku;
+    private String description;
+    private int quantity;
+    private BigDecimal price;
+  }
+}
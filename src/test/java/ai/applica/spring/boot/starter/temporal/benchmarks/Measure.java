@@ -0,0 +1,57 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal timing loop for the benchmarks of this package. Runs a warm-up so the JIT has compiled
+ * the measured code, then reports average time of one operation.
+ */
+final class Measure {
+
+  static final int WARM_UP_ITERATIONS = 20_000;
+  static final int ITERATIONS = 100_000;
+
+  /** Keeps results reachable so the JIT does not drop the measured work. */
+  static volatile Object sink;
+
+  private Measure() {}
+
+  /** @return average nanoseconds per operation */
+  static double nanosPerOp(Runnable operation) {
+    return nanosPerOp(WARM_UP_ITERATIONS, ITERATIONS, operation);
+  }
+
+  /** For operations too slow for the default iteration counts. */
+  static double nanosPerOp(int warmUpIterations, int iterations, Runnable operation) {
+    for (int i = 0; i < warmUpIterations; i++) {
+      operation.run();
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      operation.run();
+    }
+    return (double) (System.nanoTime() - start) / iterations;
+  }
+
+  static String format(double nanosPerOp) {
+    return String.format(
+        "%10.0f ns/op %8.0f ops/s", nanosPerOp, TimeUnit.SECONDS.toNanos(1) / nanosPerOp);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.benchmarks;
+
+import ai.applica.spring.boot.starter.temporal.benchmarks.DataConverterBenchmark.Order;
+import ai.applica.spring.boot.starter.temporal.benchmarks.DataConverterBenchmark.OrderLine;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.CompressionAlgorithm;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.PayloadCompressionOptions;
+import ai.applica.spring.boot.starter.temporal.converter.CompressionPayloadCodec;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DefaultDataConverter;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compression ratio against encode and decode time of {@link CompressionPayloadCodec} for each
+ * algorithm and a few levels. Payloads are an activity result of about 150 KB of JSON and a list
+ * of random identifiers, which compresses much less.
+ */
+public class PayloadCompressionBenchmark {
+
+  private static final int WARM_UP_ITERATIONS = 200;
+  private static final int ITERATIONS = 1_000;
+
+  public static void main(String[] args) {
+    run("order JSON", payload(order()));
+    run("random ids", payload(ids()));
+  }
+
+  private static void run(String name, Payload payload) {
+    List<Payload> payloads = Collections.singletonList(payload);
+    System.out.printf("%s, %d bytes%n", name, payload.getSerializedSize());
+    for (CompressionAlgorithm algorithm : CompressionAlgorithm.values()) {
+      for (Integer level : levels(algorithm)) {
+        CompressionPayloadCodec codec = codec(algorithm, level);
+        List<Payload> encoded = codec.encode(payloads);
+        double encode =
+            Measure.nanosPerOp(
+                WARM_UP_ITERATIONS, ITERATIONS, () -> Measure.sink = codec.encode(payloads));
+        double decode =
+            Measure.nanosPerOp(
+                WARM_UP_ITERATIONS, ITERATIONS, () -> Measure.sink = codec.decode(encoded));
+        System.out.printf(
+            "  %-8s level %-7s ratio %5.2f  encode %s  decode %s%n",
+            algorithm,
+            level == null ? "default" : level,
+            (double) payload.getSerializedSize() / encoded.get(0).getSerializedSize(),
+            Measure.format(encode),
+            Measure.format(decode));
+      }
+    }
+  }
+
+  private static Integer[] levels(CompressionAlgorithm algorithm) {
+    // LZ4 has a fast mode without level and high compression levels
+    return algorithm == CompressionAlgorithm.LZ4
+        ? new Integer[] {null, 9}
+        : new Integer[] {1, null, 9};
+  }
+
+  private static CompressionPayloadCodec codec(CompressionAlgorithm algorithm, Integer level) {
+    PayloadCompressionOptions options = new PayloadCompressionOptions();
+    options.setAlgorithm(algorithm);
+    options.setLevel(level);
+    return new CompressionPayloadCodec(options);
+  }
+
+  private static Payload payload(Object value) {
+    return DefaultDataConverter.newDefaultInstance().toPayload(value).get();
+  }
+
+  private static Order order() {
+    List<OrderLine> lines = new ArrayList<>();
+    for (int i = 0; i < 1_500; i++) {
+      lines.add(
+          new OrderLine(
+              "SKU-" + i % 200,
+              "Product number " + i % 200,
+              i % 5 + 1,
+              new BigDecimal(i % 100 + ".99")));
+    }
+    return new Order("order-1", "customer-1", Instant.now(), "NEW", lines);
+  }
+
+  private static List<String> ids() {
+    List<String> ids = new ArrayList<>();
+    for (int i = 0; i < 3_000; i++) {
+      ids.add(UUID.randomUUID().toString());
+    }
+    return ids;
+  }
+}
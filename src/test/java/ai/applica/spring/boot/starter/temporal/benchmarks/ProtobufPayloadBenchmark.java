@@ -0,0 +1,89 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.benchmarks;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.DataConverterOptions;
+import ai.applica.spring.boot.starter.temporal.converter.DataConverters;
+import ai.applica.spring.boot.starter.temporal.converter.ProtobufMessageTypes;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
+import io.temporal.api.taskqueue.v1.TaskQueue;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+
+/**
+ * Round trip of a large nested protobuf message through the default JSON path and through binary
+ * encoding of messages used by registered interfaces.
+ */
+public class ProtobufPayloadBenchmark {
+
+  private static final int WARM_UP_ITERATIONS = 2_000;
+  private static final int ITERATIONS = 10_000;
+
+  @ActivityInterface
+  public interface HistoryActivities {
+    History load(WorkflowExecution execution);
+  }
+
+  public static void main(String[] args) {
+    History history = history(200);
+    DataConverterOptions options = new DataConverterOptions();
+    options.setProtobufStubTypes(true);
+    ProtobufMessageTypes messageTypes = new ProtobufMessageTypes();
+    messageTypes.registerInterface(HistoryActivities.class);
+    run("protobuf JSON", DefaultDataConverter.newDefaultInstance(), history);
+    run("binary", DataConverters.newDataConverter(options, () -> null, messageTypes), history);
+  }
+
+  private static void run(String name, DataConverter converter, History history) {
+    int size = converter.toPayload(history).get().getSerializedSize();
+    double nanos =
+        Measure.nanosPerOp(
+            WARM_UP_ITERATIONS,
+            ITERATIONS,
+            () -> {
+              Payload payload = converter.toPayload(history).get();
+              Measure.sink = converter.fromPayload(payload, History.class, History.class);
+            });
+    System.out.printf("  %-14s %s %8d bytes%n", name, Measure.format(nanos), size);
+  }
+
+  private static History history(int events) {
+    History.Builder history = History.newBuilder();
+    for (int i = 1; i <= events; i++) {
+      history.addEvents(
+          HistoryEvent.newBuilder()
+              .setEventId(i)
+              .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_STARTED)
+              .setWorkflowExecutionStartedEventAttributes(
+                  WorkflowExecutionStartedEventAttributes.newBuilder()
+                      .setWorkflowType(WorkflowType.newBuilder().setName("OrderWorkflow"))
+                      .setTaskQueue(TaskQueue.newBuilder().setName("orders"))
+                      .setIdentity("worker-" + i % 10 + "@host")
+                      .setOriginalExecutionRunId("run-" + i)
+                      .setAttempt(1)));
+    }
+    return history.build();
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.client.AdaptiveConcurrencyLimiter.CallType;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.AdaptiveLimitOptions;
+import com.uber.m3.tally.NoopScope;
+import io.grpc.Status;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Test
+  void shouldShrinkOnResourceExhausted() {
+    AdaptiveConcurrencyLimiter limiter = newLimiter(10);
+
+    assertThatThrownBy(
+            () ->
+                limiter.execute(
+                    CallType.START,
+                    () -> {
+                      throw Status.RESOURCE_EXHAUSTED.asRuntimeException();
+                    }))
+        .isInstanceOf(RuntimeException.class);
+
+    assertThat(limiter.getLimit()).isEqualTo(9);
+  }
+
+  @Test
+  void shouldShrinkOnSlowCalls() {
+    AdaptiveConcurrencyLimiter limiter = newLimiter(10);
+    limiter.acquire();
+    limiter.release(CallType.SIGNAL, FAST, false);
+
+    limiter.acquire();
+    limiter.release(CallType.SIGNAL, FAST * 10, false);
+
+    assertThat(limiter.getLimit()).isEqualTo(9);
+  }
+
+  @Test
+  void shouldCompareLatencyWithAverageOfSameCallType() {
+    AdaptiveConcurrencyLimiter limiter = newLimiter(10);
+    limiter.acquire();
+    limiter.release(CallType.SIGNAL, FAST, false);
+
+    limiter.acquire();
+    limiter.release(CallType.QUERY, FAST * 10, false);
+
+    assertThat(limiter.getLimit()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldReleaseSlotWhenAsyncCallCompletes() {
+    AdaptiveConcurrencyLimiter limiter = newLimiter(1);
+    CompletableFuture<String> call = new CompletableFuture<>();
+
+    CompletableFuture<String> first = limiter.executeAsync(CallType.QUERY, () -> call);
+    CompletableFuture<String> rejected =
+        limiter.executeAsync(CallType.QUERY, () -> CompletableFuture.completedFuture("second"));
+    call.complete("first");
+
+    assertThat(first).isCompletedWithValue("first");
+    assertThat(rejected).isCompletedExceptionally();
+    CompletableFuture<String> third =
+        limiter.executeAsync(CallType.QUERY, () -> CompletableFuture.completedFuture("third"));
+    assertThat(third).isCompletedWithValue("third");
+  }
+
+  @Test
+  void shouldGrowWhileLimitIsUsedAndCallsAreFast() {
+    AdaptiveConcurrencyLimiter limiter = newLimiter(2);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.acquire();
+      limiter.acquire();
+      limiter.release(CallType.SIGNAL, FAST, false);
+      limiter.release(CallType.SIGNAL, FAST, false);
+    }
+
+    assertThat(limiter.getLimit()).isGreaterThan(2);
+  }
+
+  @Test
+  void shouldNotGoBelowMinimum() {
+    AdaptiveConcurrencyLimiter limiter = newLimiter(1);
+
+    limiter.acquire();
+    limiter.release(CallType.SIGNAL, FAST, true);
+
+    assertThat(limiter.getLimit()).isEqualTo(1);
+  }
+
+  private static AdaptiveConcurrencyLimiter newLimiter(int initialLimit) {
+    AdaptiveLimitOptions options = new AdaptiveLimitOptions();
+    options.setInitialLimit(initialLimit);
+    options.setMaxWait(Duration.ofMillis(10));
+    return new AdaptiveConcurrencyLimiter(options, new NoopScope());
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.BatchOptions;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloSignal.GreetingWorkflow;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloSignal.GreetingWorkflowImpl;
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.DescribeWorkflowExecutionRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
+import io.temporal.client.WorkflowClient;
+import io.temporal.testing.TestWorkflowEnvironment;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Calls go to the in-memory test server. It has no visibility queries, so executions are listed
+ * from memory in pages of two.
+ */
+class BatchOperationTest extends BaseTest {
+
+  private static final String QUERY = "WorkflowType='GreetingWorkflow'";
+
+  @TempDir Path dir;
+  private TestWorkflowEnvironment testEnv;
+  private final List<WorkflowExecution> executions = new ArrayList<>();
+  private BatchOperation operation;
+
+  @Autowired WorkflowFactory fact;
+
+  @BeforeEach
+  void setUp() {
+    testEnv = TestWorkflowEnvironment.newInstance();
+    fact.makeWorker(testEnv, GreetingWorkflowImpl.class);
+    testEnv.start();
+    executions.clear();
+    for (int i = 0; i < 5; i++) {
+      GreetingWorkflow workflow =
+          fact.makeStub(
+              GreetingWorkflow.class, GreetingWorkflowImpl.class, testEnv.getWorkflowClient());
+      executions.add(WorkflowClient.start(workflow::getGreetings));
+    }
+    BatchOptions options = new BatchOptions();
+    options.setConcurrency(2);
+    options.setRatePerSecond(1000d);
+    operation = new BatchOperation(testEnv.getWorkflowClient(), options, new MemoryListing());
+  }
+
+  @AfterEach
+  void tearDown() {
+    testEnv.close();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldTerminateAllExecutions() {
+    Path checkpoint = dir.resolve("terminate.checkpoint");
+    List<BatchProgress> reported = new ArrayList<>();
+
+    BatchProgress progress =
+        operation.run(QUERY, BatchAction.terminate("clean-up"), checkpoint, reported::add);
+
+    assertThat(progress.getSucceeded()).isEqualTo(5);
+    assertThat(progress.isDone()).isTrue();
+    assertThat(reported).hasSize(3);
+    assertThat(checkpoint).doesNotExist();
+    for (WorkflowExecution execution : executions) {
+      assertThat(status(execution))
+          .isEqualTo(WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_TERMINATED);
+    }
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldSignalAllExecutions() {
+    BatchProgress progress = operation.run(QUERY, BatchAction.signal("exit"), null, null);
+
+    assertThat(progress.getSucceeded()).isEqualTo(5);
+    for (WorkflowExecution execution : executions) {
+      List<?> result =
+          testEnv
+              .getWorkflowClient()
+              .newUntypedWorkflowStub(execution.getWorkflowId())
+              .getResult(List.class);
+      assertThat(result).isEmpty();
+    }
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldResumeFromCheckpoint() throws Exception {
+    Path checkpoint = dir.resolve("resume.checkpoint");
+
+    assertThatThrownBy(
+            () ->
+                operation.run(
+                    QUERY,
+                    BatchAction.terminate("clean-up"),
+                    checkpoint,
+                    progress -> {
+                      throw new IllegalStateException("stopped after " + progress.getPages());
+                    }))
+        .hasMessage("stopped after 1");
+    assertThat(checkpoint).exists();
+    assertThat(new String(Files.readAllBytes(checkpoint))).contains("succeeded=2");
+
+    BatchProgress progress =
+        operation.run(QUERY, BatchAction.terminate("clean-up"), checkpoint, null);
+
+    assertThat(progress.getPages()).isEqualTo(3);
+    assertThat(progress.getTotal()).isEqualTo(5);
+    assertThat(progress.getSucceeded()).isEqualTo(5);
+    assertThat(checkpoint).doesNotExist();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldCountPageMadeAgainOnce() {
+    Path checkpoint = dir.resolve("again.checkpoint");
+    String stoppedAt = executions.get(2).getWorkflowId();
+    assertThatThrownBy(
+            () ->
+                operation.run(
+                    QUERY,
+                    workflow -> {
+                      workflow.terminate("clean-up");
+                      if (workflow.getExecution().getWorkflowId().equals(stoppedAt)) {
+                        throw new Error("stopped");
+                      }
+                    },
+                    checkpoint,
+                    null))
+        .hasRootCauseMessage("stopped");
+
+    BatchProgress progress =
+        operation.run(QUERY, BatchAction.terminate("clean-up"), checkpoint, null);
+
+    assertThat(progress.getPages()).isEqualTo(3);
+    assertThat(progress.getTotal()).isEqualTo(5);
+    assertThat(progress.getSucceeded()).isLessThan(5);
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldRejectCheckpointOfAnotherQuery() {
+    Path checkpoint = dir.resolve("signal.checkpoint");
+    assertThatThrownBy(
+            () ->
+                operation.run(
+                    QUERY,
+                    BatchAction.signal("exit"),
+                    checkpoint,
+                    progress -> {
+                      throw new IllegalStateException("stopped");
+                    }))
+        .hasMessage("stopped");
+
+    String otherQuery = "ExecutionStatus='Running'";
+    assertThatThrownBy(() -> operation.run(otherQuery, BatchAction.cancel(), checkpoint, null))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldStopWhenInterrupted() {
+    Path checkpoint = dir.resolve("interrupted.checkpoint");
+    Thread.currentThread().interrupt();
+
+    try {
+      assertThatThrownBy(
+              () -> operation.run(QUERY, BatchAction.terminate("clean-up"), checkpoint, null))
+          .isInstanceOf(IllegalStateException.class)
+          .hasCauseInstanceOf(InterruptedException.class);
+    } finally {
+      assertThat(Thread.interrupted()).isTrue();
+    }
+    assertThat(checkpoint).doesNotExist();
+  }
+
+  private WorkflowExecutionStatus status(WorkflowExecution execution) {
+    return testEnv
+        .getWorkflowClient()
+        .getWorkflowServiceStubs()
+        .blockingStub()
+        .describeWorkflowExecution(
+            DescribeWorkflowExecutionRequest.newBuilder()
+                .setNamespace(testEnv.getNamespace())
+                .setExecution(execution)
+                .build())
+        .getWorkflowExecutionInfo()
+        .getStatus();
+  }
+
+  /** Started executions in pages of two, page token is the index of the first execution. */
+  private class MemoryListing extends WorkflowExecutionListing {
+
+    MemoryListing() {
+      super(testEnv.getWorkflowClient(), 2);
+    }
+
+    @Override
+    public Stream<ListWorkflowExecutionsResponse> pages(String query, ByteString pageToken) {
+      return stream(
+          new Pages(
+              token -> {
+                int from = token.isEmpty() ? 0 : Integer.parseInt(token.toStringUtf8());
+                ListWorkflowExecutionsResponse.Builder page =
+                    ListWorkflowExecutionsResponse.newBuilder();
+                for (int i = from; i < Math.min(from + 2, executions.size()); i++) {
+                  page.addExecutions(
+                      WorkflowExecutionInfo.newBuilder().setExecution(executions.get(i)));
+                }
+                if (from + 2 < executions.size()) {
+                  page.setNextPageToken(ByteString.copyFromUtf8(String.valueOf(from + 2)));
+                }
+                return CompletableFuture.completedFuture(page.build());
+              },
+              pageToken));
+    }
+  }
+}
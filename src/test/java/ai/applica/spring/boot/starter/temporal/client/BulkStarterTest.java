@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflowImpl;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class BulkStarterTest extends BaseTest {
+
+  private TestWorkflowEnvironment testEnv;
+  private BulkStarter starter;
+  private WorkflowOptions options;
+
+  @Autowired WorkflowFactory fact;
+
+  @BeforeEach
+  void setUp() {
+    testEnv = TestWorkflowEnvironment.newInstance();
+    fact.makeWorker(testEnv, GreetingWorkflowImpl.class);
+    testEnv.start();
+    starter = new BulkStarter(testEnv.getWorkflowClient(), 4);
+    options = fact.defaultOptionsBuilder(GreetingWorkflowImpl.class).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    testEnv.close();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldStartAllItems() {
+    Map<String, WorkflowExecution> executions = new ConcurrentHashMap<>();
+
+    BulkStartResult result =
+        starter.startAll(
+            "GreetingWorkflow",
+            options,
+            IntStream.range(0, 20).mapToObj(i -> BulkStartItem.of("bulk-" + i, "World " + i)),
+            (item, execution, failure) -> executions.put(item.getWorkflowId(), execution));
+
+    BulkStartResult.Summary summary = result.getSummary().join();
+    assertThat(summary.getStarted()).isEqualTo(20);
+    assertThat(summary.getFailed()).isZero();
+    assertThat(executions).hasSize(20);
+    assertThat(executions.get("bulk-7").getWorkflowId()).isEqualTo("bulk-7");
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldNotFailBatchOnAlreadyStartedWorkflow() {
+    Map<String, WorkflowExecution> executions = new ConcurrentHashMap<>();
+    starter
+        .startAll(
+            "GreetingWorkflow",
+            options,
+            Stream.of(BulkStartItem.of("bulk-dup", "World")),
+            (item, execution, failure) -> executions.put("first", execution))
+        .getSummary()
+        .join();
+
+    BulkStartResult result =
+        starter.startAll(
+            "GreetingWorkflow",
+            options,
+            Stream.of(BulkStartItem.of("bulk-dup", "World"), BulkStartItem.of("bulk-new", "World")),
+            (item, execution, failure) -> executions.put(item.getWorkflowId(), execution));
+
+    BulkStartResult.Summary summary = result.getSummary().join();
+    assertThat(summary.getStarted()).isEqualTo(1);
+    assertThat(summary.getAlreadyStarted()).isEqualTo(1);
+    assertThat(summary.getTotal()).isEqualTo(2);
+    assertThat(executions.get("bulk-dup").getRunId())
+        .isEqualTo(executions.get("first").getRunId());
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldReportFailedItems() {
+    Map<String, RuntimeException> failures = new ConcurrentHashMap<>();
+
+    BulkStartResult result =
+        starter.startAll(
+            "GreetingWorkflow",
+            options,
+            // arguments that cannot be serialized
+            Stream.of(
+                BulkStartItem.of("bulk-bad", new Object()), BulkStartItem.of("bulk-ok", "World")),
+            (item, execution, failure) -> {
+              if (failure != null) {
+                failures.put(item.getWorkflowId(), failure);
+              }
+            });
+
+    BulkStartResult.Summary summary = result.getSummary().join();
+    assertThat(summary.getStarted()).isEqualTo(1);
+    assertThat(summary.getFailed()).isEqualTo(1);
+    assertThat(failures).containsOnlyKeys("bulk-bad");
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.RecordingStatsReporter;
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.QueryOptions;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflow;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflowImpl;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.ScopeCloseException;
+import io.grpc.StatusRuntimeException;
+import io.temporal.client.WorkflowClient;
+import io.temporal.common.converter.DataConverterException;
+import io.temporal.testing.TestWorkflowEnvironment;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class QueryFanOutTest extends BaseTest {
+
+  private TestWorkflowEnvironment testEnv;
+  private QueryFanOut fanOut;
+  private final RecordingStatsReporter reporter = new RecordingStatsReporter();
+  private final List<String> workflowIds = new ArrayList<>();
+  private Scope scope;
+
+  @Autowired WorkflowFactory fact;
+
+  @BeforeEach
+  void setUp() {
+    testEnv = TestWorkflowEnvironment.newInstance();
+    fact.makeWorker(testEnv, GreetingWorkflowImpl.class);
+    testEnv.start();
+    workflowIds.clear();
+    for (int i = 0; i < 10; i++) {
+      String workflowId = "fan-out-" + i;
+      GreetingWorkflow workflow =
+          fact.makeStub(
+              GreetingWorkflow.class,
+              fact.defaultOptionsBuilder(GreetingWorkflowImpl.class).setWorkflowId(workflowId),
+              testEnv.getWorkflowClient());
+      WorkflowClient.start(workflow::createGreeting, "World " + i);
+      workflowIds.add(workflowId);
+    }
+    scope = reporter.newScope();
+    WorkflowQueries queries = new WorkflowQueries(testEnv.getWorkflowClient(), new QueryOptions());
+    fanOut = new QueryFanOut(queries, scope);
+  }
+
+  @AfterEach
+  void tearDown() throws ScopeCloseException {
+    scope.close();
+    testEnv.close();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldAnswerForEveryWorkflow() throws InterruptedException {
+    Map<String, QueryFanOutResult<String>> answers;
+    try (Stream<QueryFanOutResult<String>> stream =
+        fanOut.queryAll(workflowIds, "queryGreeting", String.class, null, 3)) {
+      answers =
+          stream.collect(Collectors.toMap(QueryFanOutResult::getWorkflowId, Function.identity()));
+    }
+
+    assertThat(answers).hasSize(10);
+    assertThat(answers.get("fan-out-7").isSuccess()).isTrue();
+    assertThat(answers.get("fan-out-7").getResult()).isEqualTo("Hello World 7!");
+    while (reporter.samples(QueryFanOut.FAN_OUT_LATENCY) < 10) {
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldReportFailedWorkflowsAndContinue() {
+    List<String> ids = Arrays.asList("fan-out-1", "missing", "fan-out-2");
+
+    List<QueryFanOutResult<String>> answers;
+    try (Stream<QueryFanOutResult<String>> stream =
+        fanOut.queryAll(ids, "queryGreeting", String.class, null, 1)) {
+      answers = stream.collect(Collectors.toList());
+    }
+
+    assertThat(answers).hasSize(3);
+    assertThat(answers).filteredOn(QueryFanOutResult::isSuccess).hasSize(2);
+    QueryFanOutResult<String> failed =
+        answers.stream().filter(a -> !a.isSuccess()).findFirst().get();
+    assertThat(failed.getWorkflowId()).isEqualTo("missing");
+    assertThat(failed.getFailure()).isInstanceOf(StatusRuntimeException.class);
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldAnswerWithFailureWhenQueryCannotBeSent() {
+    List<QueryFanOutResult<String>> answers;
+    try (Stream<QueryFanOutResult<String>> stream =
+        fanOut.queryAll(workflowIds, "queryGreeting", String.class, null, 3, new Object())) {
+      answers = stream.collect(Collectors.toList());
+    }
+
+    assertThat(answers).hasSize(10);
+    assertThat(answers).noneMatch(QueryFanOutResult::isSuccess);
+    assertThat(answers.get(0).getFailure()).isInstanceOf(DataConverterException.class);
+  }
+
+  @Test
+  void shouldRejectConcurrencyBelowOne() {
+    assertThatThrownBy(() -> fanOut.queryAll(workflowIds, "queryGreeting", String.class, null, 0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.QueryCacheOptions;
+import com.uber.m3.tally.NoopScope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class QueryResultCacheTest {
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Test
+  void shouldAnswerRepeatedQueryFromCache() {
+    QueryResultCache cache = newCache(Duration.ofMinutes(1), 10);
+
+    assertThat(query(cache, "wf-1", "state")).isEqualTo("state-1");
+    assertThat(query(cache, "wf-1", "state")).isEqualTo("state-1");
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void shouldKeepResultsOfDifferentArgumentsApart() {
+    QueryResultCache cache = newCache(Duration.ofMinutes(1), 10);
+
+    query(cache, "wf-1", "a");
+    query(cache, "wf-1", "b");
+
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void shouldQueryAgainAfterInvalidation() {
+    QueryResultCache cache = newCache(Duration.ofMinutes(1), 10);
+    query(cache, "wf-1", "state");
+    query(cache, "wf-2", "state");
+
+    cache.invalidate("wf-1");
+
+    assertThat(query(cache, "wf-1", "state")).isEqualTo("state-3");
+    assertThat(query(cache, "wf-2", "state")).isEqualTo("state-2");
+  }
+
+  @Test
+  void shouldNotStoreResultOfQueryInFlightDuringInvalidation() {
+    QueryResultCache cache = newCache(Duration.ofMinutes(1), 10);
+    QueryResultCache.Key key = key("wf-1", "state");
+
+    Object generation = cache.generation(key);
+    cache.invalidate("wf-1");
+    cache.put(key, "stale", generation);
+
+    assertThat(cache.lookup(key)).isNull();
+  }
+
+  @Test
+  void shouldExpireAfterTtl() throws Exception {
+    QueryResultCache cache = newCache(Duration.ofMillis(10), 10);
+    query(cache, "wf-1", "state");
+
+    Thread.sleep(50);
+
+    query(cache, "wf-1", "state");
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void shouldBoundSize() {
+    QueryResultCache cache = newCache(Duration.ofMinutes(1), 2);
+
+    for (int i = 0; i < 10; i++) {
+      query(cache, "wf-" + i, "state");
+    }
+
+    assertThat(cache.size()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  void shouldNotCacheWhatIsNotCacheable() {
+    QueryResultCache cache = newCache(Duration.ofMinutes(1), 10);
+
+    cache.get(key("wf-1", "state"), () -> "rejected-" + calls.incrementAndGet(), r -> false);
+    cache.get(key("wf-1", "state"), () -> "rejected-" + calls.incrementAndGet(), r -> false);
+
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void shouldKeyNoArgumentsAlike() {
+    WorkflowExecution execution = WorkflowExecution.newBuilder().setWorkflowId("wf-1").build();
+
+    assertThat(QueryResultCache.key(execution, "get", String.class, null))
+        .isEqualTo(QueryResultCache.key(execution, "get", String.class, new Object[0]));
+  }
+
+  private String query(QueryResultCache cache, String workflowId, String arg) {
+    return cache.get(key(workflowId, arg), () -> "state-" + calls.incrementAndGet(), r -> true);
+  }
+
+  private static QueryResultCache.Key key(String workflowId, String arg) {
+    return QueryResultCache.key(
+        WorkflowExecution.newBuilder().setWorkflowId(workflowId).build(),
+        "get",
+        String.class,
+        new Object[] {arg});
+  }
+
+  private static QueryResultCache newCache(Duration ttl, long maxSize) {
+    QueryCacheOptions options = new QueryCacheOptions();
+    options.setEnabled(true);
+    options.setTtl(ttl);
+    options.setMaxSize(maxSize);
+    return new QueryResultCache(options, new NoopScope());
+  }
+}
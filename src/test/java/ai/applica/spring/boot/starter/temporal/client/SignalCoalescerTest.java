@@ -0,0 +1,99 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.SignalCoalescingOptions;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloSignal.GreetingWorkflow;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloSignal.GreetingWorkflowImpl;
+import io.temporal.client.WorkflowClient;
+import io.temporal.testing.TestWorkflowEnvironment;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class SignalCoalescerTest extends BaseTest {
+
+  private TestWorkflowEnvironment testEnv;
+  private GreetingWorkflow workflow;
+  private String workflowId;
+
+  @Autowired WorkflowFactory fact;
+
+  @BeforeEach
+  void setUp() {
+    testEnv = TestWorkflowEnvironment.newInstance();
+    fact.makeWorker(testEnv, GreetingWorkflowImpl.class);
+    testEnv.start();
+    workflow =
+        fact.makeStub(
+            GreetingWorkflow.class, GreetingWorkflowImpl.class, testEnv.getWorkflowClient());
+    workflowId = WorkflowClient.start(workflow::getGreetings).getWorkflowId();
+  }
+
+  @AfterEach
+  void tearDown() {
+    testEnv.close();
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldDeliverItemsInOrderAfterFlushInterval() {
+    SignalCoalescer names = newCoalescer(Duration.ofMillis(50), 100);
+
+    names.send(workflowId, "World");
+    names.send(workflowId, "Universe");
+    names.send(workflowId, "Galaxy").join();
+    workflow.exit();
+
+    assertThat(workflow.getGreetings())
+        .containsExactly("Hello World!", "Hello Universe!", "Hello Galaxy!");
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldDeliverFullBatchAtOnce() {
+    SignalCoalescer names = newCoalescer(Duration.ofHours(1), 2);
+
+    CompletableFuture<Void> first = names.send(workflowId, "World");
+    names.send(workflowId, "Universe").join();
+    CompletableFuture<Void> pending = names.send(workflowId, "Galaxy");
+
+    assertThat(first).isDone();
+    assertThat(pending).isNotDone();
+
+    names.close();
+    assertThat(pending).isDone();
+    workflow.exit();
+    assertThat(workflow.getGreetings()).hasSize(3);
+  }
+
+  private SignalCoalescer newCoalescer(Duration flushInterval, int maxBatchSize) {
+    SignalCoalescingOptions options = new SignalCoalescingOptions();
+    options.setFlushInterval(flushInterval);
+    options.setMaxBatchSize(maxBatchSize);
+    return new SignalCoalescer(testEnv.getWorkflowClient(), "waitForNames", options);
+  }
+}
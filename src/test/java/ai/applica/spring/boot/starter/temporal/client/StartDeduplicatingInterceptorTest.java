@@ -0,0 +1,171 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.StartDedupOptions;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflow;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflowImpl;
+import com.uber.m3.tally.NoopScope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.WorkflowIdReusePolicy;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowExecutionAlreadyStarted;
+import io.temporal.testing.TestWorkflowEnvironment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class StartDeduplicatingInterceptorTest extends BaseTest {
+
+  private TestWorkflowEnvironment testEnv;
+  private WorkflowClient client;
+
+  @Autowired WorkflowFactory fact;
+
+  @BeforeEach
+  void setUp() {
+    testEnv = TestWorkflowEnvironment.newInstance();
+    fact.makeWorker(testEnv, GreetingWorkflowImpl.class);
+    testEnv.start();
+    client =
+        WorkflowClient.newInstance(
+            testEnv.getWorkflowClient().getWorkflowServiceStubs(),
+            WorkflowClientOptions.newBuilder(testEnv.getWorkflowClient().getOptions())
+                .setInterceptors(
+                    new StartDeduplicatingInterceptor(
+                        new StartDeduplicator(new StartDedupOptions(), new NoopScope())))
+                .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    testEnv.close();
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldReturnRecordedExecutionOnRepeatedStart() {
+    WorkflowExecution first = start(client, "dedup-1");
+
+    WorkflowExecution second = start(client, "dedup-1");
+
+    assertThat(second).isEqualTo(first);
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldFailRepeatedStartWithoutDeduplication() {
+    start(testEnv.getWorkflowClient(), "dedup-2");
+
+    assertThatThrownBy(() -> start(testEnv.getWorkflowClient(), "dedup-2"))
+        .isInstanceOf(WorkflowExecutionAlreadyStarted.class);
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldStartAgainAfterTermination() {
+    WorkflowExecution first = start(client, "dedup-3");
+    client.newUntypedWorkflowStub("dedup-3").terminate("test");
+
+    WorkflowExecution second = start(client, "dedup-3");
+
+    assertThat(second.getRunId()).isNotEqualTo(first.getRunId());
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldStartAgainAfterResultWasSeen() {
+    WorkflowExecution first = start(client, "dedup-4");
+    client.newUntypedWorkflowStub("dedup-4").getResult(Void.class);
+
+    WorkflowExecution second = start(client, "dedup-4");
+
+    assertThat(second.getRunId()).isNotEqualTo(first.getRunId());
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldRecordRunOfSignalWithStart() {
+    start(client, "dedup-5");
+    testEnv.getWorkflowClient().newUntypedWorkflowStub("dedup-5").terminate("test");
+
+    WorkflowExecution signalled =
+        client
+            .newUntypedWorkflowStub(
+                "GreetingWorkflow",
+                fact.defaultOptionsBuilder(GreetingWorkflowImpl.class)
+                    .setWorkflowId("dedup-5")
+                    .build())
+            .signalWithStart("ignored", new Object[0], new Object[] {"World"});
+
+    assertThat(start(client, "dedup-5")).isEqualTo(signalled);
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldNotAnswerStartOfOtherWorkflowType() {
+    start(client, "dedup-6");
+
+    assertThatThrownBy(
+            () ->
+                client
+                    .newUntypedWorkflowStub(
+                        "OtherWorkflow",
+                        fact.defaultOptionsBuilder(GreetingWorkflowImpl.class)
+                            .setWorkflowId("dedup-6")
+                            .build())
+                    .start())
+        .isInstanceOf(WorkflowExecutionAlreadyStarted.class);
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldStartNewRunWhenReusePolicyAllowsDuplicate() {
+    WorkflowExecution first = start(client, "dedup-7");
+    testEnv.getWorkflowClient().newUntypedWorkflowStub("dedup-7").terminate("test");
+
+    GreetingWorkflow workflow =
+        fact.makeStub(
+            GreetingWorkflow.class,
+            fact.defaultOptionsBuilder(GreetingWorkflowImpl.class)
+                .setWorkflowId("dedup-7")
+                .setWorkflowIdReusePolicy(
+                    WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_ALLOW_DUPLICATE),
+            client);
+    WorkflowExecution second = WorkflowClient.start(workflow::createGreeting, "World");
+
+    assertThat(second.getRunId()).isNotEqualTo(first.getRunId());
+  }
+
+  private WorkflowExecution start(WorkflowClient workflowClient, String workflowId) {
+    GreetingWorkflow workflow =
+        fact.makeStub(
+            GreetingWorkflow.class,
+            fact.defaultOptionsBuilder(GreetingWorkflowImpl.class).setWorkflowId(workflowId),
+            workflowClient);
+    return WorkflowClient.start(workflow::createGreeting, "World");
+  }
+}
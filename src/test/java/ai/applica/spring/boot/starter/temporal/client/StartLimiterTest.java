@@ -0,0 +1,186 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.LimitMode;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.StartLimitOptions;
+import com.uber.m3.tally.NoopScope;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class StartLimiterTest {
+
+  @Test
+  void shouldFailFastWhenRateIsExceeded() {
+    StartLimitOptions options = new StartLimitOptions();
+    options.setRatePerSecond(1.0);
+    options.setMode(LimitMode.FAIL_FAST);
+    StartLimiter limiter = new StartLimiter(options, new NoopScope());
+
+    assertThat(limiter.execute("any", () -> "first")).isEqualTo("first");
+    assertThatThrownBy(() -> limiter.execute("any", () -> "second"))
+        .isInstanceOf(ClientLimitExceededException.class);
+  }
+
+  @Test
+  void shouldLimitPerWorkflowType() {
+    StartLimitOptions options = new StartLimitOptions();
+    options.setWorkflowTypeRates(Collections.singletonMap("Limited", 1.0));
+    options.setMode(LimitMode.FAIL_FAST);
+    StartLimiter limiter = new StartLimiter(options, new NoopScope());
+
+    limiter.execute("Limited", () -> null);
+    assertThatThrownBy(() -> limiter.execute("Limited", () -> null))
+        .isInstanceOf(ClientLimitExceededException.class);
+    assertThat(limiter.execute("Other", () -> "other")).isEqualTo("other");
+  }
+
+  @Test
+  @Timeout(5)
+  void shouldWaitForTokenInBlockingMode() {
+    StartLimitOptions options = new StartLimitOptions();
+    options.setRatePerSecond(20.0);
+    options.setBurst(1);
+    StartLimiter limiter = new StartLimiter(options, new NoopScope());
+
+    long start = System.nanoTime();
+    limiter.execute(null, () -> null);
+    limiter.execute(null, () -> null);
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThan(Duration.ofMillis(40));
+  }
+
+  @Test
+  @Timeout(5)
+  void shouldRejectCallsOverMaxInFlight() throws Exception {
+    StartLimitOptions options = new StartLimitOptions();
+    options.setMaxInFlight(1);
+    options.setMode(LimitMode.FAIL_FAST);
+    StartLimiter limiter = new StartLimiter(options, new NoopScope());
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<Object> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                limiter.execute(
+                    null,
+                    () -> {
+                      running.countDown();
+                      await(release);
+                      return null;
+                    }));
+    running.await();
+
+    assertThatThrownBy(() -> limiter.execute(null, () -> null))
+        .isInstanceOf(ClientLimitExceededException.class);
+    release.countDown();
+    first.join();
+  }
+
+  @Test
+  @Timeout(5)
+  void shouldKeepWorkflowTypeTokenWhenGlobalRateRejects() throws Exception {
+    StartLimitOptions options = new StartLimitOptions();
+    options.setRatePerSecond(10.0);
+    options.setWorkflowTypeRates(Collections.singletonMap("Limited", 1.0));
+    options.setBurst(1);
+    options.setMode(LimitMode.FAIL_FAST);
+    StartLimiter limiter = new StartLimiter(options, new NoopScope());
+
+    limiter.execute("Other", () -> null);
+    assertThatThrownBy(() -> limiter.execute("Limited", () -> null))
+        .isInstanceOf(ClientLimitExceededException.class);
+    Thread.sleep(150);
+
+    assertThat(limiter.execute("Limited", () -> "limited")).isEqualTo("limited");
+  }
+
+  @Test
+  @Timeout(5)
+  void shouldNotTakeTokenForCallRejectedByMaxInFlight() throws Exception {
+    StartLimitOptions options = new StartLimitOptions();
+    options.setRatePerSecond(1.0);
+    options.setBurst(2);
+    options.setMaxInFlight(1);
+    options.setMode(LimitMode.FAIL_FAST);
+    StartLimiter limiter = new StartLimiter(options, new NoopScope());
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<Object> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                limiter.execute(
+                    null,
+                    () -> {
+                      running.countDown();
+                      await(release);
+                      return null;
+                    }));
+    running.await();
+    assertThatThrownBy(() -> limiter.execute(null, () -> null))
+        .isInstanceOf(ClientLimitExceededException.class);
+    release.countDown();
+    first.join();
+
+    assertThat(limiter.execute(null, () -> "second")).isEqualTo("second");
+  }
+
+  @Test
+  @Timeout(5)
+  void shouldQueueCallsInAsyncMode() throws Exception {
+    StartLimitOptions options = new StartLimitOptions();
+    options.setMaxInFlight(1);
+    options.setQueueCapacity(1);
+    options.setMode(LimitMode.ASYNC_QUEUE);
+    StartLimiter limiter = new StartLimiter(options, new NoopScope());
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<String> running =
+        limiter.submit(
+            () -> {
+              await(release);
+              return Thread.currentThread().getName();
+            });
+    CompletableFuture<String> queued = limiter.submit(() -> "queued");
+    assertThat(limiter.getQueueDepth()).isEqualTo(1);
+
+    CompletableFuture<String> rejected = limiter.submit(() -> "rejected");
+    assertThat(rejected).isCompletedExceptionally();
+    assertThatThrownBy(rejected::get).hasCauseInstanceOf(ClientLimitExceededException.class);
+    release.countDown();
+    assertThat(running.get()).startsWith("temporal-start-limiter-");
+    assertThat(queued.get()).isEqualTo("queued");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
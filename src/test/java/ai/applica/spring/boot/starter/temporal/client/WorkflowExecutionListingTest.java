@@ -0,0 +1,203 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.protobuf.ByteString;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
+import io.temporal.client.WorkflowClient;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Paging against pages served from memory, a page per token "0", "1", ..., and cancellation against
+ * a local stand-in frontend.
+ */
+class WorkflowExecutionListingTest {
+
+  private static final int PAGES = 4;
+  private static final int PAGE_SIZE = 3;
+
+  private final List<String> requested = new ArrayList<>();
+  private final List<CompletableFuture<ListWorkflowExecutionsResponse>> calls = new ArrayList<>();
+
+  @Test
+  void shouldListAllExecutionsInOrder() {
+    List<String> ids;
+    try (Stream<ListWorkflowExecutionsResponse> pages =
+        WorkflowExecutionListing.stream(newPages(ByteString.EMPTY))) {
+      ids =
+          pages
+              .flatMap(page -> page.getExecutionsList().stream())
+              .map(info -> info.getExecution().getWorkflowId())
+              .collect(Collectors.toList());
+    }
+
+    assertThat(ids).hasSize(PAGES * PAGE_SIZE).startsWith("wf-0-0", "wf-0-1").endsWith("wf-3-2");
+  }
+
+  @Test
+  void shouldFetchLazilyAndOnlyOnePageAhead() {
+    Iterator<ListWorkflowExecutionsResponse> pages = newPages(ByteString.EMPTY);
+    assertThat(requested).isEmpty();
+
+    pages.next();
+
+    assertThat(requested).containsExactly("", "1");
+
+    pages.next();
+
+    assertThat(requested).containsExactly("", "1", "2");
+  }
+
+  @Test
+  void shouldResumeFromPageToken() {
+    List<String> ids;
+    try (Stream<ListWorkflowExecutionsResponse> pages =
+        WorkflowExecutionListing.stream(newPages(ByteString.copyFromUtf8("3")))) {
+      ids =
+          pages
+              .flatMap(page -> page.getExecutionsList().stream())
+              .map(info -> info.getExecution().getWorkflowId())
+              .collect(Collectors.toList());
+    }
+
+    assertThat(ids).containsExactly("wf-3-0", "wf-3-1", "wf-3-2");
+  }
+
+  @Test
+  void shouldCancelPrefetchOnClose() {
+    Stream<ListWorkflowExecutionsResponse> pages =
+        WorkflowExecutionListing.stream(newPages(ByteString.EMPTY));
+
+    pages.findFirst();
+    pages.close();
+
+    assertThat(calls.get(calls.size() - 1)).isCancelled();
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldCancelCallToFrontendOnClose() throws Exception {
+    CountDownLatch asked = new CountDownLatch(1);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    Server server =
+        NettyServerBuilder.forPort(0)
+            .addService(new StandInFrontend(asked, cancelled))
+            .build()
+            .start();
+    WorkflowServiceStubs service =
+        WorkflowServiceStubs.newServiceStubs(
+            WorkflowServiceStubsOptions.newBuilder()
+                .setTarget("127.0.0.1:" + server.getPort())
+                .build());
+    try {
+      WorkflowExecutionListing listing =
+          new WorkflowExecutionListing(WorkflowClient.newInstance(service), PAGE_SIZE);
+      Stream<ListWorkflowExecutionsResponse> pages = listing.pages("", ByteString.EMPTY);
+
+      pages.iterator().next();
+      asked.await();
+      pages.close();
+
+      assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      service.shutdownNow();
+      server.shutdownNow();
+    }
+  }
+
+  /** Pages are answered when read, a page fetched ahead stays pending until then. */
+  private WorkflowExecutionListing.Pages newPages(ByteString firstToken) {
+    return new WorkflowExecutionListing.Pages(
+        token -> {
+          requested.add(token.toStringUtf8());
+          int page = token.isEmpty() ? 0 : Integer.parseInt(token.toStringUtf8());
+          CompletableFuture<ListWorkflowExecutionsResponse> call =
+              new CompletableFuture<ListWorkflowExecutionsResponse>() {
+                @Override
+                public ListWorkflowExecutionsResponse join() {
+                  complete(page(page));
+                  return super.join();
+                }
+              };
+          calls.add(call);
+          return call;
+        },
+        firstToken);
+  }
+
+  private static ListWorkflowExecutionsResponse page(int page) {
+    ListWorkflowExecutionsResponse.Builder response = ListWorkflowExecutionsResponse.newBuilder();
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      response.addExecutions(
+          WorkflowExecutionInfo.newBuilder()
+              .setExecution(
+                  WorkflowExecution.newBuilder().setWorkflowId("wf-" + page + "-" + i).build()));
+    }
+    if (page + 1 < PAGES) {
+      response.setNextPageToken(ByteString.copyFromUtf8(String.valueOf(page + 1)));
+    }
+    return response.build();
+  }
+
+  /** Answers the first page and keeps the call for the next one open until it is cancelled. */
+  private static class StandInFrontend extends WorkflowServiceGrpc.WorkflowServiceImplBase {
+
+    private final CountDownLatch asked;
+    private final CountDownLatch cancelled;
+
+    StandInFrontend(CountDownLatch asked, CountDownLatch cancelled) {
+      this.asked = asked;
+      this.cancelled = cancelled;
+    }
+
+    @Override
+    public void listWorkflowExecutions(
+        ListWorkflowExecutionsRequest request,
+        StreamObserver<ListWorkflowExecutionsResponse> responseObserver) {
+      if (request.getNextPageToken().isEmpty()) {
+        responseObserver.onNext(page(0));
+        responseObserver.onCompleted();
+        return;
+      }
+      ((ServerCallStreamObserver<ListWorkflowExecutionsResponse>) responseObserver)
+          .setOnCancelHandler(cancelled::countDown);
+      asked.countDown();
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.HandleCacheOptions;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloSignal.GreetingWorkflow;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowStub;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Stubs are created without calls, so no service is needed. */
+class WorkflowHandleCacheTest {
+
+  private WorkflowServiceStubs service;
+  private WorkflowClient client;
+
+  @BeforeEach
+  void setUp() {
+    service =
+        WorkflowServiceStubs.newServiceStubs(
+            WorkflowServiceStubsOptions.newBuilder().setTarget("127.0.0.1:1").build());
+    client = WorkflowClient.newInstance(service);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdownNow();
+  }
+
+  @Test
+  void shouldReuseHandleOfWorkflow() {
+    WorkflowHandleCache cache = newCache(10);
+
+    GreetingWorkflow first = cache.get(GreetingWorkflow.class, "wf-1", null);
+
+    assertThat(cache.get(GreetingWorkflow.class, "wf-1", null)).isSameAs(first);
+    assertThat(cache.get(GreetingWorkflow.class, "wf-2", null)).isNotSameAs(first);
+    assertThat(cache.get(GreetingWorkflow.class, "wf-1", "run-1")).isNotSameAs(first);
+  }
+
+  @Test
+  void shouldBindHandleToWorkflowAndRun() {
+    WorkflowHandleCache cache = newCache(10);
+
+    GreetingWorkflow handle = cache.get(GreetingWorkflow.class, "wf-1", "run-1");
+
+    assertThat(WorkflowStub.fromTyped(handle).getExecution().getWorkflowId()).isEqualTo("wf-1");
+    assertThat(WorkflowStub.fromTyped(handle).getExecution().getRunId()).isEqualTo("run-1");
+  }
+
+  @Test
+  void shouldEvictOverMaxSize() {
+    WorkflowHandleCache cache = newCache(2);
+
+    for (int i = 0; i < 10; i++) {
+      cache.get(GreetingWorkflow.class, "wf-" + i, null);
+    }
+
+    assertThat(cache.size()).isLessThanOrEqualTo(2);
+  }
+
+  private WorkflowHandleCache newCache(long maxSize) {
+    HandleCacheOptions options = new HandleCacheOptions();
+    options.setMaxSize(maxSize);
+    return new WorkflowHandleCache(client, options);
+  }
+}
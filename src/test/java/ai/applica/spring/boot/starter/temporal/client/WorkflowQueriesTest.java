@@ -0,0 +1,237 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.RecordingStatsReporter;
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.client.AdaptiveConcurrencyLimiter.CallType;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.AdaptiveLimitOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.QueryCacheOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.QueryOptions;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflow;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflowImpl;
+import com.uber.m3.tally.NoopScope;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.ScopeCloseException;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class WorkflowQueriesTest extends BaseTest {
+
+  /** Queries that get no answer until the client cancels them. */
+  private final AtomicInteger unansweredQueries = new AtomicInteger();
+
+  private RecordingStatsReporter reporter;
+  private Scope scope;
+  private TestWorkflowEnvironment testEnv;
+  private WorkflowQueries queries;
+  private WorkflowExecution execution;
+
+  @Autowired WorkflowFactory fact;
+
+  @BeforeEach
+  void setUp() {
+    unansweredQueries.set(0);
+    reporter = new RecordingStatsReporter();
+    scope = reporter.newScope();
+    testEnv =
+        TestWorkflowEnvironment.newInstance(
+            TestEnvironmentOptions.newBuilder()
+                .setMetricsScope(scope)
+                .setWorkflowServiceStubsOptions(
+                    WorkflowServiceStubsOptions.newBuilder()
+                        .setGrpcClientInterceptors(
+                            Collections.singletonList(new UnansweredQueries()))
+                        .build())
+                .build());
+    fact.makeWorker(testEnv, GreetingWorkflowImpl.class);
+    testEnv.start();
+    GreetingWorkflow workflow =
+        fact.makeStub(
+            GreetingWorkflow.class, GreetingWorkflowImpl.class, testEnv.getWorkflowClient());
+    execution = WorkflowClient.start(workflow::createGreeting, "World");
+    queries = new WorkflowQueries(testEnv.getWorkflowClient(), new QueryOptions());
+  }
+
+  @AfterEach
+  void tearDown() throws ScopeCloseException {
+    testEnv.close();
+    scope.close();
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldQueryWithDefaults() {
+    assertThat(queries.query(execution, "queryGreeting", String.class, null))
+        .isEqualTo("Hello World!");
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldReturnFirstAnswerWhenHedged() throws Exception {
+    QueryOptions options = new QueryOptions();
+    options.setHedgeDelay(Duration.ofMillis(50));
+    unansweredQueries.set(1);
+
+    assertThat(queries.queryAsync(execution, "queryGreeting", String.class, options).join())
+        .isEqualTo("Hello World!");
+    while (reporter.counter(WorkflowQueries.QUERY_HEDGE_WON) == 0) {
+      Thread.sleep(10);
+    }
+    assertThat(reporter.counter(WorkflowQueries.QUERY_HEDGE_ISSUED)).isEqualTo(1);
+    assertThat(reporter.counter(WorkflowQueries.QUERY_HEDGE_WON)).isEqualTo(1);
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldNotHedgeQueryAnsweredInTime() throws Exception {
+    QueryOptions options = new QueryOptions();
+    options.setHedgeDelay(Duration.ofSeconds(5));
+
+    assertThat(queries.queryAsync(execution, "queryGreeting", String.class, options).join())
+        .isEqualTo("Hello World!");
+    while (reporter.samples(WorkflowQueries.QUERY_LATENCY) == 0) {
+      Thread.sleep(10);
+    }
+    assertThat(reporter.counter(WorkflowQueries.QUERY_HEDGE_ISSUED)).isZero();
+    assertThat(reporter.counter(WorkflowQueries.QUERY_HEDGE_WON)).isZero();
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldShareCachedResultsWithWorkflowStubs() {
+    QueryCacheOptions cacheOptions = new QueryCacheOptions();
+    cacheOptions.setEnabled(true);
+    QueryResultCache cache = new QueryResultCache(cacheOptions, new NoopScope());
+    WorkflowClient client =
+        WorkflowClient.newInstance(
+            testEnv.getWorkflowClient().getWorkflowServiceStubs(),
+            WorkflowClientOptions.newBuilder(testEnv.getWorkflowClient().getOptions())
+                .setInterceptors(new QueryCachingInterceptor(cache))
+                .build());
+    GreetingWorkflow stub =
+        client.newWorkflowStub(GreetingWorkflow.class, execution.getWorkflowId());
+    WorkflowQueries cachingQueries = new WorkflowQueries(client, new QueryOptions());
+    WorkflowExecution byId =
+        WorkflowExecution.newBuilder().setWorkflowId(execution.getWorkflowId()).build();
+
+    String stubFirst = stub.queryGreetingWith("?");
+    assertThat(cachingQueries.query(byId, "queryGreetingWith", String.class, null, "?"))
+        .isEqualTo(stubFirst);
+    String factoryFirst =
+        cachingQueries.query(byId, "queryGreetingWith", String.class, null, "...");
+    assertThat(stub.queryGreetingWith("...")).isEqualTo(factoryFirst);
+    String noArgs = stub.queryGreeting();
+    assertThat(cachingQueries.query(byId, "queryGreeting", String.class, null)).isEqualTo(noArgs);
+    assertThat(cache.size()).isEqualTo(3);
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldTakeSlotOfAdaptiveLimit() {
+    AdaptiveLimitOptions limitOptions = new AdaptiveLimitOptions();
+    limitOptions.setInitialLimit(1);
+    limitOptions.setMaxWait(Duration.ofMillis(10));
+    AdaptiveConcurrencyLimiter limiter =
+        new AdaptiveConcurrencyLimiter(limitOptions, new NoopScope());
+    WorkflowClient client =
+        WorkflowClient.newInstance(
+            testEnv.getWorkflowClient().getWorkflowServiceStubs(),
+            WorkflowClientOptions.newBuilder(testEnv.getWorkflowClient().getOptions())
+                .setInterceptors(new AdaptiveLimitingInterceptor(limiter))
+                .build());
+    WorkflowQueries limitedQueries = new WorkflowQueries(client, new QueryOptions());
+
+    limiter.acquire();
+    assertThatThrownBy(() -> limitedQueries.query(execution, "queryGreeting", String.class, null))
+        .isInstanceOf(ClientLimitExceededException.class);
+    limiter.release(CallType.QUERY, 0, false);
+    assertThat(limitedQueries.query(execution, "queryGreeting", String.class, null))
+        .isEqualTo("Hello World!");
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldFailUnknownWorkflow() {
+    WorkflowExecution missing = WorkflowExecution.newBuilder().setWorkflowId("missing").build();
+
+    assertThatThrownBy(() -> queries.query(missing, "queryGreeting", String.class, null))
+        .isInstanceOf(StatusRuntimeException.class);
+  }
+
+  /** Holds back the first {@link #unansweredQueries} queries until they are cancelled. */
+  private class UnansweredQueries implements ClientInterceptor {
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+        MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+      if (method.equals(WorkflowServiceGrpc.getQueryWorkflowMethod())
+          && unansweredQueries.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+        return new ClientCall<ReqT, RespT>() {
+          private Listener<RespT> listener;
+
+          @Override
+          public void start(Listener<RespT> responseListener, Metadata headers) {
+            listener = responseListener;
+          }
+
+          @Override
+          public void request(int numMessages) {}
+
+          @Override
+          public void cancel(String message, Throwable cause) {
+            listener.onClose(
+                Status.CANCELLED.withDescription(message).withCause(cause), new Metadata());
+          }
+
+          @Override
+          public void halfClose() {}
+
+          @Override
+          public void sendMessage(ReqT message) {}
+        };
+      }
+      return next.newCall(method, callOptions);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.codegen;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Compiles workflow sources with the processor and checks the generated stubs. */
+class WorkflowStubsProcessorTest {
+
+  @TempDir Path dir;
+
+  private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+  @Test
+  void shouldGenerateStubsOfWorkflow() throws Exception {
+    boolean compiled =
+        compile(
+            "Greeting",
+            "package test;",
+            "import ai.applica.spring.boot.starter.temporal.annotations.TemporalWorkflow;",
+            "import io.temporal.workflow.*;",
+            "public class Greeting {",
+            "  @WorkflowInterface",
+            "  public interface GreetingWorkflow {",
+            "    @WorkflowMethod(name = \"greet\")",
+            "    String greet(String name, int times);",
+            "    @SignalMethod",
+            "    void rename(String name);",
+            "    @QueryMethod",
+            "    String current();",
+            "  }",
+            "  @TemporalWorkflow(\"greeting\")",
+            "  public static class GreetingWorkflowImpl implements GreetingWorkflow {",
+            "    public String greet(String name, int times) { return name; }",
+            "    public void rename(String name) {}",
+            "    public String current() { return null; }",
+            "  }",
+            "}");
+
+    assertThat(compiled).as(errors()).isTrue();
+    String generated =
+        new String(
+            Files.readAllBytes(
+                dir.resolve("generated/test/Greeting_GreetingWorkflowImplWorkflowStubs.java")),
+            StandardCharsets.UTF_8);
+    assertThat(generated)
+        .contains("WORKFLOW_NAME = \"greeting\"")
+        .contains("WORKFLOW_TYPE = \"greet\"")
+        .contains("WorkflowExecution start(String workflowId, java.lang.String name, int times)")
+        .contains("public void rename(String workflowId, java.lang.String name)")
+        .contains("public java.lang.String current(String workflowId)");
+  }
+
+  @Test
+  void shouldWarnAndSkipImplementationWithoutWorkflowInterface() throws Exception {
+    boolean compiled =
+        compile(
+            "Plain",
+            "package test;",
+            "import ai.applica.spring.boot.starter.temporal.annotations.TemporalWorkflow;",
+            "@TemporalWorkflow(\"plain\")",
+            "public class Plain implements Runnable {",
+            "  public void run() {}",
+            "}");
+
+    assertThat(compiled).as(errors()).isTrue();
+    assertThat(messages(Diagnostic.Kind.WARNING))
+        .contains("No WorkflowStubs generated for Plain, it implements 0 @WorkflowInterfaces");
+    assertThat(dir.resolve("generated/test/PlainWorkflowStubs.java")).doesNotExist();
+  }
+
+  @Test
+  void shouldWarnAndSkipAbstractImplementation() throws Exception {
+    boolean compiled =
+        compile(
+            "Base",
+            "package test;",
+            "import ai.applica.spring.boot.starter.temporal.annotations.TemporalWorkflow;",
+            "import io.temporal.workflow.*;",
+            "public class Base {",
+            "  @WorkflowInterface",
+            "  public interface BaseWorkflow {",
+            "    @WorkflowMethod",
+            "    void run();",
+            "  }",
+            "  @TemporalWorkflow(\"base\")",
+            "  public abstract static class BaseWorkflowImpl implements BaseWorkflow {}",
+            "}");
+
+    assertThat(compiled).as(errors()).isTrue();
+    assertThat(messages(Diagnostic.Kind.WARNING))
+        .contains("No WorkflowStubs generated for BaseWorkflowImpl");
+  }
+
+  private boolean compile(String className, String... lines) throws Exception {
+    Path source = dir.resolve("src/test/" + className + ".java");
+    Files.createDirectories(source.getParent());
+    Files.write(source, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    Files.createDirectories(dir.resolve("classes"));
+    Files.createDirectories(dir.resolve("generated"));
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              diagnostics,
+              Arrays.asList(
+                  "-classpath",
+                  System.getProperty("java.class.path"),
+                  "-d",
+                  dir.resolve("classes").toString(),
+                  "-s",
+                  dir.resolve("generated").toString()),
+              null,
+              fileManager.getJavaFileObjects(new File[] {source.toFile()}));
+      task.setProcessors(Collections.singletonList(new WorkflowStubsProcessor()));
+      return task.call();
+    }
+  }
+
+  private String errors() {
+    return messages(Diagnostic.Kind.ERROR);
+  }
+
+  private String messages(Diagnostic.Kind kind) {
+    return diagnostics.getDiagnostics().stream()
+        .filter(d -> d.getKind() == kind)
+        .map(d -> d.getMessage(null))
+        .collect(Collectors.joining("\n"));
+  }
+}
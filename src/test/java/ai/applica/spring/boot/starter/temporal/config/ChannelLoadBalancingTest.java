@@ -0,0 +1,204 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.ClientOptions;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.ManagedChannel;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.temporal.api.workflowservice.v1.DescribeNamespaceRequest;
+import io.temporal.api.workflowservice.v1.DescribeNamespaceResponse;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/** Two local stand-in frontends behind one name resolved by a test resolver. */
+class ChannelLoadBalancingTest {
+
+  private final List<Server> servers = new ArrayList<>();
+  private final List<AtomicInteger> calls = new ArrayList<>();
+  private final List<EquivalentAddressGroup> addresses = new ArrayList<>();
+  private final StaticNameResolverProvider resolverProvider = new StaticNameResolverProvider();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      AtomicInteger counter = new AtomicInteger();
+      Server server =
+          NettyServerBuilder.forPort(0).addService(new StandInFrontend(counter)).build().start();
+      servers.add(server);
+      calls.add(counter);
+      addresses.add(
+          new EquivalentAddressGroup(new InetSocketAddress("127.0.0.1", server.getPort())));
+    }
+    NameResolverRegistry.getDefaultRegistry().register(resolverProvider);
+  }
+
+  @AfterEach
+  void tearDown() {
+    NameResolverRegistry.getDefaultRegistry().deregister(resolverProvider);
+    servers.forEach(Server::shutdownNow);
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldSpreadCallsOverResolvedAddresses() {
+    ManagedChannel channel = newChannel();
+    try {
+      for (int i = 0; i < 200 && (calls.get(0).get() == 0 || calls.get(1).get() == 0); i++) {
+        describeNamespace(channel);
+      }
+
+      assertThat(calls.get(0).get()).isPositive();
+      assertThat(calls.get(1).get()).isPositive();
+    } finally {
+      channel.shutdownNow();
+    }
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldPickUpNewAddressesAfterEnteringIdle() throws Exception {
+    EquivalentAddressGroup second = addresses.remove(1);
+    ManagedChannel channel = newChannel();
+    try {
+      describeNamespace(channel);
+      assertThat(calls.get(1).get()).isZero();
+
+      addresses.add(second);
+      channel.enterIdle();
+      for (int i = 0; i < 200 && calls.get(1).get() == 0; i++) {
+        describeNamespace(channel);
+      }
+
+      assertThat(calls.get(1).get()).isPositive();
+    } finally {
+      channel.shutdownNow();
+    }
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldPickUpNewAddressesWithNameResolutionRefresh() throws Exception {
+    EquivalentAddressGroup second = addresses.remove(1);
+    ManagedChannel channel = newChannel();
+    try {
+      NameResolutionRefresher.schedule(channel, Duration.ofMillis(20));
+      describeNamespace(channel);
+      assertThat(calls.get(1).get()).isZero();
+
+      addresses.add(second);
+      for (int i = 0; i < 200 && calls.get(1).get() == 0; i++) {
+        describeNamespace(channel);
+        Thread.sleep(10);
+      }
+
+      assertThat(calls.get(1).get()).isPositive();
+    } finally {
+      channel.shutdownNow();
+    }
+  }
+
+  private ManagedChannel newChannel() {
+    ClientOptions options = new ClientOptions();
+    options.setTarget(StaticNameResolverProvider.SCHEME + ":///frontend");
+    options.setLoadBalancingPolicy("round_robin");
+    return TemporalBootstrapConfiguration.newChannelBuilder(options, null).build();
+  }
+
+  private static void describeNamespace(ManagedChannel channel) {
+    WorkflowServiceGrpc.newBlockingStub(channel)
+        .describeNamespace(DescribeNamespaceRequest.newBuilder().setNamespace("default").build());
+  }
+
+  private static class StandInFrontend extends WorkflowServiceGrpc.WorkflowServiceImplBase {
+
+    private final AtomicInteger counter;
+
+    StandInFrontend(AtomicInteger counter) {
+      this.counter = counter;
+    }
+
+    @Override
+    public void describeNamespace(
+        DescribeNamespaceRequest request,
+        StreamObserver<DescribeNamespaceResponse> responseObserver) {
+      counter.incrementAndGet();
+      responseObserver.onNext(DescribeNamespaceResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    }
+  }
+
+  /** Resolves any name to the current addresses of stand-in servers. */
+  private class StaticNameResolverProvider extends NameResolverProvider {
+
+    static final String SCHEME = "standin";
+
+    @Override
+    protected boolean isAvailable() {
+      return true;
+    }
+
+    @Override
+    protected int priority() {
+      return 5;
+    }
+
+    @Override
+    public String getDefaultScheme() {
+      return SCHEME;
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+      if (!SCHEME.equals(targetUri.getScheme())) {
+        return null;
+      }
+      return new NameResolver() {
+        @Override
+        public String getServiceAuthority() {
+          return "frontend";
+        }
+
+        @Override
+        public void start(Listener2 listener) {
+          listener.onResult(
+              ResolutionResult.newBuilder().setAddresses(new ArrayList<>(addresses)).build());
+        }
+
+        @Override
+        public void shutdown() {}
+      };
+    }
+  }
+}
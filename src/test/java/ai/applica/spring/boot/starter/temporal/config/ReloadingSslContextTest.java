@@ -0,0 +1,164 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.TlsOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.handler.ssl.ClientAuth;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
+import io.grpc.protobuf.services.HealthStatusManager;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** mTLS against a local gRPC server using self-signed certificates from test resources. */
+class ReloadingSslContextTest {
+
+  @TempDir Path dir;
+  private Server server;
+  private TlsOptions options;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    SslContext serverContext =
+        GrpcSslContexts.forServer(resource("server.pem"), resource("server.key"))
+            .trustManager(resource("ca.pem"))
+            .clientAuth(ClientAuth.REQUIRE)
+            .build();
+    server =
+        NettyServerBuilder.forPort(0)
+            .sslContext(serverContext)
+            .addService(new HealthStatusManager().getHealthService())
+            .build()
+            .start();
+
+    copy("ca.pem", "ca.pem");
+    copy("client.pem", "client.pem");
+    copy("client.key", "client.key");
+    options = new TlsOptions();
+    options.setTrustCertCollectionFile(dir.resolve("ca.pem").toString());
+    options.setCertChainFile(dir.resolve("client.pem").toString());
+    options.setPrivateKeyFile(dir.resolve("client.key").toString());
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.shutdownNow();
+  }
+
+  @Test
+  void shouldConnectWithClientCertificate() throws Exception {
+    ReloadingSslContext context = new ReloadingSslContext(options);
+
+    assertThat(healthCheck(context)).isEqualTo(ServingStatus.SERVING);
+  }
+
+  @Test
+  void shouldNotReloadUnchangedFiles() throws Exception {
+    ReloadingSslContext context = new ReloadingSslContext(options);
+
+    assertThat(context.reloadIfChanged()).isFalse();
+  }
+
+  @Test
+  void shouldReloadRotatedCertificate() throws Exception {
+    ReloadingSslContext context = new ReloadingSslContext(options);
+    X509Certificate previous = context.getCertificateChain()[0];
+
+    copy("client-rotated.pem", "client.pem");
+    copy("client-rotated.key", "client.key");
+    touch("client.pem");
+
+    assertThat(context.reloadIfChanged()).isTrue();
+    assertThat(context.getCertificateChain()[0]).isNotEqualTo(previous);
+    assertThat(healthCheck(context)).isEqualTo(ServingStatus.SERVING);
+  }
+
+  @Test
+  void shouldKeepPreviousCertificateWhenReloadFails() throws Exception {
+    ReloadingSslContext context = new ReloadingSslContext(options);
+    X509Certificate previous = context.getCertificateChain()[0];
+
+    Files.write(dir.resolve("client.key"), "broken".getBytes());
+    touch("client.key");
+
+    assertThat(context.reloadIfChanged()).isFalse();
+    assertThat(context.getCertificateChain()[0]).isEqualTo(previous);
+    assertThat(healthCheck(context)).isEqualTo(ServingStatus.SERVING);
+  }
+
+  @Test
+  void shouldStopReloadingWhenClosed() throws Exception {
+    options.setReloadInterval(Duration.ofMillis(10));
+    ReloadingSslContext context = new ReloadingSslContext(options);
+    X509Certificate previous = context.getCertificateChain()[0];
+
+    context.close();
+    copy("client-rotated.pem", "client.pem");
+    copy("client-rotated.key", "client.key");
+    touch("client.pem");
+    Thread.sleep(100);
+
+    assertThat(context.getCertificateChain()[0]).isEqualTo(previous);
+    assertThat(healthCheck(context)).isEqualTo(ServingStatus.SERVING);
+  }
+
+  private ServingStatus healthCheck(ReloadingSslContext context) {
+    ManagedChannel channel =
+        NettyChannelBuilder.forAddress("localhost", server.getPort())
+            .sslContext(context.getSslContext())
+            .build();
+    try {
+      return HealthGrpc.newBlockingStub(channel)
+          .check(HealthCheckRequest.getDefaultInstance())
+          .getStatus();
+    } finally {
+      channel.shutdownNow();
+    }
+  }
+
+  private void copy(String resource, String target) throws Exception {
+    Files.copy(
+        resource(resource).toPath(), dir.resolve(target), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private void touch(String target) {
+    File file = dir.resolve(target).toFile();
+    file.setLastModified(file.lastModified() + 10_000);
+  }
+
+  private File resource(String name) throws Exception {
+    return new File(getClass().getResource("/tls/" + name).toURI());
+  }
+}
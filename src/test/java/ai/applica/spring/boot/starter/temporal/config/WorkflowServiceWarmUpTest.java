@@ -0,0 +1,108 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.RecordingStatsReporter;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.WarmUpOptions;
+import com.uber.m3.tally.Scope;
+import io.grpc.ConnectivityState;
+import io.temporal.client.WorkflowClient;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/** Warm-up against a port nobody listens on and against the in-memory test server. */
+class WorkflowServiceWarmUpTest {
+
+  private WorkflowServiceStubs service;
+  private WorkflowClient client;
+
+  @BeforeEach
+  void setUp() {
+    service =
+        WorkflowServiceStubs.newServiceStubs(
+            WorkflowServiceStubsOptions.newBuilder().setTarget("127.0.0.1:1").build());
+    client = WorkflowClient.newInstance(service);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdownNow();
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldFailWithinTimeoutWhenServiceIsUnreachable() {
+    WarmUpOptions options = new WarmUpOptions();
+    options.setTimeout(Duration.ofSeconds(1));
+
+    assertThatThrownBy(() -> new WorkflowServiceWarmUp(options).warmUp(client))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("warm-up failed");
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldOnlyLogWhenFailOnErrorIsDisabled() {
+    WarmUpOptions options = new WarmUpOptions();
+    options.setTimeout(Duration.ofSeconds(1));
+    options.setFailOnError(false);
+
+    assertThatCode(() -> new WorkflowServiceWarmUp(options).warmUp(client))
+        .doesNotThrowAnyException();
+  }
+
+  @Test
+  @Timeout(10)
+  void shouldLeaveChannelReadyAndRecordLatency() throws Exception {
+    RecordingStatsReporter reporter = new RecordingStatsReporter();
+    Scope scope = reporter.newScope();
+    TestWorkflowEnvironment testEnv =
+        TestWorkflowEnvironment.newInstance(
+            TestEnvironmentOptions.newBuilder().setMetricsScope(scope).build());
+    try {
+      WorkflowServiceStubs testService = testEnv.getWorkflowClient().getWorkflowServiceStubs();
+      WarmUpOptions options = new WarmUpOptions();
+      options.setTimeout(Duration.ofSeconds(5));
+      assertThat(testService.getRawChannel().getState(false)).isEqualTo(ConnectivityState.IDLE);
+
+      new WorkflowServiceWarmUp(options).warmUp(testEnv.getWorkflowClient());
+
+      // client bean, and so the context, is created only after the channel connected
+      assertThat(testService.getRawChannel().getState(false)).isEqualTo(ConnectivityState.READY);
+      while (reporter.samples(WorkflowServiceWarmUp.WARM_UP_LATENCY) == 0) {
+        Thread.sleep(10);
+      }
+      assertThat(reporter.samples(WorkflowServiceWarmUp.WARM_UP_LATENCY)).isEqualTo(1);
+      assertThat(reporter.counter(WorkflowServiceWarmUp.WARM_UP_FAILURE)).isZero();
+    } finally {
+      testEnv.close();
+      scope.close();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.ClaimCheckOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.PayloadCompressionOptions;
+import com.google.protobuf.ByteString;
+import com.uber.m3.tally.NoopScope;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverter;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ClaimCheckPayloadCodecTest {
+
+  private final AtomicInteger reads = new AtomicInteger();
+  private final InMemoryPayloadStore store =
+      new InMemoryPayloadStore() {
+        @Override
+        public byte[] get(String key) {
+          reads.incrementAndGet();
+          return super.get(key);
+        }
+      };
+
+  @Test
+  void shouldOffloadLargePayload() {
+    Payload payload = payload(10_000);
+
+    Payload reference = codec(1_000).encode(payload);
+
+    assertThat(reference.getMetadataOrThrow("encoding").toStringUtf8())
+        .isEqualTo("binary/claim-check");
+    assertThat(reference.getSerializedSize()).isLessThan(200);
+    assertThat(store.size()).isEqualTo(1);
+    assertThat(codec(1_000).decode(reference)).isEqualTo(payload);
+  }
+
+  @Test
+  void shouldKeepSmallPayload() {
+    Payload payload = payload(100);
+
+    assertThat(codec(1_000).encode(payload)).isSameAs(payload);
+    assertThat(store.size()).isZero();
+  }
+
+  @Test
+  void shouldStoreSamePayloadOnce() {
+    codec(1_000).encode(payload(10_000));
+    codec(1_000).encode(payload(10_000));
+
+    assertThat(store.size()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldReadStoreOnceForRepeatedDecodes() {
+    Payload reference = codec(1_000).encode(payload(10_000));
+    ClaimCheckPayloadCodec worker = codec(1_000);
+
+    worker.decode(reference);
+    worker.decode(reference);
+
+    assertThat(reads).hasValue(1);
+  }
+
+  @Test
+  void shouldFailWhenPayloadIsNotStored() {
+    Payload reference = codec(1_000).encode(payload(10_000));
+
+    ClaimCheckPayloadCodec codec =
+        new ClaimCheckPayloadCodec(new InMemoryPayloadStore(), options(1_000), new NoopScope());
+
+    assertThatThrownBy(() -> codec.decode(reference)).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void shouldOffloadCompressedPayload() throws Exception {
+    PayloadCompressionOptions compression = new PayloadCompressionOptions();
+    compression.setThreshold(1_000);
+    DataConverter converter =
+        DataConverters.withCodecs(
+            null, Arrays.asList(codec(1_000), new CompressionPayloadCodec(compression)));
+    // random sequence of words, LZ4 shrinks it but not below the claim check threshold
+    String[] words = {"workflow", "activity", "signal", "query", "payload", "history", "worker"};
+    StringBuilder value = new StringBuilder();
+    Random random = new Random(1);
+    for (int i = 0; i < 10_000; i++) {
+      value.append(words[random.nextInt(words.length)]).append(' ');
+    }
+
+    Payload reference = converter.toPayload(value.toString()).get();
+    Payload stored = Payload.parseFrom(store.get(reference.getData().toStringUtf8()));
+
+    assertThat(reference.getMetadataOrThrow("encoding").toStringUtf8())
+        .isEqualTo("binary/claim-check");
+    assertThat(stored.getMetadataOrThrow("encoding").toStringUtf8()).isEqualTo("binary/lz4");
+    assertThat(converter.fromPayload(reference, String.class, String.class))
+        .isEqualTo(value.toString());
+  }
+
+  private ClaimCheckPayloadCodec codec(int threshold) {
+    return new ClaimCheckPayloadCodec(store, options(threshold), new NoopScope());
+  }
+
+  private static ClaimCheckOptions options(int threshold) {
+    ClaimCheckOptions options = new ClaimCheckOptions();
+    options.setEnabled(true);
+    options.setThreshold(threshold);
+    return options;
+  }
+
+  private static Payload payload(int size) {
+    byte[] data = new byte[size];
+    Arrays.fill(data, (byte) 'x');
+    return Payload.newBuilder()
+        .putMetadata("encoding", ByteString.copyFromUtf8("binary/plain"))
+        .setData(ByteString.copyFrom(data))
+        .build();
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.CompressionAlgorithm;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.PayloadCompressionOptions;
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DataConverterException;
+import java.util.Collections;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class CompressionPayloadCodecTest {
+
+  @ParameterizedTest
+  @EnumSource(CompressionAlgorithm.class)
+  void shouldCompressLargePayload(CompressionAlgorithm algorithm) {
+    CompressionPayloadCodec codec = codec(algorithm);
+    Payload payload = payload(repeat("{\"sku\":\"SKU-1\",\"quantity\":1}", 1_000));
+
+    Payload encoded = codec.encode(payload);
+
+    assertThat(encoded.getMetadataOrThrow("encoding").toStringUtf8())
+        .isIn("binary/lz4", "binary/zstd", "binary/zlib");
+    assertThat(encoded.getSerializedSize()).isLessThan(payload.getSerializedSize() / 10);
+    assertThat(codec.decode(encoded)).isEqualTo(payload);
+  }
+
+  @Test
+  void shouldKeepPayloadBelowThreshold() {
+    Payload payload = payload("\"small\"");
+
+    assertThat(codec(CompressionAlgorithm.LZ4).encode(payload)).isSameAs(payload);
+  }
+
+  @Test
+  void shouldKeepPayloadThatDoesNotGetSmaller() {
+    byte[] random = new byte[10_000];
+    new Random(1).nextBytes(random);
+    Payload payload =
+        Payload.newBuilder()
+            .putMetadata("encoding", ByteString.copyFromUtf8("binary/plain"))
+            .setData(ByteString.copyFrom(random))
+            .build();
+
+    assertThat(codec(CompressionAlgorithm.ZSTD).encode(payload)).isSameAs(payload);
+  }
+
+  @Test
+  void shouldReadAnyAlgorithm() {
+    Payload payload = payload(repeat("abc", 10_000));
+
+    Payload encoded = codec(CompressionAlgorithm.ZSTD).encode(payload);
+
+    assertThat(codec(CompressionAlgorithm.DEFLATE).decode(encoded)).isEqualTo(payload);
+  }
+
+  @Test
+  void shouldFailOnCorruptedPayload() {
+    Payload encoded = codec(CompressionAlgorithm.DEFLATE).encode(payload(repeat("abc", 10_000)));
+    Payload corrupted = encoded.toBuilder().setData(encoded.getData().substring(0, 10)).build();
+
+    assertThatThrownBy(() -> codec(CompressionAlgorithm.DEFLATE).decode(corrupted))
+        .isInstanceOf(DataConverterException.class);
+  }
+
+  @Test
+  void shouldFailOnUnknownCompression() {
+    Payload encoded = codec(CompressionAlgorithm.DEFLATE).encode(payload(repeat("abc", 10_000)));
+    Payload unknown =
+        encoded.toBuilder()
+            .putMetadata("encoding", ByteString.copyFromUtf8("binary/snappy"))
+            .build();
+
+    assertThatThrownBy(() -> codec(CompressionAlgorithm.DEFLATE).decode(unknown))
+        .isInstanceOf(DataConverterException.class)
+        .hasMessageContaining("binary/snappy");
+  }
+
+  @Test
+  void shouldFailOnOriginalSizeTooLargeForData() {
+    Payload encoded = codec(CompressionAlgorithm.LZ4).encode(payload(repeat("abc", 10_000)));
+    Payload forged =
+        encoded.toBuilder()
+            .putMetadata("original-size", ByteString.copyFromUtf8(Integer.toString(1 << 30)))
+            .build();
+
+    assertThatThrownBy(() -> codec(CompressionAlgorithm.LZ4).decode(forged))
+        .isInstanceOf(DataConverterException.class);
+  }
+
+  @Test
+  void shouldIgnoreOriginalSizeOfZstandardPayload() {
+    Payload payload = payload(repeat("abc", 10_000));
+    Payload encoded = codec(CompressionAlgorithm.ZSTD).encode(payload);
+    Payload forged =
+        encoded.toBuilder()
+            .putMetadata("original-size", ByteString.copyFromUtf8(Integer.toString(1 << 30)))
+            .build();
+
+    assertThat(codec(CompressionAlgorithm.ZSTD).decode(forged)).isEqualTo(payload);
+  }
+
+  @Test
+  void shouldRoundTripThroughDataConverter() {
+    DataConverter converter =
+        DataConverters.withCodecs(
+            null, Collections.singletonList(codec(CompressionAlgorithm.LZ4)));
+    String value = repeat("hello ", 10_000);
+
+    Payload payload = converter.toPayload(value).get();
+
+    assertThat(payload.getMetadataOrThrow("encoding").toStringUtf8()).isEqualTo("binary/lz4");
+    assertThat(converter.fromPayload(payload, String.class, String.class)).isEqualTo(value);
+  }
+
+  private static CompressionPayloadCodec codec(CompressionAlgorithm algorithm) {
+    PayloadCompressionOptions options = new PayloadCompressionOptions();
+    options.setEnabled(true);
+    options.setAlgorithm(algorithm);
+    return new CompressionPayloadCodec(options);
+  }
+
+  private static Payload payload(String json) {
+    return Payload.newBuilder()
+        .putMetadata("encoding", ByteString.copyFromUtf8("json/plain"))
+        .setData(ByteString.copyFromUtf8(json))
+        .build();
+  }
+
+  private static String repeat(String text, int times) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < times; i++) {
+      builder.append(text);
+    }
+    return builder.toString();
+  }
+}
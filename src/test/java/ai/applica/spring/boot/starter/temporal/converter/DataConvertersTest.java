@@ -0,0 +1,208 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.DataConverterOptions;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.JacksonFormat;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.JsonMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class DataConvertersTest {
+
+  private static final WorkflowExecution EXECUTION =
+      WorkflowExecution.newBuilder().setWorkflowId("id").setRunId("run").build();
+
+  @Test
+  void shouldKeepSdkConverterWhenNothingIsSelected() {
+    assertThat(
+            DataConverters.newDataConverter(
+                new DataConverterOptions(), () -> null, new ProtobufMessageTypes()))
+        .isNull();
+  }
+
+  @Test
+  void shouldReadBinaryFormatsWhenJsonIsWritten() {
+    DataConverterOptions smile = options(JsonMapper.SDK, false);
+    smile.setJacksonFormat(JacksonFormat.SMILE);
+    Order order = new Order("a", Instant.EPOCH);
+    Payload payload =
+        DataConverters.newDataConverter(smile, () -> null, new ProtobufMessageTypes())
+            .toPayload(order)
+            .get();
+
+    DataConverter converter = converter(JsonMapper.SDK, true);
+
+    assertThat(converter.toPayload(order).get().getMetadataOrThrow("encoding").toStringUtf8())
+        .isEqualTo("json/plain");
+    assertThat(converter.fromPayload(payload, Order.class, Order.class)).isEqualTo(order);
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = JsonMapper.class, names = "SDK", mode = EnumSource.Mode.EXCLUDE)
+  void shouldReadWhatSdkConverterWrites(JsonMapper jsonMapper) {
+    DataConverter converter = converter(jsonMapper, false);
+    Payload payload =
+        DefaultDataConverter.newDefaultInstance().toPayload(new Order("a", Instant.EPOCH)).get();
+
+    assertThat(converter.fromPayload(payload, Order.class, Order.class))
+        .isEqualTo(new Order("a", Instant.EPOCH));
+  }
+
+  @ParameterizedTest
+  @EnumSource(JsonMapper.class)
+  void shouldReadAndWriteFieldsLikeSdkConverter(JsonMapper jsonMapper) {
+    DataConverter converter = converter(jsonMapper, true);
+    DataConverter sdk = DefaultDataConverter.newDefaultInstance();
+    FieldsOnly order = new FieldsOnly("o-1", 5);
+
+    Payload payload = sdk.toPayload(order).get();
+    Payload written = converter.toPayload(order).get();
+
+    assertThat(written.getData()).isEqualTo(payload.getData());
+    assertThat(converter.fromPayload(payload, FieldsOnly.class, FieldsOnly.class))
+        .usingRecursiveComparison()
+        .isEqualTo(order);
+    assertThat(sdk.fromPayload(written, FieldsOnly.class, FieldsOnly.class))
+        .usingRecursiveComparison()
+        .isEqualTo(order);
+  }
+
+  @Test
+  void shouldWriteProtobufInBinaryAndReadProtobufJson() {
+    DataConverter converter = converter(JsonMapper.SDK, true);
+
+    Payload payload = converter.toPayload(EXECUTION).get();
+    Payload json = DefaultDataConverter.newDefaultInstance().toPayload(EXECUTION).get();
+
+    assertThat(payload.getMetadataOrThrow("encoding").toStringUtf8()).isEqualTo("binary/protobuf");
+    assertThat(converter.fromPayload(payload, WorkflowExecution.class, WorkflowExecution.class))
+        .isEqualTo(EXECUTION);
+    assertThat(converter.fromPayload(json, WorkflowExecution.class, WorkflowExecution.class))
+        .isEqualTo(EXECUTION);
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = JacksonFormat.class, names = "JSON", mode = EnumSource.Mode.EXCLUDE)
+  void shouldWriteBinaryFormatAndReadJson(JacksonFormat format) {
+    DataConverterOptions options = options(JsonMapper.SDK, false);
+    options.setJacksonFormat(format);
+    DataConverter converter =
+        DataConverters.newDataConverter(options, () -> null, new ProtobufMessageTypes());
+    Order order = new Order("a", Instant.EPOCH);
+
+    Payload payload = converter.toPayload(order).get();
+    Payload json = DefaultDataConverter.newDefaultInstance().toPayload(order).get();
+
+    assertThat(payload.getMetadataOrThrow("encoding").toStringUtf8())
+        .isEqualTo("binary/jackson-" + format.name().toLowerCase());
+    assertThat(converter.fromPayload(payload, Order.class, Order.class)).isEqualTo(order);
+    assertThat(converter.fromPayload(json, Order.class, Order.class)).isEqualTo(order);
+  }
+
+  @Test
+  void shouldUseSpringObjectMapper() {
+    ObjectMapper mapper =
+        DataConverters.newSdkObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+    DataConverter converter =
+        DataConverters.newDataConverter(
+            options(JsonMapper.SPRING, false), () -> mapper, new ProtobufMessageTypes());
+
+    Payload payload = converter.toPayload(new Order("a", Instant.EPOCH)).get();
+
+    assertThat(payload.getData().toStringUtf8()).contains("\"created_at\"");
+  }
+
+  @ParameterizedTest
+  @EnumSource(value = JacksonFormat.class, names = "JSON", mode = EnumSource.Mode.EXCLUDE)
+  void shouldWriteBinaryFormatWithSpringObjectMapperSettings(JacksonFormat format) {
+    ObjectMapper mapper =
+        DataConverters.newSdkObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+    DataConverterOptions options = options(JsonMapper.SPRING, false);
+    options.setJacksonFormat(format);
+    DataConverter converter =
+        DataConverters.newDataConverter(options, () -> mapper, new ProtobufMessageTypes());
+    Order order = new Order("a", Instant.EPOCH);
+
+    Payload payload = converter.toPayload(order).get();
+
+    // field names are kept as text in both formats
+    assertThat(payload.getData().toStringUtf8()).contains("created_at");
+    assertThat(converter.fromPayload(payload, Order.class, Order.class)).isEqualTo(order);
+  }
+
+  @Test
+  void shouldFailWithoutSpringObjectMapper() {
+    assertThatThrownBy(
+            () ->
+                DataConverters.newDataConverter(
+                    options(JsonMapper.SPRING, false), () -> null, new ProtobufMessageTypes()))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private static DataConverter converter(JsonMapper jsonMapper, boolean protobufFirst) {
+    return DataConverters.newDataConverter(
+        options(jsonMapper, protobufFirst),
+        DataConverters::newSdkObjectMapper,
+        new ProtobufMessageTypes());
+  }
+
+  private static DataConverterOptions options(JsonMapper jsonMapper, boolean protobufFirst) {
+    DataConverterOptions options = new DataConverterOptions();
+    options.setJsonMapper(jsonMapper);
+    options.setProtobufFirst(protobufFirst);
+    return options;
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  static class Order {
+    private String id;
+    private Instant createdAt;
+  }
+
+  /** Class without getters, the SDK mapper reads and writes its fields. */
+  static class FieldsOnly {
+    private String id;
+    private int amount;
+
+    FieldsOnly() {}
+
+    FieldsOnly(String id, int amount) {
+      this.id = id;
+      this.amount = amount;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileSystemPayloadStoreTest {
+
+  @TempDir Path dir;
+
+  @Test
+  void shouldReadStoredPayload() {
+    FileSystemPayloadStore store = new FileSystemPayloadStore(dir.resolve("payloads"));
+    byte[] data = "payload".getBytes(StandardCharsets.UTF_8);
+    String key = ClaimCheckPayloadCodec.key(data);
+
+    store.put(key, data);
+
+    assertThat(store.get(key)).isEqualTo(data);
+    assertThat(dir.resolve("payloads").resolve(key.substring(0, 2)).resolve(key)).exists();
+  }
+
+  @Test
+  void shouldWriteSamePayloadOnce() throws Exception {
+    FileSystemPayloadStore store = new FileSystemPayloadStore(dir);
+    byte[] data = "payload".getBytes(StandardCharsets.UTF_8);
+    String key = ClaimCheckPayloadCodec.key(data);
+
+    store.put(key, data);
+    store.put(key, data);
+
+    try (Stream<Path> files = Files.walk(dir)) {
+      assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+    }
+  }
+
+  @Test
+  void shouldReturnNullForMissingPayload() {
+    FileSystemPayloadStore store = new FileSystemPayloadStore(dir);
+
+    assertThat(store.get(ClaimCheckPayloadCodec.key(new byte[0]))).isNull();
+  }
+
+  @Test
+  void shouldRejectKeyOutsideStore() {
+    FileSystemPayloadStore store = new FileSystemPayloadStore(dir);
+
+    assertThatThrownBy(() -> store.get("../secret")).isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.DataConverterOptions;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.api.common.v1.ActivityType;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import org.junit.jupiter.api.Test;
+
+class RegisteredProtobufPayloadConverterTest {
+
+  private static final ActivityType REGISTERED = ActivityType.newBuilder().setName("a").build();
+  private static final WorkflowType NOT_REGISTERED = WorkflowType.newBuilder().setName("w").build();
+
+  private final ProtobufMessageTypes messageTypes = new ProtobufMessageTypes();
+  private final DataConverter converter = newConverter(messageTypes);
+
+  @ActivityInterface
+  interface ProtobufActivities {
+    ActivityType rename(ActivityType type, String name);
+  }
+
+  @Test
+  void shouldWriteRegisteredMessagesInBinary() {
+    messageTypes.registerInterface(ProtobufActivities.class);
+
+    Payload payload = converter.toPayload(REGISTERED).get();
+
+    assertThat(messageTypes.contains(ActivityType.class)).isTrue();
+    assertThat(payload.getMetadataOrThrow("encoding").toStringUtf8()).isEqualTo("binary/protobuf");
+    assertThat(converter.fromPayload(payload, ActivityType.class, ActivityType.class))
+        .isEqualTo(REGISTERED);
+  }
+
+  @Test
+  void shouldWriteOtherMessagesInProtobufJson() {
+    messageTypes.registerInterface(ProtobufActivities.class);
+
+    Payload payload = converter.toPayload(NOT_REGISTERED).get();
+
+    assertThat(payload.getMetadataOrThrow("encoding").toStringUtf8()).isEqualTo("json/protobuf");
+  }
+
+  @Test
+  void shouldKeepMessageTypesOfEachConverter() {
+    messageTypes.registerInterface(ProtobufActivities.class);
+    DataConverter otherClient = newConverter(new ProtobufMessageTypes());
+
+    Payload payload = otherClient.toPayload(REGISTERED).get();
+
+    assertThat(payload.getMetadataOrThrow("encoding").toStringUtf8()).isEqualTo("json/protobuf");
+  }
+
+  @Test
+  void shouldReadProtobufJsonOfRegisteredMessages() {
+    messageTypes.registerInterface(ProtobufActivities.class);
+    Payload json = DefaultDataConverter.newDefaultInstance().toPayload(REGISTERED).get();
+
+    assertThat(converter.fromPayload(json, ActivityType.class, ActivityType.class))
+        .isEqualTo(REGISTERED);
+  }
+
+  private static DataConverter newConverter(ProtobufMessageTypes messageTypes) {
+    DataConverterOptions options = new DataConverterOptions();
+    options.setProtobufStubTypes(true);
+    return DataConverters.newDataConverter(options, () -> null, messageTypes);
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.DelayedStartOptions;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflow;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflowImpl;
+import io.temporal.testing.TestWorkflowEnvironment;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/** Starts go to the in-memory test server, the journal is in a temporary directory. */
+class DelayedStartSchedulerTest extends BaseTest {
+
+  @TempDir Path dir;
+  private Path journal;
+  private TestWorkflowEnvironment testEnv;
+  private DelayedStartOptions options;
+  private DelayedStartScheduler scheduler;
+
+  @Autowired WorkflowFactory fact;
+
+  @BeforeEach
+  void setUp() {
+    testEnv = TestWorkflowEnvironment.newInstance();
+    fact.makeWorker(testEnv, GreetingWorkflowImpl.class);
+    testEnv.start();
+    journal = dir.resolve("starts.journal");
+    options = new DelayedStartOptions();
+    options.setTickDuration(Duration.ofMillis(10));
+    scheduler = newScheduler();
+  }
+
+  @AfterEach
+  void tearDown() {
+    scheduler.close();
+    testEnv.close();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldStartWorkflowAtDueTime() throws Exception {
+    Instant startAt = Instant.now().plusMillis(300);
+
+    scheduler.schedule(
+        GreetingWorkflow.class, GreetingWorkflowImpl.class, "delayed-1", startAt, "World");
+
+    assertThat(scheduler.size()).isEqualTo(1);
+    assertThatThrownBy(() -> greeting("delayed-1")).isInstanceOf(RuntimeException.class);
+    while (scheduler.size() > 0) {
+      Thread.sleep(10);
+    }
+    assertThat(Instant.now()).isAfterOrEqualTo(startAt);
+    assertThat(greeting("delayed-1")).isEqualTo("Hello World!");
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldNotStartCancelledWorkflow() throws Exception {
+    scheduler.schedule(
+        GreetingWorkflow.class,
+        GreetingWorkflowImpl.class,
+        "delayed-2",
+        Instant.now().plusMillis(100),
+        "World");
+
+    assertThat(scheduler.cancel("delayed-2")).isTrue();
+    Thread.sleep(300);
+    assertThat(scheduler.cancel("delayed-2")).isFalse();
+    assertThatThrownBy(() -> greeting("delayed-2")).isInstanceOf(RuntimeException.class);
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldRestorePendingStartsFromJournal() throws Exception {
+    Instant later = Instant.now().plus(Duration.ofHours(1));
+    scheduler.schedule(GreetingWorkflow.class, GreetingWorkflowImpl.class, "delayed-3", later, "A");
+    scheduler.schedule(GreetingWorkflow.class, GreetingWorkflowImpl.class, "delayed-4", later, "B");
+    scheduler.schedule(GreetingWorkflow.class, GreetingWorkflowImpl.class, "delayed-4", later, "C");
+    scheduler.cancel("delayed-3");
+    scheduler.close();
+    // crash in the middle of a record
+    Files.write(journal, new byte[] {1, 0, 0}, StandardOpenOption.APPEND);
+
+    scheduler = newScheduler();
+
+    assertThat(scheduler.size()).isEqualTo(1);
+    assertThat(scheduler.cancel("delayed-3")).isFalse();
+    assertThat(scheduler.cancel("delayed-4")).isTrue();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldReplacePendingStartOfSameWorkflowId() throws Exception {
+    scheduler.schedule(
+        GreetingWorkflow.class,
+        GreetingWorkflowImpl.class,
+        "delayed-5",
+        Instant.now().plus(Duration.ofHours(1)),
+        "Later");
+
+    scheduler.schedule(
+        GreetingWorkflow.class,
+        GreetingWorkflowImpl.class,
+        "delayed-5",
+        Instant.now().minusSeconds(1),
+        "Now");
+    while (scheduler.size() > 0) {
+      Thread.sleep(10);
+    }
+
+    assertThat(greeting("delayed-5")).isEqualTo("Hello Now!");
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldDropStartWhoseArgumentsCannotBeRead() throws Exception {
+    // an object cannot be read as the String parameter of the workflow method
+    scheduler.schedule(
+        GreetingWorkflow.class,
+        GreetingWorkflowImpl.class,
+        "delayed-6",
+        Instant.now(),
+        Collections.singletonMap("name", "World"));
+
+    // retried starts would wait for retryInterval of 30 seconds
+    while (scheduler.size() > 0) {
+      Thread.sleep(10);
+    }
+
+    assertThatThrownBy(() -> greeting("delayed-6")).isInstanceOf(RuntimeException.class);
+  }
+
+  private DelayedStartScheduler newScheduler() {
+    return new DelayedStartScheduler(fact, testEnv.getWorkflowClient(), journal, options);
+  }
+
+  private String greeting(String workflowId) {
+    return testEnv
+        .getWorkflowClient()
+        .newWorkflowStub(GreetingWorkflow.class, workflowId)
+        .queryGreeting();
+  }
+}
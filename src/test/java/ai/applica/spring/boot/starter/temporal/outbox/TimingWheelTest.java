@@ -0,0 +1,68 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/** Wheel of 8 buckets of 10 ms started at time 0. */
+class TimingWheelTest {
+
+  private final TimingWheel<String> wheel = new TimingWheel<>(10, 8, 0);
+
+  @Test
+  void shouldReturnItemsWhenDue() {
+    wheel.add("a", 25);
+    wheel.add("b", 40);
+
+    assertThat(wheel.advance(20)).isEmpty();
+    assertThat(wheel.advance(30)).containsExactly("a");
+    assertThat(wheel.advance(39)).isEmpty();
+    assertThat(wheel.advance(40)).containsExactly("b");
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void shouldKeepItemsOfLaterTurns() {
+    wheel.add("next turn", 130);
+
+    assertThat(wheel.advance(50)).isEmpty();
+    assertThat(wheel.advance(120)).isEmpty();
+    assertThat(wheel.advance(130)).containsExactly("next turn");
+  }
+
+  @Test
+  void shouldReturnAllDueItemsAfterLongPause() {
+    wheel.add("a", 10);
+    wheel.add("b", 500);
+    wheel.add("c", 1000);
+
+    assertThat(wheel.advance(600)).containsExactlyInAnyOrder("a", "b");
+    assertThat(wheel.size()).isEqualTo(1);
+    assertThat(wheel.advance(1000)).containsExactly("c");
+  }
+
+  @Test
+  void shouldReturnPastItemsAtNextTick() {
+    wheel.advance(100);
+    wheel.add("late", 20);
+
+    assertThat(wheel.advance(110)).containsExactly("late");
+  }
+}
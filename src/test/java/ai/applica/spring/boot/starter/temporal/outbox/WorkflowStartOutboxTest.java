@@ -0,0 +1,216 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties.OutboxOptions;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflow;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflowImpl;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptorBase;
+import io.temporal.common.interceptors.WorkflowClientInterceptorBase;
+import io.temporal.testing.TestWorkflowEnvironment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Outbox in embedded H2, starts go to the in-memory test server. */
+class WorkflowStartOutboxTest extends BaseTest {
+
+  private static final String WORKFLOW_NAME = "HelloQuery";
+
+  private EmbeddedDatabase database;
+  private TransactionTemplate transaction;
+  private TestWorkflowEnvironment testEnv;
+  private WorkflowStartOutbox outbox;
+  private OutboxDispatcher dispatcher;
+
+  @Autowired WorkflowFactory fact;
+
+  @BeforeEach
+  void setUp() {
+    database =
+        new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .build();
+    transaction = new TransactionTemplate(new DataSourceTransactionManager(database));
+    testEnv = TestWorkflowEnvironment.newInstance();
+    fact.makeWorker(testEnv, GreetingWorkflowImpl.class);
+    testEnv.start();
+    OutboxOptions options = new OutboxOptions();
+    outbox =
+        new WorkflowStartOutbox(
+            new JdbcTemplate(database),
+            options,
+            testEnv.getWorkflowClient().getOptions().getDataConverter());
+    outbox.createTable();
+    dispatcher = new OutboxDispatcher(outbox, fact, testEnv.getWorkflowClient(), options);
+  }
+
+  @AfterEach
+  void tearDown() {
+    fact.setOutbox(null);
+    dispatcher.destroy();
+    testEnv.close();
+    database.shutdown();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldStartWorkflowAfterCommit() {
+    transaction.execute(
+        status -> {
+          outbox.enqueue(WORKFLOW_NAME, GreetingWorkflow.class, "outbox-1", "World");
+          return null;
+        });
+
+    assertThat(outbox.size()).isEqualTo(1);
+    assertThat(dispatcher.drain()).isEqualTo(1);
+    assertThat(outbox.size()).isZero();
+    assertThat(
+            testEnv
+                .getWorkflowClient()
+                .newWorkflowStub(GreetingWorkflow.class, "outbox-1")
+                .queryGreeting())
+        .isEqualTo("Hello World!");
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldEnqueueThroughWorkflowFactory() {
+    fact.setOutbox(outbox);
+
+    transaction.execute(
+        status -> {
+          fact.enqueueStart(GreetingWorkflow.class, GreetingWorkflowImpl.class, "outbox-2", "Fact");
+          return null;
+        });
+
+    assertThat(dispatcher.drain()).isEqualTo(1);
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldNotStoreStartOnRollback() {
+    transaction.execute(
+        status -> {
+          outbox.enqueue(WORKFLOW_NAME, GreetingWorkflow.class, "outbox-3", "World");
+          status.setRollbackOnly();
+          return null;
+        });
+
+    assertThat(outbox.size()).isZero();
+    assertThat(dispatcher.drain()).isZero();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldRemoveWorkflowAlreadyStarted() {
+    outbox.enqueue(WORKFLOW_NAME, GreetingWorkflow.class, "outbox-4", "World");
+    outbox.enqueue(WORKFLOW_NAME, GreetingWorkflow.class, "outbox-4", "World");
+
+    assertThat(dispatcher.drain()).isEqualTo(2);
+    assertThat(outbox.size()).isZero();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldKeepFailedStartForRetry() {
+    WorkflowClient failingClient =
+        WorkflowClient.newInstance(
+            testEnv.getWorkflowClient().getWorkflowServiceStubs(),
+            WorkflowClientOptions.newBuilder(testEnv.getWorkflowClient().getOptions())
+                .setInterceptors(new FailingStartInterceptor())
+                .build());
+    OutboxDispatcher failingDispatcher =
+        new OutboxDispatcher(outbox, fact, failingClient, new OutboxOptions());
+    outbox.enqueue(WORKFLOW_NAME, GreetingWorkflow.class, "outbox-5", "World");
+
+    try {
+      assertThat(failingDispatcher.drain()).isZero();
+    } finally {
+      failingDispatcher.destroy();
+    }
+    assertThat(outbox.size()).isEqualTo(1);
+    long now = System.currentTimeMillis();
+    assertThat(outbox.claim(10, 10, now, now)).isEmpty();
+    assertThat(outbox.claim(10, 10, Long.MAX_VALUE, Long.MAX_VALUE)).hasSize(1);
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldAbandonStartThatCannotSucceed() {
+    outbox.enqueue("NotConfigured", GreetingWorkflow.class, "outbox-8", "World");
+
+    assertThat(dispatcher.drain()).isZero();
+    assertThat(outbox.size()).isEqualTo(1);
+    assertThat(outbox.claim(10, 10, Long.MAX_VALUE, Long.MAX_VALUE)).isEmpty();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldClaimStartOnce() {
+    outbox.enqueue(WORKFLOW_NAME, GreetingWorkflow.class, "outbox-7", "World");
+    long now = System.currentTimeMillis();
+
+    assertThat(outbox.claim(10, 10, now, now + 1000)).hasSize(1);
+    assertThat(outbox.claim(10, 10, now, now + 1000)).isEmpty();
+    assertThat(dispatcher.drain()).isZero();
+    assertThat(outbox.claim(10, 10, now + 1000, now + 2000)).hasSize(1);
+  }
+
+  @Test
+  void shouldRejectEnqueueWhenOutboxIsDisabled() {
+    assertThatThrownBy(
+            () ->
+                fact.enqueueStart(
+                    GreetingWorkflow.class, GreetingWorkflowImpl.class, "outbox-6", "World"))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  /** Fails every start as an unavailable service would, a failure worth retrying. */
+  private static class FailingStartInterceptor extends WorkflowClientInterceptorBase {
+    @Override
+    public WorkflowClientCallsInterceptor workflowClientCallsInterceptor(
+        WorkflowClientCallsInterceptor next) {
+      return new WorkflowClientCallsInterceptorBase(next) {
+        @Override
+        public WorkflowStartOutput start(WorkflowStartInput input) {
+          throw new StatusRuntimeException(Status.UNAVAILABLE);
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2020 Applica.ai All Rights Reserved
+ *
+ *  Copyright 2012-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License"). You may not
+ *  use this file except in compliance with the License. A copy of the License is
+ *  located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on
+ *  an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ *  express or implied. See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+
+package ai.applica.spring.boot.starter.temporal.processors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.applica.spring.boot.starter.temporal.RecordingStatsReporter;
+import ai.applica.spring.boot.starter.temporal.TemporalClientRegistry;
+import ai.applica.spring.boot.starter.temporal.WorkflowFactory;
+import ai.applica.spring.boot.starter.temporal.annotations.StartsWorkflow;
+import ai.applica.spring.boot.starter.temporal.config.TemporalOptionsConfiguration;
+import ai.applica.spring.boot.starter.temporal.config.TemporalProperties;
+import ai.applica.spring.boot.starter.temporal.samples.BaseTest;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflow;
+import ai.applica.spring.boot.starter.temporal.samples.apps.HelloQuery.GreetingWorkflowImpl;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.tally.ScopeCloseException;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/** Starts go to the in-memory test server registered as the default client. */
+class StartsWorkflowTest extends BaseTest {
+
+  private final RecordingStatsReporter reporter = new RecordingStatsReporter();
+  private Scope scope;
+  private TestWorkflowEnvironment testEnv;
+  private StartsWorkflowBeanPostProcessor postProcessor;
+  private Greetings greetings;
+
+  @Autowired WorkflowFactory fact;
+  @Autowired TemporalProperties temporalProperties;
+  @Autowired TemporalOptionsConfiguration temporalOptionsConfiguration;
+
+  @BeforeEach
+  void setUp() {
+    scope = reporter.newScope();
+    testEnv =
+        TestWorkflowEnvironment.newInstance(
+            TestEnvironmentOptions.newBuilder().setMetricsScope(scope).build());
+    fact.makeWorker(testEnv, GreetingWorkflowImpl.class);
+    testEnv.start();
+    TemporalClientRegistry registry = new TemporalClientRegistry();
+    registry.register(
+        TemporalClientRegistry.DEFAULT_CLIENT,
+        testEnv.getWorkflowClient(),
+        testEnv.getWorkerFactory(),
+        new WorkflowFactory(
+            temporalProperties, testEnv.getWorkflowClient(), temporalOptionsConfiguration));
+    postProcessor = new StartsWorkflowBeanPostProcessor(temporalProperties, registry);
+    greetings =
+        (Greetings) postProcessor.postProcessAfterInitialization(new Greetings(), "greetings");
+  }
+
+  @AfterEach
+  void tearDown() throws ScopeCloseException {
+    postProcessor.destroy();
+    testEnv.close();
+    scope.close();
+  }
+
+  @Test
+  void shouldProxyAnnotatedBean() {
+    assertThat(AopUtils.isAopProxy(greetings)).isTrue();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldStartWorkflowWithIdAndArgumentsFromParameters() {
+    WorkflowExecution execution = greetings.greet("greeting-1", "World").join();
+
+    assertThat(execution.getWorkflowId()).isEqualTo("greeting-1");
+    assertThat(
+            testEnv
+                .getWorkflowClient()
+                .newWorkflowStub(GreetingWorkflow.class, "greeting-1")
+                .queryGreeting())
+        .isEqualTo("Hello World!");
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldStartWorkflowWithRandomIdAndMethodArguments() {
+    WorkflowExecution execution = greetings.greet("World").join();
+
+    assertThat(execution.getWorkflowId()).isNotEmpty();
+    assertThat(execution.getRunId()).isNotEmpty();
+  }
+
+  @Test
+  @Timeout(20)
+  void shouldCountFailedStartOfVoidMethod() throws InterruptedException {
+    greetings.greet("greeting-2", "World").join();
+
+    greetings.greetLater("greeting-2", "World");
+
+    while (reporter.counter(StartsWorkflowInterceptor.FAILED) == 0) {
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  void shouldRejectMethodNotReturningFuture() {
+    assertThatThrownBy(() -> greetings.greetAndWait("World"))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  static class Greetings {
+
+    @StartsWorkflow(value = GreetingWorkflowImpl.class, workflowId = "#p0", args = "#p1")
+    public CompletableFuture<WorkflowExecution> greet(String greetingId, String name) {
+      return null;
+    }
+
+    @StartsWorkflow(GreetingWorkflowImpl.class)
+    public CompletableFuture<WorkflowExecution> greet(String name) {
+      return null;
+    }
+
+    @StartsWorkflow(value = GreetingWorkflowImpl.class, workflowId = "#p0", args = "#p1")
+    public void greetLater(String greetingId, String name) {}
+
+    @StartsWorkflow(GreetingWorkflowImpl.class)
+    public WorkflowExecution greetAndWait(String name) {
+      return null;
+    }
+  }
+}
@@ -50,6 +50,10 @@ public class HelloQuery {
     /** Returns greeting as a query value. */
     @QueryMethod
     String queryGreeting();
+
+    /** Returns greeting followed by given text. */
+    @QueryMethod
+    String queryGreetingWith(String suffix);
   }
 
   /** GreetingWorkflow implementation that updates greeting after sleeping for 5 seconds. */
@@ -72,6 +76,11 @@ public class HelloQuery {
     public String queryGreeting() {
       return greeting;
     }
+
+    @Override
+    public String queryGreetingWith(String suffix) {
+      return greeting + suffix;
+    }
   }
 
   @EnableTemporal
@@ -61,6 +61,10 @@ public class HelloSignal {
     @SignalMethod
     void waitForName(String name);
 
+    /** Receives names coalesced by the client into one signal. */
+    @SignalMethod
+    void waitForNames(List<String> names);
+
     @SignalMethod
     void exit();
   }
@@ -92,6 +96,13 @@ public class HelloSignal {
       messageQueue.add("Hello " + name + "!");
     }
 
+    @Override
+    public void waitForNames(List<String> names) {
+      for (String name : names) {
+        waitForName(name);
+      }
+    }
+
     @Override
     public void exit() {
       exit = true;